@@ -0,0 +1,79 @@
+package at.sparklingscience.urbantrees.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import at.sparklingscience.urbantrees.util.BeaconTimeline;
+
+/**
+ * Compares the closed-form calculation of the last observation time of a
+ * readout with the previous implementation stepping one logging interval
+ * at a time, for reference times of increasing age.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BeaconTimelineBenchmark {
+
+	/**
+	 * Age of the beacons' reference time at readout.
+	 */
+	@Param({"1", "365", "3650"})
+	private int refTimeAgeDays;
+
+	/**
+	 * Logging interval of the beacon.
+	 */
+	@Param({"1000", "600000"})
+	private long intervalMs;
+
+	private long refTime;
+
+	private long readoutTime;
+
+	@Setup
+	public void setUp() {
+		this.refTime = 1000000000000l;
+		this.readoutTime = this.refTime + TimeUnit.DAYS.toMillis(this.refTimeAgeDays) + 500;
+	}
+
+	/**
+	 * Previous implementation, stepping from the reference time
+	 * one logging interval at a time.
+	 */
+	private static long lastObservationTimeIterative(long refTime, long intervalMs, long readoutTimeApprox) {
+		long logTime = refTime;
+		while (logTime <= readoutTimeApprox - intervalMs) {
+			logTime += intervalMs;
+		}
+		return logTime;
+	}
+
+	@Benchmark
+	public long closedForm() {
+		return BeaconTimeline.lastObservationTime(this.refTime, this.intervalMs, this.readoutTime);
+	}
+
+	@Benchmark
+	public long iterative() {
+		return lastObservationTimeIterative(this.refTime, this.intervalMs, this.readoutTime);
+	}
+
+}
@@ -193,6 +193,7 @@ public class SecurityConfiguration {
 				).hasAnyRole(USER_ACCESS_ROLE, TEMPORARY_ACTIVATE_OTP_ACCESS_ROLE)
 		    	.antMatchers(
 		    			"/tree/**/phenology",
+		    			"/tree/observations",
 		    			"/user/phenology/**"
 				).hasAnyRole(API_KEY_ACCESS_ROLE, USER_ACCESS_ROLE)
 		    	.antMatchers(
@@ -6,9 +6,11 @@ import java.util.TimeZone;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("at.sparklingscience.urbantrees.mapper")
+@EnableScheduling
 public class UrbantreesApplication {
 	
 	/**
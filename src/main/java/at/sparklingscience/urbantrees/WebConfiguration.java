@@ -24,6 +24,12 @@ public class WebConfiguration implements WebMvcConfigurer {
 	
 	@Value("${at.sparklingscience.urbantrees.corsAllowedOriginPatterns}")
 	private String corsAllowedOriginPatterns;
+	
+	/**
+	 * Maximum duration of async requests.
+	 */
+	@Value("${at.sparklingscience.urbantrees.asyncTimeoutMin}")
+	private long asyncTimeoutMin;
 		
 	/**
 	 * Set json as default and disallow unregistered extensions.
@@ -38,7 +44,7 @@ public class WebConfiguration implements WebMvcConfigurer {
 	
 	@Override  
     public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
-        configurer.setDefaultTimeout(5l * 60l * 1000l); 
+        configurer.setDefaultTimeout(this.asyncTimeoutMin * 60l * 1000l);
     }  
 	
 	@Override
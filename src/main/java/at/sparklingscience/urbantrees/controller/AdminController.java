@@ -26,12 +26,14 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import at.sparklingscience.urbantrees.controller.util.ControllerUtil;
 import at.sparklingscience.urbantrees.controller.util.Timespan;
 import at.sparklingscience.urbantrees.domain.Beacon;
 import at.sparklingscience.urbantrees.domain.BeaconLog;
+import at.sparklingscience.urbantrees.domain.BeaconLogPage;
 import at.sparklingscience.urbantrees.domain.BeaconLogSeverity;
 import at.sparklingscience.urbantrees.domain.BeaconLogType;
 import at.sparklingscience.urbantrees.domain.BeaconSettings;
@@ -60,6 +62,15 @@ import at.sparklingscience.urbantrees.mapper.UiMapper;
 import at.sparklingscience.urbantrees.security.authentication.AuthenticationToken;
 import at.sparklingscience.urbantrees.service.AdminService;
 import at.sparklingscience.urbantrees.service.ApplicationService;
+import at.sparklingscience.urbantrees.service.BeaconDataArchiveService;
+import at.sparklingscience.urbantrees.service.BeaconEventService;
+import at.sparklingscience.urbantrees.service.BeaconRegistryService;
+import at.sparklingscience.urbantrees.service.BeaconService;
+import at.sparklingscience.urbantrees.service.BeaconSettingsService;
+import at.sparklingscience.urbantrees.service.ImageService;
+import at.sparklingscience.urbantrees.service.PhenologyStatisticsService;
+import at.sparklingscience.urbantrees.service.ReferenceDataService;
+import at.sparklingscience.urbantrees.service.TreeCatalogueService;
 
 @RestController
 @RequestMapping("/admin")
@@ -67,12 +78,49 @@ public class AdminController {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(AdminController.class);
 	
+	/**
+	 * Default page size for {@link #getBeaconLogPage}.
+	 */
+	private static final int BEACON_LOG_PAGE_DEFAULT = 100;
+	
+	/**
+	 * Max. page size for {@link #getBeaconLogPage}.
+	 */
+	private static final int BEACON_LOG_PAGE_MAX = 1000;
+	
 	@Autowired
 	private TreeMapper treeMapper;
 	
 	@Autowired
 	private BeaconMapper beaconMapper;
 	
+	@Autowired
+	private BeaconService beaconService;
+	
+	@Autowired
+	private BeaconDataArchiveService beaconDataArchiveService;
+	
+	@Autowired
+	private BeaconRegistryService beaconRegistryService;
+	
+	@Autowired
+	private BeaconSettingsService beaconSettingsService;
+	
+	@Autowired
+	private BeaconEventService beaconEventService;
+	
+	@Autowired
+	private TreeCatalogueService treeCatalogueService;
+	
+	@Autowired
+	private ReferenceDataService referenceDataService;
+	
+	@Autowired
+	private ImageService imageService;
+	
+	@Autowired
+	private PhenologyStatisticsService phenologyStatisticsService;
+	
 	@Autowired
 	private PhenologyMapper phenologyMapper;
 	
@@ -100,6 +148,7 @@ public class AdminController {
 		final int userId = ControllerUtil.getAuthToken(auth).getId();
 		try {
 			this.treeMapper.insertCity(city, String.valueOf(userId));
+			this.referenceDataService.invalidate();
 		} catch (DuplicateKeyException ex) {
 			LOGGER.warn("Admin tried to enter duplicate city: {}", ex.getMessage(), ex);
 			throw new BadRequestException("There is already a city with given name.", ClientError.CITY_DUPLICATE);
@@ -130,6 +179,8 @@ public class AdminController {
 			}
 			this.beaconMapper.insertBeacon(beacon, String.valueOf(userId));
 			this.beaconMapper.insertBeaconSettings(beacon.getId(), beacon.getSettings(), String.valueOf(userId));
+			this.beaconSettingsService.settingsChanged((int) beacon.getId());
+			this.beaconRegistryService.invalidate();
 		} catch (DuplicateKeyException ex) {
 			LOGGER.warn("Admin tried to enter duplicate beacon: {}", ex.getMessage(), ex);
 			throw new BadRequestException("There is already a beacon with given deviceId or same address.", ClientError.BEACON_DUPLICATE);
@@ -181,6 +232,8 @@ public class AdminController {
 			BeaconSettings newSettings = oldBeacon.getSettings();
 			newSettings.setPin(beacon.getSettings().getPin());
 			this.beaconMapper.updateBeaconSettings(newSettings, String.valueOf(userId));
+			this.beaconSettingsService.settingsChanged(beaconId);
+			this.beaconRegistryService.invalidate();
 			
 		} catch (Throwable t) {
 			LOGGER.error("Internal excetion during postBeaconUpdate: {}", t.getMessage(), t);
@@ -204,6 +257,7 @@ public class AdminController {
 			this.treeMapper.insertLocation(tree.getLocation(), name);
 			this.treeMapper.insertTree(tree, name);
 			this.treeMapper.insertTreeAge(tree, name);
+			this.treeCatalogueService.invalidate();
 		} catch (Throwable t) {
 			LOGGER.error("Internal excetion during postTree: {}", t.getMessage(), t);
 			throw new BadRequestException("Internal error encountered while adding tree.", ClientError.TREE_INSERT_FAILED);
@@ -226,6 +280,7 @@ public class AdminController {
 		
 		try {
 			this.treeMapper.updateTree(tree, auth.getName());
+			this.beaconRegistryService.invalidate(); // beacons hold their tree
 		} catch (Throwable t) {
 			LOGGER.error("Internal excetion during postTreeUpdate: {}", t.getMessage(), t);
 			throw new BadRequestException("Internal error encountered while updating tree.", ClientError.TREE_UPDATE_FAILED);
@@ -254,6 +309,7 @@ public class AdminController {
 		
 		try {
 			this.beaconMapper.updateBeaconStatus(beaconId, BeaconStatus.DELETED);
+			this.beaconRegistryService.statusUpdated(beaconId, BeaconStatus.DELETED);
 			this.beaconMapper.insertBeaconLog(beaconId, log);
 		} catch (Throwable t) {
 			LOGGER.error("Error while deleting beacon: {}", t.getMessage(), t);
@@ -264,6 +320,108 @@ public class AdminController {
 		
 	}
 	
+	/**
+	 * Get the current settings of all beacons at once, e.g. to show their
+	 * battery level and firmware in the beacon overview.
+	 * @return latest settings of every beacon that has settings
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/beacon/settings")
+	public List<BeaconSettings> getAllLatestBeaconSettings() {
+		
+		LOGGER.debug("[[ GET ]] getAllLatestBeaconSettings");
+		
+		return this.beaconSettingsService.findAllLatest();
+		
+	}
+	
+	/**
+	 * Rebuild the hourly and daily rollups of all beacons' data.
+	 * @param auth current admin
+	 */
+	@RequestMapping(method = RequestMethod.POST, path = "/beacon/rollup/rebuild")
+	public void postBeaconRollupRebuild(Authentication auth) {
+		
+		AuthenticationToken authToken = ControllerUtil.getAuthToken(auth);
+		LOGGER.info("[[ POST ]] postBeaconRollupRebuild - userId: {}", authToken.getId());
+		
+		final int beaconAmount = this.beaconService.rebuildRollups();
+		
+		LOGGER.info("[[ POST ]] postBeaconRollupRebuild |END| - userId: {}, beacons rebuilt: {}", authToken.getId(), beaconAmount);
+		
+	}
+	
+	/**
+	 * Archive cold beacon data now instead of waiting for the scheduled run.
+	 * @param auth current admin
+	 */
+	@RequestMapping(method = RequestMethod.POST, path = "/beacon/archive")
+	public void postBeaconDataArchive(Authentication auth) {
+		
+		AuthenticationToken authToken = ControllerUtil.getAuthToken(auth);
+		LOGGER.info("[[ POST ]] postBeaconDataArchive - userId: {}", authToken.getId());
+		
+		final long datasetAmount = this.beaconDataArchiveService.archiveColdData();
+		
+		LOGGER.info("[[ POST ]] postBeaconDataArchive |END| - userId: {}, datasets archived: {}", authToken.getId(), datasetAmount);
+		
+	}
+	
+	/**
+	 * Reload cities, species and phenology observation specifications
+	 * after they have been changed in the DB directly.
+	 * @param auth current admin
+	 */
+	@RequestMapping(method = RequestMethod.POST, path = "/reference/reload")
+	public void postReferenceDataReload(Authentication auth) {
+		
+		AuthenticationToken authToken = ControllerUtil.getAuthToken(auth);
+		LOGGER.info("[[ POST ]] postReferenceDataReload - userId: {}", authToken.getId());
+		
+		this.referenceDataService.invalidate();
+		this.treeCatalogueService.invalidate();
+		
+		LOGGER.info("[[ POST ]] postReferenceDataReload |END| - userId: {}", authToken.getId());
+		
+	}
+	
+	/**
+	 * Move all phenology images still stored in the DB to the blob store.
+	 * @param auth current admin
+	 * @return amount of distinct images moved
+	 */
+	@RequestMapping(method = RequestMethod.POST, path = "/images/move")
+	public int postImagesMove(Authentication auth) {
+		
+		AuthenticationToken authToken = ControllerUtil.getAuthToken(auth);
+		LOGGER.info("[[ POST ]] postImagesMove - userId: {}", authToken.getId());
+		
+		final int imageAmount = this.imageService.moveDatabaseImagesToBlobStore();
+		
+		LOGGER.info("[[ POST ]] postImagesMove |END| - userId: {}, images moved: {}", authToken.getId(), imageAmount);
+		
+		return imageAmount;
+		
+	}
+	
+	/**
+	 * Recalculate the weekly phenology observation counts from all stored datasets.
+	 * @param auth current admin
+	 * @return amount of buckets
+	 */
+	@RequestMapping(method = RequestMethod.POST, path = "/phenology/statistics/rebuild")
+	public int postPhenologyStatisticsRebuild(Authentication auth) {
+		
+		AuthenticationToken authToken = ControllerUtil.getAuthToken(auth);
+		LOGGER.info("[[ POST ]] postPhenologyStatisticsRebuild - userId: {}", authToken.getId());
+		
+		final int bucketAmount = this.phenologyStatisticsService.rebuild();
+		
+		LOGGER.info("[[ POST ]] postPhenologyStatisticsRebuild |END| - userId: {}, buckets: {}", authToken.getId(), bucketAmount);
+		
+		return bucketAmount;
+		
+	}
+	
 	@RequestMapping(method = RequestMethod.POST, path = "/users")
 	public SearchResult<List<UserLight>> postFindUsers(@RequestBody Map<String, Object> filters,
 									@RequestParam(required = false) Integer offset,
@@ -562,6 +720,19 @@ public class AdminController {
 		
 	}
 
+	/**
+	 * Subscribe to live beacon events (status changes, stored readouts and
+	 * logs of severity WARN or above) as server-sent events.
+	 * Replaces polling the beacon list for dashboards.
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/beacon/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter getBeaconEvents() {
+		
+		LOGGER.debug("[[ GET ]] getBeaconEvents");
+		return this.beaconEventService.subscribe();
+		
+	}
+	
 	@RequestMapping(method = RequestMethod.GET, path = "/beacon/logs")
 	public List<BeaconLog> getBeaconLogs(@RequestParam(required = false) Long beaconId,
 										 @RequestParam(required = false) BeaconLogSeverity minSeverity,
@@ -581,26 +752,7 @@ public class AdminController {
 		
 		try {
 			
-			List<BeaconLogSeverity> severities = null;
-			if (minSeverity != null) {
-				severities = new ArrayList<>();
-				switch(minSeverity) {
-					case TRACE:
-						severities.add(BeaconLogSeverity.TRACE);
-					case DEBUG:
-						severities.add(BeaconLogSeverity.DEBUG);
-					case INFO:
-						severities.add(BeaconLogSeverity.INFO);
-					case WARN:
-						severities.add(BeaconLogSeverity.WARN);
-					case ERROR:
-						severities.add(BeaconLogSeverity.ERROR);
-						break;
-					default:
-						LOGGER.error("User requetsed illegal beacon log severity: " + minSeverity);
-						throw new BadRequestException("Invalid beacon log serverity given", ClientError.BEACON_LOG_SEVERITY_INVALID);
-				}
-			}
+			List<BeaconLogSeverity> severities = this.getSeveritiesFrom(minSeverity);
 			
 			if (beaconId == null) {
 				beaconId = -1l;
@@ -633,6 +785,109 @@ public class AdminController {
 		
 	}
 	
+	/**
+	 * Keyset-paginated beacon logs. In contrast to {@link #getBeaconLogs},
+	 * deep pages are as fast as the first one since no rows are skipped.
+	 * Filters must be the same for every page of a listing.
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/beacon/logs/page")
+	public BeaconLogPage getBeaconLogPage(@RequestParam(required = false) Long beaconId,
+										  @RequestParam(required = false) BeaconLogSeverity minSeverity,
+										  @RequestParam(required = false) String cursor,
+										  @RequestParam(required = false) Integer maxLogs,
+										  @RequestParam(required = false) String timespanMin,
+										  @RequestParam(required = false) String timespanMax) {
+		
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("[[ GET ]] getBeaconLogPage - beaconId: " + beaconId +
+					", minSeverity: " + minSeverity +
+					", cursor: " + cursor +
+					", maxLogs: " + maxLogs +
+					", timespanMin: " + timespanMin +
+					", timespanMax: " + timespanMax);
+		}
+		
+		try {
+			
+			List<BeaconLogSeverity> severities = this.getSeveritiesFrom(minSeverity);
+			
+			Long beforeId = null;
+			if (cursor != null && !cursor.isEmpty()) {
+				try {
+					beforeId = BeaconLogPage.decodeCursor(cursor);
+				} catch (IllegalArgumentException e) {
+					throw new BadRequestException("Invalid beacon log cursor given", ClientError.BEACON_LOG_CURSOR_INVALID);
+				}
+			}
+			
+			int limit = BEACON_LOG_PAGE_DEFAULT;
+			if (maxLogs != null && maxLogs > 0) {
+				limit = Math.min(maxLogs, BEACON_LOG_PAGE_MAX);
+			}
+			
+			Timespan timespan = ControllerUtil.getTimespanParams(this.dateFormatPattern, timespanMin, timespanMax);
+			
+			List<BeaconLog> logs = this.beaconMapper.findBeaconLogsBefore(
+					beforeId,
+					beaconId,
+					severities,
+					limit + 1,
+					timespan.getStart(),
+					timespan.getEnd()
+			);
+			
+			String nextCursor = null;
+			if (logs.size() > limit) {
+				logs = logs.subList(0, limit);
+				nextCursor = BeaconLogPage.encodeCursor(logs.get(limit - 1).getId());
+			}
+			return new BeaconLogPage(logs, nextCursor);
+		} catch (BadRequestException e) {
+			throw e;
+		} catch (Throwable t) {
+			LOGGER.error("Could not get beacon log page for beacon with id {}: {}", beaconId, t.getMessage(), t);
+			throw new InternalException("Could not get beacon logs for beacon: " + t.getMessage(), ClientError.GENERIC_ERROR);
+		} finally {
+			LOGGER.trace("[[ GET ]] getBeaconLogPage |END|");
+		}
+		
+	}
+	
+	/**
+	 * Expand the given minimum severity to the list of all
+	 * severities at or above it.
+	 * @param minSeverity min. severity; may be null
+	 * @return list of severities or null if minSeverity is null
+	 * @throws BadRequestException if the severity is unknown
+	 */
+	private List<BeaconLogSeverity> getSeveritiesFrom(BeaconLogSeverity minSeverity) throws BadRequestException {
+		
+		if (minSeverity == null) {
+			return null;
+		}
+		
+		List<BeaconLogSeverity> severities = new ArrayList<>();
+		switch(minSeverity) {
+			case TRACE:
+				severities.add(BeaconLogSeverity.TRACE);
+			case DEBUG:
+				severities.add(BeaconLogSeverity.DEBUG);
+			case INFO:
+				severities.add(BeaconLogSeverity.INFO);
+			case WARN:
+				severities.add(BeaconLogSeverity.WARN);
+			case ERROR:
+				severities.add(BeaconLogSeverity.ERROR);
+				break;
+			default:
+				LOGGER.error("User requetsed illegal beacon log severity: " + minSeverity);
+				throw new BadRequestException("Invalid beacon log serverity given", ClientError.BEACON_LOG_SEVERITY_INVALID);
+		}
+		
+		return severities;
+		
+	}
+	
 	@RequestMapping(method = RequestMethod.GET, path = "/report")
 	public List<Report> getReports(
 			@PathVariable(required = false) Boolean autoCreate,
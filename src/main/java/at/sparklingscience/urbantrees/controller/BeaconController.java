@@ -1,38 +1,50 @@
 package at.sparklingscience.urbantrees.controller;
 
+import java.io.IOException;
 import java.security.Principal;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.Date;
 import java.util.List;
+import java.util.UUID;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import at.sparklingscience.urbantrees.SecurityConfiguration;
 import at.sparklingscience.urbantrees.controller.util.ControllerUtil;
 import at.sparklingscience.urbantrees.controller.util.Timespan;
 import at.sparklingscience.urbantrees.domain.Beacon;
 import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconDatasetAggregate;
 import at.sparklingscience.urbantrees.domain.BeaconLog;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutBatchEntry;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutBatchResult;
 import at.sparklingscience.urbantrees.domain.BeaconReadoutResult;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutStatus;
 import at.sparklingscience.urbantrees.domain.BeaconSettings;
 import at.sparklingscience.urbantrees.domain.BeaconStatus;
-import at.sparklingscience.urbantrees.domain.UserLevelAction;
-import at.sparklingscience.urbantrees.domain.UserLevelActionContext;
 import at.sparklingscience.urbantrees.domain.validator.ValidationGroups;
 import at.sparklingscience.urbantrees.exception.BadRequestException;
 import at.sparklingscience.urbantrees.exception.NotFoundException;
@@ -40,7 +52,12 @@ import at.sparklingscience.urbantrees.exception.UnauthorizedException;
 import at.sparklingscience.urbantrees.mapper.BeaconMapper;
 import at.sparklingscience.urbantrees.security.SecurityUtil;
 import at.sparklingscience.urbantrees.security.authentication.AuthenticationToken;
-import at.sparklingscience.urbantrees.service.UserService;
+import at.sparklingscience.urbantrees.service.BeaconDataExportService;
+import at.sparklingscience.urbantrees.service.BeaconLogIngestService;
+import at.sparklingscience.urbantrees.service.BeaconReadoutQueueService;
+import at.sparklingscience.urbantrees.service.BeaconRegistryService;
+import at.sparklingscience.urbantrees.service.BeaconService;
+import at.sparklingscience.urbantrees.service.BeaconSettingsService;
 
 /**
  * 
@@ -54,7 +71,22 @@ public class BeaconController {
 	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconController.class);
 	
 	@Autowired
-	private UserService userService;
+	private BeaconService beaconService;
+	
+	@Autowired
+	private BeaconReadoutQueueService readoutQueueService;
+	
+	@Autowired
+	private BeaconDataExportService beaconDataExportService;
+	
+	@Autowired
+	private BeaconRegistryService beaconRegistryService;
+	
+	@Autowired
+	private BeaconSettingsService beaconSettingsService;
+	
+	@Autowired
+	private BeaconLogIngestService beaconLogIngestService;
 	
 	@Autowired
 	private BeaconMapper beaconMapper;
@@ -62,12 +94,18 @@ public class BeaconController {
 	@Value("${at.sparklingscience.urbantrees.dateFormatPattern}")
 	private String dateFormatPattern;
 	
+	/**
+	 * Maximum duration of a streamed beacon data export.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.exportTimeoutMin}")
+	private long exportTimeoutMin;
+	
 	@RequestMapping(method = RequestMethod.GET)
 	public List<Beacon> getAllBeaconsActive() {
 		
 		LOGGER.debug("[[ GET ]] getAllBeaconsActive");
 		
-		List<Beacon> beacons = this.beaconMapper.findAllBeaconsActive();
+		List<Beacon> beacons = this.beaconRegistryService.findAllActive();
 		if (beacons == null) {
 			throw new NotFoundException("No beacon found.");
 		}
@@ -85,7 +123,7 @@ public class BeaconController {
 		
 		LOGGER.debug("[[ GET ]] getAllBeaconsByStatus - status: {}", status);
 		
-		List<Beacon> beacons = this.beaconMapper.findAllBeaconsByStatus(status);		
+		List<Beacon> beacons = this.beaconRegistryService.findAllByStatus(status);		
 		if (beacons == null) {
 			throw new NotFoundException("No beacon with status " + beaconStatus + " found.");
 		}
@@ -102,7 +140,8 @@ public class BeaconController {
 		LOGGER.debug("[[ PUT ]] putBeaconStatus - beaconId: {}, status: {}", beaconId, status);
 		
 		try {
-			this.beaconMapper.updateBeaconStatus(beaconId, status);					
+			this.beaconMapper.updateBeaconStatus(beaconId, status);
+			this.beaconRegistryService.statusUpdated(beaconId, status);
 		} catch (Throwable t) {
 			throw new InternalError("Update of beacon " + beaconId + " to status " + status + " failed.");			
 		}
@@ -117,7 +156,7 @@ public class BeaconController {
 		
 		LOGGER.debug("[[ GET ]] getBeacon - beaconId: {}", beaconId);
 		
-		Beacon beacon = this.beaconMapper.findBeaconById(beaconId);
+		Beacon beacon = this.beaconRegistryService.findById(beaconId);
 		if (beacon == null) {
 			throw new NotFoundException("No beacon found for given id.");
 		}
@@ -131,7 +170,7 @@ public class BeaconController {
 		
 		LOGGER.debug("[[ GET ]] getBeaconByAddress - beaconAddress: {}", beaconAddress);
 		
-		Beacon beacon = this.beaconMapper.findBeaconByAddress(beaconAddress);
+		Beacon beacon = this.beaconRegistryService.findByAddress(beaconAddress);
 		if (beacon == null) {
 			throw new NotFoundException("No beacon found for given address.");
 		}
@@ -155,7 +194,161 @@ public class BeaconController {
 		}
 		
 		Timespan timespan = ControllerUtil.getTimespanParams(this.dateFormatPattern, timespanMin, timespanMax);
-
+		this.assertBeaconDataAccess(timespan, authentication);
+		
+		return this.beaconService.findBeaconData(beaconId, maxDatapoints, timespan);
+		
+	}
+	
+	/**
+	 * Get data of the given beacon aggregated into time buckets
+	 * (min/avg/max per measurement and bucket).
+	 * @param beaconId beacon to get data for
+	 * @param bucket bucket width (e.g. 10m, 1h, 1d) or "auto"
+	 * @param maxDatapoints (optional) amount of buckets to aim for in auto mode
+	 * @param timespanMin (optional) earliest observation date
+	 * @param timespanMax (optional) end of the timespan (exclusive)
+	 * @param authentication current user
+	 * @return aggregated data, oldest bucket first
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/{beaconId:\\d+}/data", params = "bucket")
+	public List<BeaconDatasetAggregate> getBeaconDataAggregates(
+			@PathVariable int beaconId,
+			@RequestParam String bucket,
+			@RequestParam(required = false) Integer maxDatapoints,
+			@RequestParam(required = false) String timespanMin,
+			@RequestParam(required = false) String timespanMax,
+			Authentication authentication) {
+		
+		LOGGER.debug("[[ GET ]] getBeaconDataAggregates - beaconId: {}, bucket: {}", beaconId, bucket);
+		
+		Timespan timespan = ControllerUtil.getTimespanParams(this.dateFormatPattern, timespanMin, timespanMax);
+		this.assertBeaconDataAccess(timespan, authentication);
+		
+		return this.beaconService.findBeaconDataAggregates(beaconId, bucket, maxDatapoints, timespan);
+		
+	}
+	
+	/**
+	 * Export all data of the given beacon in the given timespan.
+	 * The data is streamed, so there is no limit to the amount exported.
+	 * @param beaconId beacon to export data of
+	 * @param format (optional) csv (default) or ndjson
+	 * @param gzip (optional) whether to gzip the export
+	 * @param timespanMin (optional) earliest observation date
+	 * @param timespanMax (optional) latest observation date
+	 * @param request current request
+	 * @param response current response
+	 * @param authentication current user
+	 * @return streamed export as attachment
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/{beaconId:\\d+}/data/export")
+	public ResponseEntity<StreamingResponseBody> getBeaconDataExport(
+			@PathVariable int beaconId,
+			@RequestParam(required = false) String format,
+			@RequestParam(required = false) boolean gzip,
+			@RequestParam(required = false) String timespanMin,
+			@RequestParam(required = false) String timespanMax,
+			HttpServletRequest request,
+			HttpServletResponse response,
+			Authentication authentication) {
+		
+		LOGGER.info("[[ GET ]] getBeaconDataExport - beaconId: {}, format: {}, gzip: {}", beaconId, format, gzip);
+		
+		return this.beaconDataExport(
+				List.of(beaconId),
+				"beacon_data_" + beaconId,
+				format,
+				gzip,
+				timespanMin,
+				timespanMax,
+				request,
+				response,
+				authentication
+				);
+		
+	}
+	
+	/**
+	 * Export all data of multiple beacons in the given timespan.
+	 * @see #getBeaconDataExport(int, String, boolean, String, String, HttpServletRequest, HttpServletResponse, Authentication)
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/data/export")
+	public ResponseEntity<StreamingResponseBody> getBeaconsDataExport(
+			@RequestParam List<Integer> beaconIds,
+			@RequestParam(required = false) String format,
+			@RequestParam(required = false) boolean gzip,
+			@RequestParam(required = false) String timespanMin,
+			@RequestParam(required = false) String timespanMax,
+			HttpServletRequest request,
+			HttpServletResponse response,
+			Authentication authentication) {
+		
+		LOGGER.info("[[ GET ]] getBeaconsDataExport - beaconIds: {}, format: {}, gzip: {}", beaconIds, format, gzip);
+		
+		if (beaconIds.isEmpty()) {
+			throw new BadRequestException("At least one beacon id must be given.");
+		}
+		
+		return this.beaconDataExport(
+				beaconIds,
+				"beacon_data",
+				format,
+				gzip,
+				timespanMin,
+				timespanMax,
+				request,
+				response,
+				authentication
+				);
+		
+	}
+	
+	/**
+	 * Stream the export of the given beacons.
+	 * Exports may take much longer than other async requests, so the
+	 * async timeout of this request is raised to {@link #exportTimeoutMin}.
+	 */
+	private ResponseEntity<StreamingResponseBody> beaconDataExport(
+			List<Integer> beaconIds,
+			String fileName,
+			String format,
+			boolean gzip,
+			String timespanMin,
+			String timespanMax,
+			HttpServletRequest request,
+			HttpServletResponse response,
+			Authentication authentication) {
+		
+		final BeaconDataExportService.Format exportFormat = BeaconDataExportService.Format.parse(format);
+		final Timespan timespan = ControllerUtil.getTimespanParams(this.dateFormatPattern, timespanMin, timespanMax);
+		this.assertBeaconDataAccess(timespan, authentication);
+		
+		final AsyncWebRequest asyncWebRequest = WebAsyncUtils.createAsyncWebRequest(request, response);
+		asyncWebRequest.setTimeout(this.exportTimeoutMin * 60l * 1000l);
+		WebAsyncUtils.getAsyncManager(request).setAsyncWebRequest(asyncWebRequest);
+		
+		fileName += "." + exportFormat.getFileExtension() + (gzip ? ".gz" : "");
+		
+		return ResponseEntity.ok()
+				.header("Content-Disposition", "attachment; filename=\"" + fileName + "\"")
+				.contentType(gzip ? MediaType.parseMediaType("application/gzip") : exportFormat.getMediaType())
+				.body(out -> {
+					this.beaconDataExportService.export(beaconIds, timespan, exportFormat, gzip, out);
+					LOGGER.info("[[ GET ]] beaconDataExport |END| - beaconIds: {}", beaconIds);
+				});
+		
+	}
+	
+	/**
+	 * Data older than one month may only be viewed by admins
+	 * or users with the all-data role.
+	 * @param timespan requested timespan
+	 * @param authentication current user
+	 * @throws UnauthorizedException if the user may not view the requested data
+	 */
+	private void assertBeaconDataAccess(Timespan timespan, Authentication authentication) {
+		
 		if (timespan.getStart() == null ||
 				timespan.getStart().toInstant().isBefore(
 						ZonedDateTime.now().minus(1, ChronoUnit.MONTHS).minus(5, ChronoUnit.MINUTES).toInstant()
@@ -168,19 +361,8 @@ public class BeaconController {
 			}
 		}
 		
-		List<BeaconDataset> datasets = 
-				this.beaconMapper.findBeaconDataByBeaconId(
-						beaconId,
-						maxDatapoints,
-						timespan.getStart(),
-						timespan.getEnd()
-						);
-
-		return datasets;
-		
 	}
 	
-	@Transactional
 	@RequestMapping(method = RequestMethod.PUT, path = "/{beaconId:\\d+}/readout")
 	public void putBeaconReadoutResult(
 			@PathVariable int beaconId,
@@ -193,35 +375,104 @@ public class BeaconController {
 			throw new BadRequestException("Beacon data/settings is null, can't continue with putBeaconData for beaconId: " + beaconId);
 		}
 		
-		List<BeaconDataset> datasets = result.getDatasets();
-		int loggingIntSec = result.getSettings().getLoggingIntervalSec();
-		long readoutTimeApprox = System.currentTimeMillis() - result.getTimeSinceDataReadoutMs();
-		long logTime = result.getSettings().getRefTime().getTime();
-		while (logTime <= readoutTimeApprox - (long) loggingIntSec * 1000l) {
-			logTime += (long) loggingIntSec * 1000l;
-		}
-		for (int i = datasets.size()-1; i >= 0; i--) {
-			datasets.get(i).setObservationDate(new Date(logTime));
-			logTime -= (long) loggingIntSec * 1000l;
+		this.beaconService.insertReadoutResult(beaconId, result, auth);
+		
+		LOGGER.info("[[ PUT ]] postBeaconputBeaconReadoutResultData |END| - beaconId: {}, inserted {} datasets", beaconId, result.getDatasets().size());
+		
+	}
+	
+	/**
+	 * Store readout results of multiple beacons in one request.
+	 * Entries are validated and, if invalid, rejected individually,
+	 * see the returned results.
+	 * @param entries readout results including their beacon ids
+	 * @param auth current user
+	 * @return one result per entry, in order
+	 */
+	@RequestMapping(method = RequestMethod.PUT, path = "/readout")
+	public List<BeaconReadoutBatchResult> putBeaconReadoutResults(
+			@RequestBody List<BeaconReadoutBatchEntry> entries,
+			Authentication auth) {
+		
+		LOGGER.info("[[ PUT ]] putBeaconReadoutResults - readouts: {}", entries.size());
+		
+		final List<BeaconReadoutBatchResult> results = this.beaconService.insertReadoutResults(entries, auth);
+		
+		LOGGER.info("[[ PUT ]] putBeaconReadoutResults |END| - readouts: {}, accepted: {}",
+				entries.size(),
+				results.stream().filter(BeaconReadoutBatchResult::isAccepted).count());
+		
+		return results;
+		
+	}
+	
+	/**
+	 * Same as {@link #putBeaconReadoutResult(int, BeaconReadoutResult, Authentication)},
+	 * but the request body is parsed and validated in chunks while it is being
+	 * uploaded instead of being bound completely before processing.
+	 */
+	@RequestMapping(method = RequestMethod.PUT, path = "/{beaconId:\\d+}/readout/stream", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public void putBeaconReadoutResultStream(
+			@PathVariable int beaconId,
+			HttpServletRequest request,
+			Authentication auth) throws IOException {
+		
+		LOGGER.info("[[ PUT ]] putBeaconReadoutResultStream - beaconId: {}", beaconId);
+		
+		final int datasetAmount = this.beaconService.insertReadoutResult(beaconId, request.getInputStream(), auth);
+		
+		LOGGER.info("[[ PUT ]] putBeaconReadoutResultStream |END| - beaconId: {}, inserted {} datasets", beaconId, datasetAmount);
+		
+	}
+	
+	/**
+	 * Queue the given readout result for asynchronous insertion.
+	 * Responds with 202 and the readouts' status as soon as the
+	 * readout is journaled. Clients may send an Idempotency-Key header
+	 * (UUID) to safely retry the upload.
+	 * @see #getBeaconReadoutStatus(UUID)
+	 */
+	@RequestMapping(method = RequestMethod.PUT, path = "/{beaconId:\\d+}/readout/async")
+	public ResponseEntity<BeaconReadoutStatus> putBeaconReadoutResultAsync(
+			@PathVariable int beaconId,
+			@Validated(ValidationGroups.Update.class) @RequestBody BeaconReadoutResult result,
+			@RequestHeader(name = "Idempotency-Key", required = false) UUID idempotencyKey,
+			Authentication auth) {
+		
+		LOGGER.info("[[ PUT ]] putBeaconReadoutResultAsync - beaconId: {}", beaconId);
+		
+		if (result == null || result.getDatasets() == null || result.getSettings() == null) {
+			throw new BadRequestException("Beacon data/settings is null, can't continue with putBeaconData for beaconId: " + beaconId);
 		}
 		
-		this.beaconMapper.insertBeaconDatasets(beaconId, datasets);
-		this.beaconMapper.insertBeaconSettings(beaconId, result.getSettings(), null);
-
-		this.beaconMapper.updateBeaconStatus(beaconId, BeaconStatus.OK);
-		this.userService.increaseXp(UserLevelAction.BEACON_READOUT, new UserLevelActionContext(beaconId, beaconId), auth);
+		final BeaconReadoutStatus status = this.readoutQueueService.enqueue(beaconId, result, idempotencyKey, auth);
 		
-		LOGGER.info("[[ PUT ]] postBeaconputBeaconReadoutResultData |END| - beaconId: {}, inserted {} datasets", beaconId, datasets.size());
+		LOGGER.info("[[ PUT ]] putBeaconReadoutResultAsync |END| - beaconId: {}, readout id: {}", beaconId, status.getReadoutId());
+		
+		return ResponseEntity.accepted().body(status);
+		
+	}
+	
+	@RequestMapping(method = RequestMethod.GET, path = "/readout/{readoutId}")
+	public BeaconReadoutStatus getBeaconReadoutStatus(@PathVariable UUID readoutId) {
+		
+		LOGGER.debug("[[ GET ]] getBeaconReadoutStatus - readoutId: {}", readoutId);
+		
+		final BeaconReadoutStatus status = this.readoutQueueService.findStatus(readoutId);
+		if (status == null) {
+			throw new NotFoundException("No readout found for given id.");
+		}
+		
+		return status;
 		
 	}
 	
-	@Transactional
 	@RequestMapping(method = RequestMethod.GET, path = "/{beaconId:\\d+}/settings")
 	public BeaconSettings getLatestBeaconSettings(@PathVariable int beaconId) {
 		
 		LOGGER.info("[[ GET ]] getLatestBeaconSettings - beaconId: {}", beaconId);
 		
-		final BeaconSettings latestSettings = this.beaconMapper.findLatestBeaconSettingsByBeaconId(beaconId);
+		final BeaconSettings latestSettings = this.beaconSettingsService.findLatest(beaconId);
 		if (latestSettings == null) {
 			throw new NotFoundException("Could not find beacon settings for beacon " + beaconId);
 		}
@@ -246,7 +497,9 @@ public class BeaconController {
 		}
 		
 		this.beaconMapper.insertBeaconSettings(beaconId, settings, null);
+		this.beaconSettingsService.settingsChanged(beaconId);
 		this.beaconMapper.updateBeaconStatus(beaconId, BeaconStatus.OK);
+		this.beaconRegistryService.statusUpdated(beaconId, BeaconStatus.OK);
 		
 		LOGGER.info("[[ PUT ]] putBeaconSettings |END| - beaconId: {}, inserted settings", beaconId);
 		
@@ -257,11 +510,11 @@ public class BeaconController {
 	public void putBeaconLogs(@Validated(ValidationGroups.Update.class)
 							  @RequestBody List<BeaconLog> logs) {
 		
-		LOGGER.info("[[ PUT ]] putBeaconLogs - inserting {} logs", logs.size());
+		LOGGER.info("[[ PUT ]] putBeaconLogs - received {} logs", logs.size());
 		
-		this.beaconMapper.insertBeaconLogs(logs);
+		final int inserted = this.beaconLogIngestService.insert(logs);
 		
-		LOGGER.info("[[ PUT ]] putBeaconLogs |END| - successfully inserted {} logs", logs.size());
+		LOGGER.info("[[ PUT ]] putBeaconLogs |END| - successfully inserted {} of {} logs", inserted, logs.size());
 		
 	}
 
@@ -7,23 +7,37 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.ResponseEntity.BodyBuilder;
 import org.springframework.security.core.Authentication;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import at.sparklingscience.urbantrees.controller.util.ControllerUtil;
 import at.sparklingscience.urbantrees.controller.util.Timespan;
 import at.sparklingscience.urbantrees.domain.City;
+import at.sparklingscience.urbantrees.domain.MapTile;
+import at.sparklingscience.urbantrees.domain.ObservationBatch;
+import at.sparklingscience.urbantrees.domain.ObservationBatchEntryResult;
+import at.sparklingscience.urbantrees.domain.ObservationBatchResult;
 import at.sparklingscience.urbantrees.domain.PhenologyDataset;
+import at.sparklingscience.urbantrees.domain.PhenologyObservationStatistics;
 import at.sparklingscience.urbantrees.domain.PhenologyObservationType;
 import at.sparklingscience.urbantrees.domain.PhysiognomyDataset;
 import at.sparklingscience.urbantrees.domain.Tree;
+import at.sparklingscience.urbantrees.domain.TreeCatalogueChanges;
 import at.sparklingscience.urbantrees.domain.TreeSpecies;
 import at.sparklingscience.urbantrees.domain.UserLevelAction;
 import at.sparklingscience.urbantrees.domain.UserLevelActionContext;
@@ -40,6 +54,12 @@ import at.sparklingscience.urbantrees.mapper.TreeMapper;
 import at.sparklingscience.urbantrees.security.authentication.AuthenticationToken;
 import at.sparklingscience.urbantrees.service.ApplicationService;
 import at.sparklingscience.urbantrees.service.AuthenticationService;
+import at.sparklingscience.urbantrees.service.MapTileService;
+import at.sparklingscience.urbantrees.service.ObservationService;
+import at.sparklingscience.urbantrees.service.PhenologyStatisticsService;
+import at.sparklingscience.urbantrees.service.ReferenceDataService;
+import at.sparklingscience.urbantrees.service.TreeCatalogueService;
+import at.sparklingscience.urbantrees.service.TreeCatalogueService.Catalogue;
 import at.sparklingscience.urbantrees.service.UserService;
 
 @RestController
@@ -48,6 +68,16 @@ public class TreeController {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(TreeController.class);
 	
+	/**
+	 * Amount of trees returned by {@link #getNearestTrees} if not given.
+	 */
+	private static final int NEAREST_TREES_DEFAULT = 10;
+	
+	/**
+	 * Max. amount of trees returned by {@link #getNearestTrees}.
+	 */
+	private static final int NEAREST_TREES_MAX = 100;
+	
 	@Autowired
 	private AuthenticationService authService;
 	
@@ -60,6 +90,21 @@ public class TreeController {
 	@Autowired
 	private TreeMapper treeMapper;
 	
+	@Autowired
+	private TreeCatalogueService treeCatalogueService;
+	
+	@Autowired
+	private MapTileService mapTileService;
+	
+	@Autowired
+	private ReferenceDataService referenceDataService;
+	
+	@Autowired
+	private PhenologyStatisticsService phenologyStatisticsService;
+	
+	@Autowired
+	private ObservationService observationService;
+	
 	@Autowired
 	private PhysiognomyMapper physiognomyMapper;
 	
@@ -69,11 +114,125 @@ public class TreeController {
 	@Value("${at.sparklingscience.urbantrees.dateFormatPattern}")
 	private String dateFormatPattern;
 	
+	/**
+	 * Serves the cached tree catalogue, gzip-compressed if the client accepts it.
+	 * Clients should send the ETag of their copy in If-None-Match to get a 304
+	 * if nothing changed. The ETag is weak, since it is the same for both encodings.
+	 */
 	@RequestMapping(method = RequestMethod.GET, path = "")
-	public List<Tree> getAllTrees() {
+	public ResponseEntity<byte[]> getAllTrees(
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+			WebRequest request) {
 		
 		LOGGER.debug("[[ GET ]] getAllTrees");
-		return this.treeMapper.getAllTrees();
+		
+		final Catalogue catalogue = this.treeCatalogueService.find();
+		final boolean notModified = request.checkNotModified(catalogue.getETag());
+		
+		final BodyBuilder response = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+				.eTag(catalogue.getETag())
+				.cacheControl(CacheControl.noCache())
+				.varyBy(HttpHeaders.ACCEPT_ENCODING);
+		if (notModified) {
+			return response.build();
+		}
+		
+		response.contentType(MediaType.APPLICATION_JSON);
+		if (ControllerUtil.acceptsEncoding(acceptEncoding, "gzip")) {
+			return response
+					.header(HttpHeaders.CONTENT_ENCODING, "gzip")
+					.body(catalogue.getGzipJson());
+		}
+		return response.body(catalogue.getJson());
+		
+	}
+	
+	/**
+	 * Get all trees changed since the given catalogue version
+	 * (the ETag of {@link #getAllTrees} without W/ and quotes, or the version
+	 * returned by the last call).
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/changes")
+	public TreeCatalogueChanges getTreeChanges(@RequestParam long since) {
+		
+		LOGGER.debug("[[ GET ]] getTreeChanges - since: {}", since);
+		return this.treeCatalogueService.findChanges(since);
+		
+	}
+	
+	/**
+	 * Get all trees inside the given bounding box, so map views only
+	 * need to load the trees currently visible.
+	 * @param bbox bounding box as "minX,minY,maxX,maxY"
+	 * @param projection projection of the bounding box; if not given, all trees are searched
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "", params = "bbox")
+	public List<Tree> getTreesInBounds(
+			@RequestParam String bbox,
+			@RequestParam(required = false) String projection) {
+		
+		LOGGER.debug("[[ GET ]] getTreesInBounds - bbox: {}, projection: {}", bbox, projection);
+		
+		final String[] bounds = bbox.split(",");
+		if (bounds.length != 4) {
+			throw new BadRequestException("Bounding box must be given as minX,minY,maxX,maxY.");
+		}
+		final double[] values = new double[4];
+		try {
+			for (int i = 0; i < 4; i++) {
+				values[i] = Double.parseDouble(bounds[i].trim());
+			}
+		} catch (NumberFormatException e) {
+			throw new BadRequestException("Bounding box must be given as minX,minY,maxX,maxY.");
+		}
+		if (values[0] > values[2] || values[1] > values[3]) {
+			throw new BadRequestException("Bounding box minimum must not be greater than its maximum.");
+		}
+		
+		return this.treeCatalogueService.findInBounds(values[0], values[1], values[2], values[3], projection);
+		
+	}
+	
+	/**
+	 * Get the trees closest to the given coordinates, closest first.
+	 * @param k amount of trees to return (max. {@value #NEAREST_TREES_MAX})
+	 * @param projection projection of the coordinates; if not given, all trees are searched
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/nearest")
+	public List<Tree> getNearestTrees(
+			@RequestParam double x,
+			@RequestParam double y,
+			@RequestParam(required = false) Integer k,
+			@RequestParam(required = false) String projection) {
+		
+		LOGGER.debug("[[ GET ]] getNearestTrees - x: {}, y: {}, k: {}, projection: {}", x, y, k, projection);
+		
+		final int amount = k == null ? NEAREST_TREES_DEFAULT : k;
+		if (amount < 1 || amount > NEAREST_TREES_MAX) {
+			throw new BadRequestException("Amount of trees must be between 1 and " + NEAREST_TREES_MAX + ".");
+		}
+		
+		return this.treeCatalogueService.findNearest(x, y, amount, projection);
+		
+	}
+	
+	/**
+	 * Get trees and beacons of the given web map tile, clustered
+	 * so the map only needs to render one marker per cluster.
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/map/{z:\\d+}/{x:\\d+}/{y:\\d+}")
+	public MapTile getMapTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+		
+		LOGGER.debug("[[ GET ]] getMapTile - z: {}, x: {}, y: {}", z, x, y);
+		
+		if (z > MapTileService.MAX_ZOOM) {
+			throw new BadRequestException("Zoom level must not be greater than " + MapTileService.MAX_ZOOM + ".");
+		}
+		if (x >= 1 << z || y >= 1 << z) {
+			throw new BadRequestException("Tile does not exist at given zoom level.");
+		}
+		
+		return this.mapTileService.findTile(z, x, y);
 		
 	}
 	
@@ -171,7 +330,7 @@ public class TreeController {
 		
 		LOGGER.debug("[[ GET ]] getPhenologyObservationSpecForSpeciesId - speciesId: {}", speciesId);
 		
-		final List<PhenologyObservationType> spec = this.phenologyMapper.getObservationTypesForTreeSpeciesId(speciesId);
+		final List<PhenologyObservationType> spec = this.referenceDataService.findObservationTypes(speciesId);
 		
 		if (spec == null) {
 			throw new InternalException("Could not find the phenology observation specification for species id " + speciesId + ".");
@@ -181,6 +340,31 @@ public class TreeController {
 		
 	}
 	
+	/**
+	 * Get the weekly amount of phenology observations per object and result
+	 * of all trees of the given species (see {@link PhenologyStatisticsService}).
+	 * @param speciesId id of the species
+	 * @param typeId (optional) only return counts of this observation type
+	 * @param yearMin (optional) first ISO year to return (inclusive)
+	 * @param yearMax (optional) last ISO year to return (inclusive)
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/{speciesId:\\d+}/phenology/statistics")
+	public List<PhenologyObservationStatistics> getPhenologyStatisticsForSpeciesId(
+			@PathVariable int speciesId,
+			@RequestParam(required = false) Long typeId,
+			@RequestParam(required = false) Integer yearMin,
+			@RequestParam(required = false) Integer yearMax) {
+		
+		LOGGER.debug("[[ GET ]] getPhenologyStatisticsForSpeciesId - speciesId: {}, typeId: {}, yearMin: {}, yearMax: {}", speciesId, typeId, yearMin, yearMax);
+		
+		if (this.referenceDataService.findSpeciesById(speciesId) == null) {
+			throw new NotFoundException("No species with id " + speciesId + " found.");
+		}
+		
+		return this.phenologyStatisticsService.find(speciesId, typeId, yearMin, yearMax);
+		
+	}
+	
 	@Transactional
 	@RequestMapping(method = RequestMethod.POST, path = "/{treeId:\\d+}/phenology")
 	public PhenologyDataset postTreePhenologyDataset(
@@ -212,6 +396,7 @@ public class TreeController {
 		try {
 			this.phenologyMapper.insertPhenology(dataset);
 			this.phenologyMapper.insertPhenologyObservation(dataset);
+			this.phenologyStatisticsService.increment(List.of(dataset.getId()));
 		} catch (DuplicateKeyException ex) {
 			LOGGER.debug("User tried to enter duplicate key: {}", ex.getMessage(), ex);
 			throw new BadRequestException("There is already an observation with given observationDate.", ClientError.PHENOLOGY_DUPLICATE);
@@ -231,12 +416,37 @@ public class TreeController {
 		
 	}
 	
+	/**
+	 * Store phenology and physiognomy datasets of multiple trees in one request,
+	 * e.g. after an offline field session.
+	 * Invalid or duplicate datasets are rejected individually, see the returned results.
+	 * @param batch datasets to store
+	 * @param auth current user
+	 * @return one result per dataset, in order
+	 */
+	@RequestMapping(method = RequestMethod.POST, path = "/observations")
+	public ObservationBatchResult postObservations(
+			@Validated(ValidationGroups.Update.class) @RequestBody ObservationBatch batch,
+			Authentication auth) {
+		
+		LOGGER.info("[[ POST ]] postObservations - phenology: {}, physiognomy: {}", batch.getPhenology().size(), batch.getPhysiognomy().size());
+		
+		final ObservationBatchResult result = this.observationService.insertObservations(batch, auth);
+		
+		LOGGER.info("[[ POST ]] postObservations |END| - phenology accepted: {}, physiognomy accepted: {}",
+				result.getPhenology().stream().filter(ObservationBatchEntryResult::isAccepted).count(),
+				result.getPhysiognomy().stream().filter(ObservationBatchEntryResult::isAccepted).count());
+		
+		return result;
+		
+	}
+	
 	@RequestMapping(method = RequestMethod.GET, path = "/cities")
 	public List<City> getCities() {
 		
 		LOGGER.info("[[ GET ]] getCities");
 		
-		final List<City> cities = this.treeMapper.getCities();
+		final List<City> cities = this.referenceDataService.findCities();
 		
 		if (cities == null) {
 			throw new InternalException("Could not find cities.");
@@ -253,7 +463,7 @@ public class TreeController {
 		
 		LOGGER.info("[[ GET ]] getSpecies");
 		
-		final List<TreeSpecies> species = this.treeMapper.getSpecies();
+		final List<TreeSpecies> species = this.referenceDataService.findSpecies();
 		
 		if (species == null) {
 			throw new InternalException("Could not find tree species.");
@@ -1,23 +1,35 @@
 package at.sparklingscience.urbantrees.controller;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import at.sparklingscience.urbantrees.domain.ResponseFile;
 import at.sparklingscience.urbantrees.domain.ui.Announcement;
 import at.sparklingscience.urbantrees.domain.ui.Image;
 import at.sparklingscience.urbantrees.domain.ui.MeasurementStatistics;
 import at.sparklingscience.urbantrees.domain.ui.SystemStatistics;
+import at.sparklingscience.urbantrees.exception.BadRequestException;
 import at.sparklingscience.urbantrees.mapper.UiMapper;
+import at.sparklingscience.urbantrees.service.BlobStoreService;
+import at.sparklingscience.urbantrees.service.ImageDerivativeService;
 
 /**
  * Controller for ui specific REST-calls.
@@ -34,6 +46,12 @@ public class UiController {
 	@Autowired
     private UiMapper uiMapper;
 	
+	@Autowired
+    private BlobStoreService blobStoreService;
+	
+	@Autowired
+    private ImageDerivativeService imageDerivativeService;
+	
 	@Value("${at.sparklingscience.urbantrees.dateFormatPattern}")
 	private String dateFormatPattern;
 	
@@ -54,6 +72,50 @@ public class UiController {
 		
 	}
 	
+	/**
+	 * Serve an image of the blob store by its hash (see {@link Image#getImageHash()}).
+	 * Since blobs never change, they may be cached forever.
+	 * If a width is given, a downscaled JPEG of about that width is served
+	 * (see {@link ImageDerivativeService}); while it is not generated yet,
+	 * the original is served with a short cache duration instead.
+	 * Range requests are supported.
+	 */
+	@RequestMapping(method = RequestMethod.GET, path = "/img/{imageHash:[0-9a-f]+}")
+	public ResponseEntity<Resource> getImage(
+			@PathVariable String imageHash,
+			@RequestParam(name = "w", required = false) Integer width) {
+		
+		LOGGER.trace("[[ GET ]] getImage - imageHash: {}, width: {}", imageHash, width);
+		
+		final Path path = this.blobStoreService.find(imageHash);
+		final ResponseFile original = new ResponseFile(path, this.blobStoreService.contentType(path).toString());
+		if (width == null) {
+			return this.imageResponse(original, imageHash, CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+		}
+		if (width <= 0) {
+			throw new BadRequestException("Width must be positive.");
+		}
+		
+		final ResponseFile file = this.imageDerivativeService.find("blob/" + imageHash, original, width);
+		if (file == original) {
+			return this.imageResponse(original, imageHash, CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic());
+		}
+		return this.imageResponse(
+				file,
+				imageHash + "-" + file.getPath().getFileName(),
+				CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+		);
+		
+	}
+	
+	private ResponseEntity<Resource> imageResponse(ResponseFile file, String eTag, CacheControl cacheControl) {
+		return ResponseEntity.ok()
+				.cacheControl(cacheControl)
+				.eTag(eTag)
+				.contentType(MediaType.valueOf(file.getType()))
+				.body(new FileSystemResource(file.getPath()));
+	}
+	
 	/*
 	 * TODO API def
 	 */
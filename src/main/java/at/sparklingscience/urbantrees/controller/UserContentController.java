@@ -28,6 +28,8 @@ import at.sparklingscience.urbantrees.cms.CmsContent;
 import at.sparklingscience.urbantrees.controller.util.ControllerUtil;
 import at.sparklingscience.urbantrees.domain.ResponseFile;
 import at.sparklingscience.urbantrees.domain.UserContent;
+import at.sparklingscience.urbantrees.exception.BadRequestException;
+import at.sparklingscience.urbantrees.service.ImageDerivativeService;
 import at.sparklingscience.urbantrees.service.UserContentFileService;
 import at.sparklingscience.urbantrees.service.UserContentService;
 
@@ -48,6 +50,9 @@ public class UserContentController {
 
 	@Autowired
     private UserContentFileService fileService;
+
+	@Autowired
+    private ImageDerivativeService imageDerivativeService;
 	
 	@RequestMapping(method = RequestMethod.GET)
 	public List<UserContent> getUserContent(
@@ -150,10 +155,11 @@ public class UserContentController {
 	public ResponseEntity<Resource> getUserContentFile(
 			@RequestParam("path") String contentPath,
 			@RequestParam(name = "filename", required = false) @MatchesPattern("[^/]+") String filename,
+			@RequestParam(name = "w", required = false) Integer width,
 			@PathVariable long fileUid,
 			Authentication auth) {
 		
-		LOGGER.debug("[[ GET ]] getUserContentFile - contentPath: {}, fileUid: {}", contentPath, fileUid);
+		LOGGER.debug("[[ GET ]] getUserContentFile - contentPath: {}, fileUid: {}, width: {}", contentPath, fileUid, width);
 		
 		try {
 			ResponseFile file = this.fileService.getFile(
@@ -161,6 +167,12 @@ public class UserContentController {
 					contentPath,
 					fileUid
 			);
+			if (width != null) {
+				if (width <= 0) {
+					throw new BadRequestException("Width must be positive.");
+				}
+				file = this.imageDerivativeService.find("content/" + fileUid, file, width);
+			}
 			return ResponseEntity.ok()
 					.header("Content-Disposition", "attachment" + (filename == null ? "" : "; filename=\"" + filename + "\""))
 					.cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
@@ -1,6 +1,7 @@
 package at.sparklingscience.urbantrees.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -38,6 +39,8 @@ import at.sparklingscience.urbantrees.mapper.UserMapper;
 import at.sparklingscience.urbantrees.security.authentication.AuthenticationToken;
 import at.sparklingscience.urbantrees.service.ApplicationService;
 import at.sparklingscience.urbantrees.service.AuthenticationService;
+import at.sparklingscience.urbantrees.service.BlobStoreService;
+import at.sparklingscience.urbantrees.service.TreeCatalogueService;
 import at.sparklingscience.urbantrees.service.UserContentService;
 import at.sparklingscience.urbantrees.service.UserService;
 
@@ -71,6 +74,12 @@ public class UserController {
 	@Autowired
     private UserContentService contentService;
 	
+	@Autowired
+    private TreeCatalogueService treeCatalogueService;
+	
+	@Autowired
+    private BlobStoreService blobStoreService;
+	
 	@RequestMapping(method = RequestMethod.POST, path = "/phenology/observation/{phenologyId:\\d+}/image")
 	@Transactional
 	public void postPhenologyImage(
@@ -95,8 +104,9 @@ public class UserController {
 			throw new BadRequestException("Upload file must be of type JPG or PNG.", ClientError.PHENOLOGY_IMAGE_UPLOAD_INVALID_TYPE);
 		}
 		
-		try {
-			this.userMapper.insertPhenologyImage(phenologyId, image.getBytes(), fileType);
+		try (InputStream is = image.getInputStream()) {
+			final String imageHash = this.blobStoreService.store(is);
+			this.userMapper.insertPhenologyImage(phenologyId, imageHash, fileType);
 		} catch (IOException e) {
 			LOGGER.error("Could not upload phenology user image: " + e.getMessage(), e);
 			throw new BadRequestException("Failed to retrieve image from client");
@@ -125,6 +135,9 @@ public class UserController {
 		LOGGER.debug("[[ GET ]] getPhenologyHistory - user: {}", userId);
 		
 		List<PhenologyDatasetWithTree> datasets = this.phenologyMapper.findPhenologyByUserId(userId, 10);
+		for (PhenologyDatasetWithTree dataset : datasets) {
+			dataset.setTree(this.treeCatalogueService.findTree(dataset.getTreeId()));
+		}
 		
 		LOGGER.debug("[[ GET ]] getPhenologyHistory |END| Successfully fetched phenology history - user: {}", userId);
 		return datasets;
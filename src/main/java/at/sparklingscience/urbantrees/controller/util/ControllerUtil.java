@@ -112,6 +112,49 @@ public class ControllerUtil {
 		
 	}
 	
+	/**
+	 * Check whether the given Accept-Encoding header allows the given content coding.
+	 * Codings with q=0 are not acceptable; if the coding is not listed,
+	 * the wildcard (*) decides.
+	 * @param acceptEncoding value of the Accept-Encoding header (may be null)
+	 * @param coding content coding to check, e.g. gzip
+	 * @return true if the coding may be used
+	 */
+	public static boolean acceptsEncoding(String acceptEncoding, String coding) {
+		
+		if (acceptEncoding == null) {
+			return false;
+		}
+		
+		Double codingQ = null, wildcardQ = null;
+		for (String element : acceptEncoding.split(",")) {
+			final String[] params = element.split(";");
+			final String name = params[0].trim();
+			double q = 1;
+			for (int i = 1; i < params.length; i++) {
+				final String param = params[i].trim();
+				if (param.length() > 2 && (param.startsWith("q=") || param.startsWith("Q="))) {
+					try {
+						q = Double.parseDouble(param.substring(2).trim());
+					} catch (NumberFormatException e) {
+						q = 0;
+					}
+				}
+			}
+			if (name.equalsIgnoreCase(coding)) {
+				codingQ = q;
+			} else if (name.equals("*")) {
+				wildcardQ = q;
+			}
+		}
+		
+		if (codingQ != null) {
+			return codingQ > 0;
+		}
+		return wildcardQ != null && wildcardQ > 0;
+		
+	}
+	
 	/**
 	 * Convert all given keys in the given filters from their raw string representation to {@link Date}.
 	 * @param dateFormatPattern date format pattern to parse
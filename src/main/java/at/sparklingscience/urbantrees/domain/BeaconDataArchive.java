@@ -0,0 +1,92 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.Date;
+
+/**
+ * One month of archived {@link BeaconDataset}s of a single {@link Beacon},
+ * encoded using {@link at.sparklingscience.urbantrees.util.BeaconDataCodec}.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconDataArchive {
+	
+	/**
+	 * ID of associated {@link Beacon}.
+	 */
+	private int beaconId;
+	
+	/**
+	 * First instant of the archived month.
+	 */
+	private Date monthDate;
+	
+	/**
+	 * Amount of datasets contained in {@link #data}.
+	 */
+	private int datasetAmount;
+	
+	/**
+	 * Observation date of the oldest archived dataset.
+	 */
+	private Date firstObservationDate;
+	
+	/**
+	 * Observation date of the newest archived dataset.
+	 */
+	private Date lastObservationDate;
+	
+	/**
+	 * Encoded datasets.
+	 */
+	private byte[] data;
+
+	public int getBeaconId() {
+		return beaconId;
+	}
+
+	public void setBeaconId(int beaconId) {
+		this.beaconId = beaconId;
+	}
+
+	public Date getMonthDate() {
+		return monthDate;
+	}
+
+	public void setMonthDate(Date monthDate) {
+		this.monthDate = monthDate;
+	}
+
+	public int getDatasetAmount() {
+		return datasetAmount;
+	}
+
+	public void setDatasetAmount(int datasetAmount) {
+		this.datasetAmount = datasetAmount;
+	}
+
+	public Date getFirstObservationDate() {
+		return firstObservationDate;
+	}
+
+	public void setFirstObservationDate(Date firstObservationDate) {
+		this.firstObservationDate = firstObservationDate;
+	}
+
+	public Date getLastObservationDate() {
+		return lastObservationDate;
+	}
+
+	public void setLastObservationDate(Date lastObservationDate) {
+		this.lastObservationDate = lastObservationDate;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+
+	public void setData(byte[] data) {
+		this.data = data;
+	}
+	
+}
@@ -0,0 +1,36 @@
+package at.sparklingscience.urbantrees.domain;
+
+/**
+ * Pre-aggregated rollups of {@link BeaconDataset}s.
+ * Each rollup holds count, min, max and sum of every measurement per
+ * beacon and bucket. Buckets are aligned to the unix epoch.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public enum BeaconDataRollup {
+	
+	/**
+	 * Table tree_data.beacon_data_rollup_hour.
+	 */
+	HOUR(3600),
+	
+	/**
+	 * Table tree_data.beacon_data_rollup_day.
+	 */
+	DAY(86400);
+	
+	/**
+	 * Width of one bucket of this rollup in seconds.
+	 */
+	private final long bucketSec;
+	
+	private BeaconDataRollup(long bucketSec) {
+		this.bucketSec = bucketSec;
+	}
+	
+	public long getBucketSec() {
+		return bucketSec;
+	}
+	
+}
@@ -69,6 +69,14 @@ public class BeaconDataset {
 		this.id = id;
 	}
 
+	public int getBeaconId() {
+		return beaconId;
+	}
+
+	public void setBeaconId(int beaconId) {
+		this.beaconId = beaconId;
+	}
+
 	public double getHumidity() {
 		return humidity;
 	}
@@ -0,0 +1,143 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.Date;
+
+/**
+ * Aggregated {@link BeaconDataset}s of a {@link Beacon}
+ * within a single time bucket.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconDatasetAggregate {
+	
+	/**
+	 * Start of the bucket (inclusive).
+	 */
+	private Date bucketStartDate;
+	
+	/**
+	 * Width of the bucket in seconds.
+	 */
+	private long bucketSec;
+	
+	/**
+	 * Amount of datasets aggregated in this bucket.
+	 */
+	private long datasetAmount;
+	
+	private double temperatureMin;
+	
+	private double temperatureAvg;
+	
+	private double temperatureMax;
+	
+	private double humidityMin;
+	
+	private double humidityAvg;
+	
+	private double humidityMax;
+	
+	private double dewPointMin;
+	
+	private double dewPointAvg;
+	
+	private double dewPointMax;
+
+	public Date getBucketStartDate() {
+		return bucketStartDate;
+	}
+
+	public void setBucketStartDate(Date bucketStartDate) {
+		this.bucketStartDate = bucketStartDate;
+	}
+
+	public long getBucketSec() {
+		return bucketSec;
+	}
+
+	public void setBucketSec(long bucketSec) {
+		this.bucketSec = bucketSec;
+	}
+
+	public long getDatasetAmount() {
+		return datasetAmount;
+	}
+
+	public void setDatasetAmount(long datasetAmount) {
+		this.datasetAmount = datasetAmount;
+	}
+
+	public double getTemperatureMin() {
+		return temperatureMin;
+	}
+
+	public void setTemperatureMin(double temperatureMin) {
+		this.temperatureMin = temperatureMin;
+	}
+
+	public double getTemperatureAvg() {
+		return temperatureAvg;
+	}
+
+	public void setTemperatureAvg(double temperatureAvg) {
+		this.temperatureAvg = temperatureAvg;
+	}
+
+	public double getTemperatureMax() {
+		return temperatureMax;
+	}
+
+	public void setTemperatureMax(double temperatureMax) {
+		this.temperatureMax = temperatureMax;
+	}
+
+	public double getHumidityMin() {
+		return humidityMin;
+	}
+
+	public void setHumidityMin(double humidityMin) {
+		this.humidityMin = humidityMin;
+	}
+
+	public double getHumidityAvg() {
+		return humidityAvg;
+	}
+
+	public void setHumidityAvg(double humidityAvg) {
+		this.humidityAvg = humidityAvg;
+	}
+
+	public double getHumidityMax() {
+		return humidityMax;
+	}
+
+	public void setHumidityMax(double humidityMax) {
+		this.humidityMax = humidityMax;
+	}
+
+	public double getDewPointMin() {
+		return dewPointMin;
+	}
+
+	public void setDewPointMin(double dewPointMin) {
+		this.dewPointMin = dewPointMin;
+	}
+
+	public double getDewPointAvg() {
+		return dewPointAvg;
+	}
+
+	public void setDewPointAvg(double dewPointAvg) {
+		this.dewPointAvg = dewPointAvg;
+	}
+
+	public double getDewPointMax() {
+		return dewPointMax;
+	}
+
+	public void setDewPointMax(double dewPointMax) {
+		this.dewPointMax = dewPointMax;
+	}
+	
+}
@@ -0,0 +1,118 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.Date;
+
+/**
+ * Event pushed to clients subscribed to live beacon updates.
+ * Depending on the {@link #type}, only some of the fields are set.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconEvent {
+	
+	/**
+	 * What happened.
+	 */
+	private BeaconEventType type;
+	
+	/**
+	 * ID of the {@link Beacon} the event belongs to.
+	 */
+	private long beaconId;
+	
+	/**
+	 * Date the event was published.
+	 */
+	private Date eventDate;
+	
+	/**
+	 * New status of the beacon (only for {@link BeaconEventType#STATUS}).
+	 */
+	private BeaconStatus status;
+	
+	/**
+	 * Amount of stored datasets (only for {@link BeaconEventType#READOUT}).
+	 */
+	private Integer datasetAmount;
+	
+	/**
+	 * Stored log entry (only for {@link BeaconEventType#LOG}).
+	 */
+	private BeaconLog log;
+	
+	public BeaconEvent() {}
+	
+	private BeaconEvent(BeaconEventType type, long beaconId) {
+		this.type = type;
+		this.beaconId = beaconId;
+		this.eventDate = new Date();
+	}
+	
+	public static BeaconEvent status(long beaconId, BeaconStatus status) {
+		BeaconEvent event = new BeaconEvent(BeaconEventType.STATUS, beaconId);
+		event.status = status;
+		return event;
+	}
+	
+	public static BeaconEvent readout(long beaconId, int datasetAmount) {
+		BeaconEvent event = new BeaconEvent(BeaconEventType.READOUT, beaconId);
+		event.datasetAmount = datasetAmount;
+		return event;
+	}
+	
+	public static BeaconEvent log(BeaconLog log) {
+		BeaconEvent event = new BeaconEvent(BeaconEventType.LOG, log.getBeaconId());
+		event.log = log;
+		return event;
+	}
+
+	public BeaconEventType getType() {
+		return type;
+	}
+
+	public void setType(BeaconEventType type) {
+		this.type = type;
+	}
+
+	public long getBeaconId() {
+		return beaconId;
+	}
+
+	public void setBeaconId(long beaconId) {
+		this.beaconId = beaconId;
+	}
+
+	public Date getEventDate() {
+		return eventDate;
+	}
+
+	public void setEventDate(Date eventDate) {
+		this.eventDate = eventDate;
+	}
+
+	public BeaconStatus getStatus() {
+		return status;
+	}
+
+	public void setStatus(BeaconStatus status) {
+		this.status = status;
+	}
+
+	public Integer getDatasetAmount() {
+		return datasetAmount;
+	}
+
+	public void setDatasetAmount(Integer datasetAmount) {
+		this.datasetAmount = datasetAmount;
+	}
+
+	public BeaconLog getLog() {
+		return log;
+	}
+
+	public void setLog(BeaconLog log) {
+		this.log = log;
+	}
+	
+}
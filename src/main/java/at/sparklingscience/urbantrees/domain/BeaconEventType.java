@@ -0,0 +1,26 @@
+package at.sparklingscience.urbantrees.domain;
+
+/**
+ * Type of a {@link BeaconEvent}.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public enum BeaconEventType {
+	
+	/**
+	 * The status of a beacon changed.
+	 */
+	STATUS,
+	
+	/**
+	 * A readout of a beacon has been stored.
+	 */
+	READOUT,
+	
+	/**
+	 * A log entry of severity WARN or ERROR has been stored.
+	 */
+	LOG
+
+}
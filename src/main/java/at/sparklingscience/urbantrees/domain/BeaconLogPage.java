@@ -0,0 +1,76 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * A single page of {@link BeaconLog}s, ordered by id descending.
+ * The {@link #nextCursor} is opaque to the client and must be sent
+ * back unchanged to fetch the following page.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconLogPage {
+	
+	/**
+	 * Logs on this page.
+	 */
+	private List<BeaconLog> logs;
+	
+	/**
+	 * Cursor pointing behind the last log of this page;
+	 * null if there are no more logs.
+	 */
+	private String nextCursor;
+	
+	public BeaconLogPage() {}
+	
+	public BeaconLogPage(List<BeaconLog> logs, String nextCursor) {
+		this.logs = logs;
+		this.nextCursor = nextCursor;
+	}
+	
+	/**
+	 * Encode the given log id to an opaque cursor string.
+	 * @param logId id of the last log on the current page
+	 * @return url-safe cursor
+	 */
+	public static String encodeCursor(long logId) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(
+				ByteBuffer.allocate(Long.BYTES).putLong(logId).array()
+		);
+	}
+	
+	/**
+	 * Decode a cursor previously created by {@link #encodeCursor(long)}.
+	 * @param cursor cursor string given by the client
+	 * @return id of the last log on the previous page
+	 * @throws IllegalArgumentException if the cursor is malformed
+	 */
+	public static long decodeCursor(String cursor) throws IllegalArgumentException {
+		byte[] raw = Base64.getUrlDecoder().decode(cursor);
+		if (raw.length != Long.BYTES) {
+			throw new IllegalArgumentException("Cursor has invalid length: " + raw.length);
+		}
+		return ByteBuffer.wrap(raw).getLong();
+	}
+
+	public List<BeaconLog> getLogs() {
+		return logs;
+	}
+
+	public void setLogs(List<BeaconLog> logs) {
+		this.logs = logs;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+	
+}
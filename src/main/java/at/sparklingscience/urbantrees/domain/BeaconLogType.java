@@ -9,6 +9,11 @@ package at.sparklingscience.urbantrees.domain;
 public enum BeaconLogType {
 	
 	SYSTEM,
-	ANDR_APP
+	ANDR_APP,
+	
+	/**
+	 * Sensor fault detected by the server in incoming datasets.
+	 */
+	ANOMALY
 
 }
@@ -0,0 +1,27 @@
+package at.sparklingscience.urbantrees.domain;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Readout result of a single beacon inside a batch of readouts.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconReadoutBatchEntry extends BeaconReadoutResult {
+	
+	/**
+	 * ID of the {@link Beacon} the readout belongs to.
+	 */
+	@Min(1)
+	private int beaconId;
+
+	public int getBeaconId() {
+		return beaconId;
+	}
+
+	public void setBeaconId(int beaconId) {
+		this.beaconId = beaconId;
+	}
+	
+}
@@ -0,0 +1,80 @@
+package at.sparklingscience.urbantrees.domain;
+
+/**
+ * Outcome of a single {@link BeaconReadoutBatchEntry}.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconReadoutBatchResult {
+	
+	/**
+	 * ID of the {@link Beacon} the readout belongs to.
+	 */
+	private int beaconId;
+	
+	/**
+	 * True if the readout has been stored.
+	 */
+	private boolean accepted;
+	
+	/**
+	 * Amount of datasets received for the beacon.
+	 */
+	private int datasetAmount;
+	
+	/**
+	 * Reason for rejection; null if accepted.
+	 */
+	private String message;
+	
+	public BeaconReadoutBatchResult() {}
+	
+	public BeaconReadoutBatchResult(int beaconId, boolean accepted, int datasetAmount, String message) {
+		this.beaconId = beaconId;
+		this.accepted = accepted;
+		this.datasetAmount = datasetAmount;
+		this.message = message;
+	}
+	
+	public static BeaconReadoutBatchResult accepted(int beaconId, int datasetAmount) {
+		return new BeaconReadoutBatchResult(beaconId, true, datasetAmount, null);
+	}
+	
+	public static BeaconReadoutBatchResult rejected(int beaconId, String message) {
+		return new BeaconReadoutBatchResult(beaconId, false, 0, message);
+	}
+
+	public int getBeaconId() {
+		return beaconId;
+	}
+
+	public void setBeaconId(int beaconId) {
+		this.beaconId = beaconId;
+	}
+
+	public boolean isAccepted() {
+		return accepted;
+	}
+
+	public void setAccepted(boolean accepted) {
+		this.accepted = accepted;
+	}
+
+	public int getDatasetAmount() {
+		return datasetAmount;
+	}
+
+	public void setDatasetAmount(int datasetAmount) {
+		this.datasetAmount = datasetAmount;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+	
+}
@@ -0,0 +1,32 @@
+package at.sparklingscience.urbantrees.domain;
+
+/**
+ * Processing state of an asynchronously ingested beacon readout.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public enum BeaconReadoutState {
+	
+	/**
+	 * The readout has been journaled and waits for processing.
+	 */
+	QUEUED,
+	
+	/**
+	 * The readout is currently being inserted.
+	 */
+	PROCESSING,
+	
+	/**
+	 * The readout has been inserted successfully.
+	 */
+	DONE,
+	
+	/**
+	 * Inserting the readout failed. It is kept in the journal
+	 * for manual inspection.
+	 */
+	FAILED
+	
+}
@@ -0,0 +1,79 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Acknowledgment and status of an asynchronously ingested
+ * {@link BeaconReadoutResult}.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconReadoutStatus {
+
+	/**
+	 * Identifier of the readout, to be used for polling the status.
+	 */
+	private UUID readoutId;
+	
+	/**
+	 * ID of associated {@link Beacon}.
+	 */
+	private int beaconId;
+	
+	/**
+	 * Current processing state.
+	 */
+	private BeaconReadoutState state;
+	
+	/**
+	 * Date of the last state change.
+	 */
+	private Date updateDate;
+	
+	/**
+	 * Default Constructor.
+	 */
+	public BeaconReadoutStatus() {}
+
+	public BeaconReadoutStatus(UUID readoutId, int beaconId, BeaconReadoutState state) {
+		this.readoutId = readoutId;
+		this.beaconId = beaconId;
+		this.state = state;
+		this.updateDate = new Date();
+	}
+
+	public UUID getReadoutId() {
+		return readoutId;
+	}
+
+	public void setReadoutId(UUID readoutId) {
+		this.readoutId = readoutId;
+	}
+
+	public int getBeaconId() {
+		return beaconId;
+	}
+
+	public void setBeaconId(int beaconId) {
+		this.beaconId = beaconId;
+	}
+
+	public BeaconReadoutState getState() {
+		return state;
+	}
+
+	public void setState(BeaconReadoutState state) {
+		this.state = state;
+	}
+
+	public Date getUpdateDate() {
+		return updateDate;
+	}
+
+	public void setUpdateDate(Date updateDate) {
+		this.updateDate = updateDate;
+	}
+	
+}
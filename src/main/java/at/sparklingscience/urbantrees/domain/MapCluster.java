@@ -0,0 +1,101 @@
+package at.sparklingscience.urbantrees.domain;
+
+/**
+ * Group of trees and beacons close to each other on a map tile,
+ * shown as a single marker.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class MapCluster {
+
+	/**
+	 * X-Coordinate of the clusters' center (mean of all members).
+	 */
+	private double x;
+
+	/**
+	 * Y-Coordinate of the clusters' center (mean of all members).
+	 */
+	private double y;
+
+	/**
+	 * Amount of trees in this cluster.
+	 */
+	private int treeAmount;
+
+	/**
+	 * Amount of beacons in this cluster.
+	 */
+	private int beaconAmount;
+
+	/**
+	 * Some of the trees in this cluster (all if there are only few).
+	 */
+	private long[] treeIds;
+
+	/**
+	 * Some of the beacons in this cluster (all if there are only few).
+	 */
+	private long[] beaconIds;
+
+	public MapCluster() {}
+
+	public MapCluster(double x, double y, int treeAmount, int beaconAmount, long[] treeIds, long[] beaconIds) {
+		this.x = x;
+		this.y = y;
+		this.treeAmount = treeAmount;
+		this.beaconAmount = beaconAmount;
+		this.treeIds = treeIds;
+		this.beaconIds = beaconIds;
+	}
+
+	public double getX() {
+		return x;
+	}
+
+	public void setX(double x) {
+		this.x = x;
+	}
+
+	public double getY() {
+		return y;
+	}
+
+	public void setY(double y) {
+		this.y = y;
+	}
+
+	public int getTreeAmount() {
+		return treeAmount;
+	}
+
+	public void setTreeAmount(int treeAmount) {
+		this.treeAmount = treeAmount;
+	}
+
+	public int getBeaconAmount() {
+		return beaconAmount;
+	}
+
+	public void setBeaconAmount(int beaconAmount) {
+		this.beaconAmount = beaconAmount;
+	}
+
+	public long[] getTreeIds() {
+		return treeIds;
+	}
+
+	public void setTreeIds(long[] treeIds) {
+		this.treeIds = treeIds;
+	}
+
+	public long[] getBeaconIds() {
+		return beaconIds;
+	}
+
+	public void setBeaconIds(long[] beaconIds) {
+		this.beaconIds = beaconIds;
+	}
+
+}
@@ -0,0 +1,88 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.List;
+
+/**
+ * Clustered trees and beacons of a single web map tile (z/x/y).
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class MapTile {
+
+	/**
+	 * Zoom level.
+	 */
+	private int z;
+
+	/**
+	 * Tile column (0 is west).
+	 */
+	private int x;
+
+	/**
+	 * Tile row (0 is north).
+	 */
+	private int y;
+
+	/**
+	 * Projection of the cluster coordinates.
+	 */
+	private String projection;
+
+	/**
+	 * All non-empty clusters of this tile.
+	 */
+	private List<MapCluster> clusters;
+
+	public MapTile() {}
+
+	public MapTile(int z, int x, int y, String projection, List<MapCluster> clusters) {
+		this.z = z;
+		this.x = x;
+		this.y = y;
+		this.projection = projection;
+		this.clusters = clusters;
+	}
+
+	public int getZ() {
+		return z;
+	}
+
+	public void setZ(int z) {
+		this.z = z;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public void setX(int x) {
+		this.x = x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public void setY(int y) {
+		this.y = y;
+	}
+
+	public String getProjection() {
+		return projection;
+	}
+
+	public void setProjection(String projection) {
+		this.projection = projection;
+	}
+
+	public List<MapCluster> getClusters() {
+		return clusters;
+	}
+
+	public void setClusters(List<MapCluster> clusters) {
+		this.clusters = clusters;
+	}
+
+}
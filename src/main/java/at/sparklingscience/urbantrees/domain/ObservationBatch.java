@@ -0,0 +1,42 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Phenology and physiognomy datasets of multiple trees submitted at once,
+ * e.g. after collecting them offline.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class ObservationBatch {
+	
+	@Valid
+	@NotNull
+	private List<PhenologyDataset> phenology = new ArrayList<>();
+	
+	@Valid
+	@NotNull
+	private List<PhysiognomyDataset> physiognomy = new ArrayList<>();
+
+	public List<PhenologyDataset> getPhenology() {
+		return phenology;
+	}
+
+	public void setPhenology(List<PhenologyDataset> phenology) {
+		this.phenology = phenology;
+	}
+
+	public List<PhysiognomyDataset> getPhysiognomy() {
+		return physiognomy;
+	}
+
+	public void setPhysiognomy(List<PhysiognomyDataset> physiognomy) {
+		this.physiognomy = physiognomy;
+	}
+	
+}
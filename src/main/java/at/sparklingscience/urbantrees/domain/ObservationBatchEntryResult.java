@@ -0,0 +1,98 @@
+package at.sparklingscience.urbantrees.domain;
+
+import at.sparklingscience.urbantrees.exception.ClientError;
+
+/**
+ * Outcome of a single dataset of an {@link ObservationBatch}.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class ObservationBatchEntryResult {
+	
+	/**
+	 * ID of the {@link Tree} the dataset belongs to.
+	 */
+	private int treeId;
+	
+	/**
+	 * True if the dataset has been stored.
+	 */
+	private boolean accepted;
+	
+	/**
+	 * ID of the stored dataset; 0 if rejected.
+	 */
+	private long id;
+	
+	/**
+	 * Error code of the rejection (see {@link ClientError});
+	 * e.g. {@link ClientError#PHENOLOGY_DUPLICATE} if a dataset with the same
+	 * observation date is already stored. 0 if accepted.
+	 */
+	private int clientErrorCode;
+	
+	/**
+	 * Reason for rejection; null if accepted.
+	 */
+	private String message;
+	
+	public ObservationBatchEntryResult() {}
+	
+	public ObservationBatchEntryResult(int treeId, boolean accepted, long id, int clientErrorCode, String message) {
+		this.treeId = treeId;
+		this.accepted = accepted;
+		this.id = id;
+		this.clientErrorCode = clientErrorCode;
+		this.message = message;
+	}
+	
+	public static ObservationBatchEntryResult accepted(int treeId, long id) {
+		return new ObservationBatchEntryResult(treeId, true, id, 0, null);
+	}
+	
+	public static ObservationBatchEntryResult rejected(int treeId, ClientError clientError, String message) {
+		return new ObservationBatchEntryResult(treeId, false, 0, clientError.getErrorCode(), message);
+	}
+
+	public int getTreeId() {
+		return treeId;
+	}
+
+	public void setTreeId(int treeId) {
+		this.treeId = treeId;
+	}
+
+	public boolean isAccepted() {
+		return accepted;
+	}
+
+	public void setAccepted(boolean accepted) {
+		this.accepted = accepted;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public void setId(long id) {
+		this.id = id;
+	}
+
+	public int getClientErrorCode() {
+		return clientErrorCode;
+	}
+
+	public void setClientErrorCode(int clientErrorCode) {
+		this.clientErrorCode = clientErrorCode;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+	
+}
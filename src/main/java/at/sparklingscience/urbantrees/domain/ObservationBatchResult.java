@@ -0,0 +1,41 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.List;
+
+/**
+ * Outcome of all datasets of an {@link ObservationBatch},
+ * in the same order as submitted.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class ObservationBatchResult {
+	
+	private List<ObservationBatchEntryResult> phenology;
+	
+	private List<ObservationBatchEntryResult> physiognomy;
+	
+	public ObservationBatchResult() {}
+	
+	public ObservationBatchResult(List<ObservationBatchEntryResult> phenology, List<ObservationBatchEntryResult> physiognomy) {
+		this.phenology = phenology;
+		this.physiognomy = physiognomy;
+	}
+
+	public List<ObservationBatchEntryResult> getPhenology() {
+		return phenology;
+	}
+
+	public void setPhenology(List<ObservationBatchEntryResult> phenology) {
+		this.phenology = phenology;
+	}
+
+	public List<ObservationBatchEntryResult> getPhysiognomy() {
+		return physiognomy;
+	}
+
+	public void setPhysiognomy(List<ObservationBatchEntryResult> physiognomy) {
+		this.physiognomy = physiognomy;
+	}
+	
+}
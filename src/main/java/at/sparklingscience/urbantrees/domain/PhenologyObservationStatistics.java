@@ -0,0 +1,100 @@
+package at.sparklingscience.urbantrees.domain;
+
+/**
+ * Amount of {@link PhenologyObservation}s with the same object and result
+ * on trees of one species within a single ISO week.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class PhenologyObservationStatistics {
+
+	private long speciesId;
+
+	/**
+	 * Id of the {@link PhenologyObservationType}.
+	 */
+	private long typeId;
+
+	/**
+	 * Id of the {@link PhenologyObservationObject}.
+	 */
+	private long objectId;
+
+	/**
+	 * Id of the {@link PhenologyObservationResult}.
+	 */
+	private long resultId;
+
+	/**
+	 * ISO week-based year of the observation date.
+	 */
+	private int year;
+
+	/**
+	 * ISO week of the observation date (1 to 53).
+	 */
+	private int week;
+
+	/**
+	 * Amount of observations with this result in this week.
+	 */
+	private long observationAmount;
+
+	public long getSpeciesId() {
+		return speciesId;
+	}
+
+	public void setSpeciesId(long speciesId) {
+		this.speciesId = speciesId;
+	}
+
+	public long getTypeId() {
+		return typeId;
+	}
+
+	public void setTypeId(long typeId) {
+		this.typeId = typeId;
+	}
+
+	public long getObjectId() {
+		return objectId;
+	}
+
+	public void setObjectId(long objectId) {
+		this.objectId = objectId;
+	}
+
+	public long getResultId() {
+		return resultId;
+	}
+
+	public void setResultId(long resultId) {
+		this.resultId = resultId;
+	}
+
+	public int getYear() {
+		return year;
+	}
+
+	public void setYear(int year) {
+		this.year = year;
+	}
+
+	public int getWeek() {
+		return week;
+	}
+
+	public void setWeek(int week) {
+		this.week = week;
+	}
+
+	public long getObservationAmount() {
+		return observationAmount;
+	}
+
+	public void setObservationAmount(long observationAmount) {
+		this.observationAmount = observationAmount;
+	}
+
+}
@@ -0,0 +1,75 @@
+package at.sparklingscience.urbantrees.domain;
+
+import java.util.List;
+
+/**
+ * Changes of the tree catalogue since a version known by the client.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class TreeCatalogueChanges {
+	
+	/**
+	 * Current catalogue version; to be sent with the next request.
+	 */
+	private long version;
+	
+	/**
+	 * True if changes since the requested version are not known anymore
+	 * and the client must reload the whole catalogue.
+	 */
+	private boolean full;
+	
+	/**
+	 * Trees added or changed since the requested version.
+	 */
+	private List<Tree> trees;
+	
+	/**
+	 * IDs of trees removed since the requested version.
+	 */
+	private List<Long> deletedTreeIds;
+	
+	public TreeCatalogueChanges() {}
+	
+	public TreeCatalogueChanges(long version, boolean full, List<Tree> trees, List<Long> deletedTreeIds) {
+		this.version = version;
+		this.full = full;
+		this.trees = trees;
+		this.deletedTreeIds = deletedTreeIds;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	public boolean isFull() {
+		return full;
+	}
+
+	public void setFull(boolean full) {
+		this.full = full;
+	}
+
+	public List<Tree> getTrees() {
+		return trees;
+	}
+
+	public void setTrees(List<Tree> trees) {
+		this.trees = trees;
+	}
+
+	public List<Long> getDeletedTreeIds() {
+		return deletedTreeIds;
+	}
+
+	public void setDeletedTreeIds(List<Long> deletedTreeIds) {
+		this.deletedTreeIds = deletedTreeIds;
+	}
+	
+}
@@ -27,10 +27,16 @@ public class Image implements Serializable {
 	
 	/**
 	 * This contains the base64 encoded image data used for img-tags in the frontend.
+	 * Only set for images not yet moved to the blob store.
 	 */
-	@NotNull
 	private String encodedImage;
 	
+	/**
+	 * Hash of the image in the blob store; it is served by /ui/img/{imageHash}.
+	 * Null for images not yet moved to the blob store.
+	 */
+	private String imageHash;
+	
 	/**
 	 * Alternative text to display if the image does not load in the UI.
 	 */
@@ -46,6 +52,14 @@ public class Image implements Serializable {
 		this.setEncodedImage(rawImageData);
 	}
 
+	public String getImageHash() {
+		return imageHash;
+	}
+
+	public void setImageHash(String imageHash) {
+		this.imageHash = imageHash;
+	}
+
 	public String getAlternativeText() {
 		return alternativeText;
 	}
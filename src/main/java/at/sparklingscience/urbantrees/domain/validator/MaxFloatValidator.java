@@ -6,14 +6,15 @@ import javax.validation.ConstraintValidatorContext;
 import at.sparklingscience.urbantrees.domain.validator.annotation.MaxFloat;
 
 /**
- * Validates the given float by whether its value is less than or equal
- * to the value specified.
+ * Validates the given number by whether its value is less than or equal
+ * to the value specified. Null values are valid.
+ * Accepts any number type (e.g. float and double fields).
  * 
  * @see MaxFloat
  * @author Laurenz Fiala
  * @since 2018/01/21
  */
-public class MaxFloatValidator implements ConstraintValidator<MaxFloat, Float> {
+public class MaxFloatValidator implements ConstraintValidator<MaxFloat, Number> {
 
 	private Float maxValue;
 
@@ -23,8 +24,8 @@ public class MaxFloatValidator implements ConstraintValidator<MaxFloat, Float> {
 	}
 
 	@Override
-	public boolean isValid(Float validationValue, ConstraintValidatorContext validationContext) {
-		return validationValue <= this.maxValue;
+	public boolean isValid(Number validationValue, ConstraintValidatorContext validationContext) {
+		return validationValue == null || validationValue.doubleValue() <= this.maxValue;
 	}
 	
 }
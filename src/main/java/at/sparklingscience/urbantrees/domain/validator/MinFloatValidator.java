@@ -6,14 +6,15 @@ import javax.validation.ConstraintValidatorContext;
 import at.sparklingscience.urbantrees.domain.validator.annotation.MinFloat;
 
 /**
- * Validates the given float by whether its value is greater than or equal
- * to the value specified.
+ * Validates the given number by whether its value is greater than or equal
+ * to the value specified. Null values are valid.
+ * Accepts any number type (e.g. float and double fields).
  * 
  * @see MinFloat
  * @author Laurenz Fiala
  * @since 2018/01/21
  */
-public class MinFloatValidator implements ConstraintValidator<MinFloat, Float> {
+public class MinFloatValidator implements ConstraintValidator<MinFloat, Number> {
 
 	private Float minValue;
 
@@ -23,8 +24,8 @@ public class MinFloatValidator implements ConstraintValidator<MinFloat, Float> {
 	}
 
 	@Override
-	public boolean isValid(Float validationValue, ConstraintValidatorContext validationContext) {
-		return validationValue >= this.minValue;
+	public boolean isValid(Number validationValue, ConstraintValidatorContext validationContext) {
+		return validationValue == null || validationValue.doubleValue() >= this.minValue;
 	}
 	
 }
@@ -25,6 +25,7 @@ public enum ClientError {
 	BEACON_DELETE_FAILED(32),
 	BEACON_LOG_SEVERITY_INVALID(33),
 	BEACON_UPDATE_FAILED(34),
+	BEACON_LOG_CURSOR_INVALID(35),
 	
 	TREE_INSERT_FAILED(40),
 	TREE_UPDATE_FAILED(41),
@@ -64,6 +64,15 @@ public interface ApplicationMapper {
 			@Param("userId") int userId
 			);
 	
+	List<Integer> nextUserRefIds(
+			@Param("amount") int amount
+			);
+	
+	void insertUserRefs(
+			@Param("refIds") int[] refIds,
+			@Param("userIds") int[] userIds
+			);
+	
 	List<UserIdentity> findUsersByRefId(
 			@Param("refId") int refId
 			);
@@ -1,15 +1,24 @@
 package at.sparklingscience.urbantrees.mapper;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
+import at.sparklingscience.urbantrees.controller.util.Timespan;
 import at.sparklingscience.urbantrees.domain.Beacon;
+import at.sparklingscience.urbantrees.domain.BeaconDataArchive;
+import at.sparklingscience.urbantrees.domain.BeaconDataRollup;
 import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconDatasetAggregate;
 import at.sparklingscience.urbantrees.domain.BeaconLog;
 import at.sparklingscience.urbantrees.domain.BeaconLogSeverity;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutBatchEntry;
 import at.sparklingscience.urbantrees.domain.BeaconSettings;
 import at.sparklingscience.urbantrees.domain.BeaconStatus;
 
@@ -25,6 +34,11 @@ public interface BeaconMapper {
 	
 	List<Beacon> findAllBeaconsActive();
 	
+	/**
+	 * @return all beacons including deleted ones, ordered by id
+	 */
+	List<Beacon> findAllBeacons();
+	
 	List<Beacon> findAllBeaconsByStatus(@Param("status") BeaconStatus status);
 	
 	Beacon findBeaconById(@Param("beaconId") long beaconId);
@@ -38,15 +52,286 @@ public interface BeaconMapper {
 			@Param("timespanMax") Date timespanMax
 			);
 	
+	/**
+	 * Aggregate the datasets of the given beacon into fixed-width time buckets
+	 * (aligned to the unix epoch) and return min/avg/max of every measurement
+	 * per bucket. Empty buckets are omitted.
+	 * The timespan is half-open like the rollup buckets, so both return
+	 * the same aggregates for timespans aligned to the rollups.
+	 * @param beaconId beacon to get data for
+	 * @param bucketSec width of each bucket in seconds
+	 * @param timespanMin (optional) earliest observation date to include
+	 * @param timespanMax (optional) datasets observed before this date are included
+	 * @return list of aggregates ordered by bucket start ascending
+	 */
+	List<BeaconDatasetAggregate> findBeaconDataAggregatesByBeaconId(
+			@Param("beaconId") long beaconId,
+			@Param("bucketSec") long bucketSec,
+			@Param("timespanMin") Date timespanMin,
+			@Param("timespanMax") Date timespanMax
+			);
+	
+	/**
+	 * Find the observation date of the oldest dataset of the given beacon,
+	 * including archived datasets.
+	 * @param beaconId beacon to check
+	 * @return oldest observation date or null if the beacon has no data
+	 */
+	Date findFirstBeaconDataDate(@Param("beaconId") long beaconId);
+	
+	/**
+	 * Find the observation date of the newest raw dataset of the given beacon.
+	 * @param beaconId beacon to check
+	 * @return newest observation date or null if the beacon has no raw data
+	 */
+	Date findLastBeaconDataDate(@Param("beaconId") long beaconId);
+	
+	/**
+	 * Find the observation date of the newest raw dataset of each of the given beacons.
+	 * @param beaconIds beacons to check
+	 * @return one dataset per beacon having raw data, with only
+	 * 		   beacon id and observation date set
+	 */
+	List<BeaconDataset> findLastBeaconDataDates(@Param("beaconIds") Collection<Integer> beaconIds);
+	
+	/**
+	 * Find all months containing raw datasets of the given beacon
+	 * observed before the given date.
+	 * @param beaconId beacon to check
+	 * @param before only datasets observed before this date are considered
+	 * @return first instant of every month found, oldest first
+	 */
+	List<Date> findBeaconDataArchiveMonths(
+			@Param("beaconId") long beaconId,
+			@Param("before") Date before
+			);
+	
+	/**
+	 * Find the archive of the given beacon and month.
+	 * @param beaconId beacon to get archive for
+	 * @param monthDate first instant of the month
+	 * @return archive or null if the month has not been archived yet
+	 */
+	BeaconDataArchive findBeaconDataArchive(
+			@Param("beaconId") long beaconId,
+			@Param("monthDate") Date monthDate
+			);
+	
+	/**
+	 * Find all archives of the given beacon containing datasets
+	 * in the given timespan.
+	 * @param beaconId beacon to get archives for
+	 * @param timespanMin (optional) earliest observation date needed
+	 * @param timespanMax (optional) latest observation date needed
+	 * @return archives, newest month first
+	 */
+	List<BeaconDataArchive> findBeaconDataArchives(
+			@Param("beaconId") long beaconId,
+			@Param("timespanMin") Date timespanMin,
+			@Param("timespanMax") Date timespanMax
+			);
+	
+	/**
+	 * Iterate over the raw datasets of the given beacon without loading them all at once.
+	 * The cursor must be consumed and closed inside a transaction.
+	 * @param beaconId beacon to get data for
+	 * @param timespanMin (optional) earliest observation date
+	 * @param timespanMax (optional) latest observation date
+	 * @return cursor over the datasets, oldest first
+	 */
+	Cursor<BeaconDataset> streamBeaconDataByBeaconId(
+			@Param("beaconId") long beaconId,
+			@Param("timespanMin") Date timespanMin,
+			@Param("timespanMax") Date timespanMax
+			);
+	
+	/**
+	 * Iterate over the archives of the given beacon containing datasets
+	 * in the given timespan, one month at a time.
+	 * The cursor must be consumed and closed inside a transaction.
+	 * @param beaconId beacon to get archives for
+	 * @param timespanMin (optional) earliest observation date needed
+	 * @param timespanMax (optional) latest observation date needed
+	 * @return cursor over the archives, oldest month first
+	 */
+	Cursor<BeaconDataArchive> streamBeaconDataArchives(
+			@Param("beaconId") long beaconId,
+			@Param("timespanMin") Date timespanMin,
+			@Param("timespanMax") Date timespanMax
+			);
+	
+	/**
+	 * Find the date up to which the given beacons' data has been archived.
+	 * @param beaconId beacon to check
+	 * @return first instant after the newest archived month
+	 * 		   or null if nothing has been archived
+	 */
+	Date findBeaconDataArchiveHorizon(@Param("beaconId") long beaconId);
+	
+	/**
+	 * Insert the given archive or replace it if the month
+	 * has already been archived.
+	 * @param archive archive to store
+	 */
+	void upsertBeaconDataArchive(@Param("archive") BeaconDataArchive archive);
+	
+	/**
+	 * Delete raw datasets of the given beacon observed in the given range.
+	 * @param beaconId beacon to delete data of
+	 * @param from earliest observation date (inclusive)
+	 * @param to end of the range (exclusive)
+	 * @return the deleted datasets (unordered)
+	 */
+	List<BeaconDataset> deleteBeaconData(
+			@Param("beaconId") long beaconId,
+			@Param("from") Date from,
+			@Param("to") Date to
+			);
+	
+	/**
+	 * Same as {@link #findBeaconDataAggregatesByBeaconId(long, long, Date, Date)},
+	 * but reads from the given rollup instead of the raw data.
+	 * bucketSec must be a multiple of the rollups' bucket width.
+	 * @param beaconId beacon to get data for
+	 * @param rollup rollup to read from
+	 * @param bucketSec width of each bucket in seconds
+	 * @param timespanMin (optional) earliest rollup bucket to include
+	 * @param timespanMax (optional) rollup buckets before this date are included
+	 * @return list of aggregates ordered by bucket start ascending
+	 */
+	List<BeaconDatasetAggregate> findBeaconDataAggregatesFromRollup(
+			@Param("beaconId") long beaconId,
+			@Param("rollup") BeaconDataRollup rollup,
+			@Param("bucketSec") long bucketSec,
+			@Param("timespanMin") Date timespanMin,
+			@Param("timespanMax") Date timespanMax
+			);
+	
+	/**
+	 * Re-aggregate all hourly rollup buckets of the given beacon that
+	 * overlap the given range from the raw data.
+	 * @param beaconId beacon to update rollups for
+	 * @param from (optional) oldest observation date affected
+	 * @param to (optional) newest observation date affected
+	 */
+	void updateBeaconDataRollupHour(
+			@Param("beaconId") long beaconId,
+			@Param("from") Date from,
+			@Param("to") Date to
+			);
+	
+	/**
+	 * Re-aggregate all daily rollup buckets of the given beacon that
+	 * overlap the given range from the hourly rollup.
+	 * Must be called after {@link #updateBeaconDataRollupHour(long, Date, Date)}.
+	 * @param beaconId beacon to update rollups for
+	 * @param from (optional) oldest observation date affected
+	 * @param to (optional) newest observation date affected
+	 */
+	void updateBeaconDataRollupDay(
+			@Param("beaconId") long beaconId,
+			@Param("from") Date from,
+			@Param("to") Date to
+			);
+	
+	/**
+	 * Insert or replace the given hourly rollup buckets of the given beacon.
+	 * Used for archived months, whose raw data is gone.
+	 * @param beaconId beacon the buckets belong to
+	 * @param buckets hourly aggregates to store
+	 */
+	void upsertBeaconDataRollupHours(
+			@Param("beaconId") long beaconId,
+			@Param("buckets") List<BeaconDatasetAggregate> buckets
+			);
+	
+	/**
+	 * Re-aggregate the hourly rollup buckets of multiple beacons that
+	 * overlap the given ranges from the raw data.
+	 * Buckets of archived months are left as they are.
+	 * @param ranges oldest and newest observation date affected by beacon id
+	 */
+	void updateBeaconDataRollupHours(@Param("ranges") Map<Integer, Timespan> ranges);
+	
+	/**
+	 * Re-aggregate the daily rollup buckets of multiple beacons that
+	 * overlap the given ranges from the hourly rollup.
+	 * Buckets of archived months are left as they are.
+	 * Must be called after {@link #updateBeaconDataRollupHours(Map)}.
+	 * @param ranges oldest and newest observation date affected by beacon id
+	 */
+	void updateBeaconDataRollupDays(@Param("ranges") Map<Integer, Timespan> ranges);
+	
+	/**
+	 * Delete rollup buckets of the given beacon.
+	 * @param beaconId beacon to delete rollups for
+	 * @param from (optional) only delete buckets starting at or after this date
+	 */
+	void deleteBeaconDataRollups(
+			@Param("beaconId") long beaconId,
+			@Param("from") Date from
+			);
+	
+	/**
+	 * @return ids of all beacons, including deleted ones
+	 */
+	List<Integer> findAllBeaconIds();
+	
 	void insertBeaconDatasets(
 			@Param("beaconId") long beaconId,
 			@Param("datasets") List<BeaconDataset> datasets
 			);
 	
+	/**
+	 * Create the transaction-scoped staging table for bulk dataset inserts
+	 * (if it does not exist yet). Rows are copied into it using the
+	 * PostgreSQL COPY protocol.
+	 * @see #mergeBeaconDataStaging()
+	 */
+	void createBeaconDataStaging();
+	
+	/**
+	 * Move all rows from the staging table into tree_data.beacon_data,
+	 * skipping already existing datasets. The staging table is empty afterwards.
+	 * @see #createBeaconDataStaging()
+	 */
+	void mergeBeaconDataStaging();
+	
+	/**
+	 * Create the transaction-scoped staging table for streamed readouts
+	 * (if it does not exist yet). Rows only hold their position in the
+	 * readout, since observation dates can only be calculated once the
+	 * total amount of datasets is known.
+	 * @see #mergeBeaconReadoutStaging(long, Date, int, int)
+	 */
+	void createBeaconReadoutStaging();
+	
+	/**
+	 * Move all rows from the readout staging table into tree_data.beacon_data,
+	 * skipping already existing datasets. The staging table is empty afterwards.
+	 * @param beaconId beacon the staged datasets belong to
+	 * @param firstObservationDate observation date of the dataset with ordinal 0
+	 * @param loggingIntervalSec seconds between two consecutive datasets
+	 * @param firstOrdinal staged rows with a lower ordinal are discarded
+	 * 					   (since they have already been stored)
+	 * @see #createBeaconReadoutStaging()
+	 */
+	void mergeBeaconReadoutStaging(
+			@Param("beaconId") long beaconId,
+			@Param("firstObservationDate") Date firstObservationDate,
+			@Param("loggingIntervalSec") int loggingIntervalSec,
+			@Param("firstOrdinal") int firstOrdinal
+			);
+	
 	BeaconSettings findLatestBeaconSettingsByBeaconId(
 			@Param("beaconId") long beaconId
 			);
 	
+	/**
+	 * @return the latest settings of every beacon, ordered by beacon id
+	 */
+	List<BeaconSettings> findAllLatestBeaconSettings();
+	
 	List<BeaconLog> findBeaconLogs(
 			@Param("beaconId") Long beaconId,
 			@Param("severities") List<BeaconLogSeverity> severities,
@@ -56,12 +341,54 @@ public interface BeaconMapper {
 			@Param("timespanMax") Date timespanMax
 			);
 	
+	/**
+	 * Keyset-paginated variant of {@link #findBeaconLogs}.
+	 * Returns logs with an id lower than beforeId, newest first.
+	 * @param beforeId id of the last log of the previous page; null for the first page
+	 * @param beaconId filter by beacon; null for all beacons
+	 * @param severities filter by severity; null for all severities
+	 * @param limit max. amount of logs to return
+	 * @param timespanMin (optional) min. event date
+	 * @param timespanMax (optional) max. event date
+	 * @return list of logs ordered by id descending
+	 */
+	List<BeaconLog> findBeaconLogsBefore(
+			@Param("beforeId") Long beforeId,
+			@Param("beaconId") Long beaconId,
+			@Param("severities") List<BeaconLogSeverity> severities,
+			@Param("limit") int limit,
+			@Param("timespanMin") Date timespanMin,
+			@Param("timespanMax") Date timespanMax
+			);
+	
 	void insertBeaconSettings(
 			@Param("beaconId") long beaconId,
 			@Param("settings") BeaconSettings settings,
 			@Param("user") String user
 			);
 	
+	/**
+	 * Insert the settings of all given readouts in a single statement.
+	 * Generated ids are not set on the settings.
+	 * @param entries readouts to insert the settings of
+	 */
+	void insertBeaconSettingsBatch(@Param("entries") List<BeaconReadoutBatchEntry> entries);
+	
+	/**
+	 * Store the id of a readout inserted asynchronously, so it is not inserted twice.
+	 * @param readoutId id of the readout
+	 * @param beaconId beacon the readout belongs to
+	 * @return 1 if stored; 0 if the readout id was already stored
+	 */
+	int insertBeaconReadoutId(@Param("readoutId") UUID readoutId, @Param("beaconId") int beaconId);
+	
+	/**
+	 * Find the beacon a readout with given id was inserted for.
+	 * @param readoutId id of the readout
+	 * @return id of the beacon or null if no readout with this id was inserted
+	 */
+	Integer findBeaconReadoutBeaconId(@Param("readoutId") UUID readoutId);
+	
 	void insertBeaconLog(
 			@Param("beaconId") long beaconId,
 			@Param("log") BeaconLog log
@@ -86,6 +413,13 @@ public interface BeaconMapper {
 			@Param("status") BeaconStatus status
 			);
 	
+	/**
+	 * Set the status of all given beacons in a single statement.
+	 * @param ids beacons to update
+	 * @param status new status
+	 */
+	void updateBeaconsStatus(@Param("ids") List<Integer> ids, @Param("status") BeaconStatus status);
+	
 	void updateBeaconSettings(
 			@Param("settings") BeaconSettings settings,
 			@Param("user") String user
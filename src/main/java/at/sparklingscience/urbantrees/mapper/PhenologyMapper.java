@@ -8,6 +8,7 @@ import org.apache.ibatis.annotations.Param;
 
 import at.sparklingscience.urbantrees.domain.PhenologyDataset;
 import at.sparklingscience.urbantrees.domain.PhenologyDatasetWithTree;
+import at.sparklingscience.urbantrees.domain.PhenologyObservationStatistics;
 import at.sparklingscience.urbantrees.domain.PhenologyObservationType;
 
 /**
@@ -39,6 +40,23 @@ public interface PhenologyMapper {
 	
 	void insertPhenologyObservation(PhenologyDataset dataset);
 	
+	List<PhenologyDataset> insertPhenologies(@Param("datasets") List<PhenologyDataset> datasets);
+	
+	void insertPhenologyObservations(@Param("datasets") List<PhenologyDataset> datasets);
+	
+	int incrementPhenologyObservationStatistics(@Param("phenologyIds") List<Long> phenologyIds);
+	
+	void lockPhenologyObservationStatistics();
+	
+	void deletePhenologyObservationStatistics();
+	
+	List<PhenologyObservationStatistics> findPhenologyObservationStatistics(
+			@Param("speciesId") long speciesId,
+			@Param("typeId") Long typeId,
+			@Param("yearMin") Integer yearMin,
+			@Param("yearMax") Integer yearMax
+			);
+	
 	List<PhenologyObservationType> getObservationTypesForTreeSpeciesId(int treeSpeciesId);
 	
 	List<PhenologyObservationType> getAllObservationTypes();
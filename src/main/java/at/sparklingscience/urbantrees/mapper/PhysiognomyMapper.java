@@ -39,4 +39,12 @@ public interface PhysiognomyMapper {
 	 */
 	void insertPhysiognomyDataset(PhysiognomyDataset dataset) throws DuplicateKeyException;
 	
+	/**
+	 * Store multiple physiognomy datasets using one statement.
+	 * Datasets conflicting with an already stored one are skipped.
+	 * @param datasets {@link PhysiognomyDataset}s to insert
+	 * @return id, tree id and observation date of every inserted dataset
+	 */
+	List<PhysiognomyDataset> insertPhysiognomyDatasets(@Param("datasets") List<PhysiognomyDataset> datasets);
+	
 }
@@ -32,6 +32,20 @@ public interface UiMapper {
 			@Param("resultId") long resultId
 			);
 	
+	/**
+	 * Find observation result images still stored in the DB instead of the blob store.
+	 * @param limit max. amount of images to return
+	 * @return images with data and the hash it will be stored under
+	 */
+	List<Image> findUnstoredResultImages(@Param("limit") int limit);
+	
+	/**
+	 * Replace the data of all observation result images with the given hashes
+	 * by the reference to the blob store.
+	 * @param hashes hashes of images already in the blob store
+	 */
+	void updateResultImagesStored(@Param("hashes") List<String> hashes);
+	
 	/**
 	 * Gets all current announcements to show ordered by
 	 * severity.
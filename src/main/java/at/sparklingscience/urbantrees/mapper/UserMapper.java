@@ -10,6 +10,7 @@ import at.sparklingscience.urbantrees.domain.UserData;
 import at.sparklingscience.urbantrees.domain.UserLevelAction;
 import at.sparklingscience.urbantrees.domain.UserLevelActionContext;
 import at.sparklingscience.urbantrees.domain.UserXp;
+import at.sparklingscience.urbantrees.domain.ui.Image;
 
 /**
  * Mybatis mapping interface.
@@ -24,14 +25,28 @@ public interface UserMapper {
 	/**
 	 * Insert an image for a phenology observation.
 	 * @param phenologyId phenology the image applies to
-	 * @param imgData image data
+	 * @param imgHash hash of the image in the blob store
 	 * @param imgType image content type
 	 */
 	void insertPhenologyImage(
 			@Param("phenologyId") long phenologyId,
-			@Param("imgData") byte[] imgData,
+			@Param("imgHash") String imgHash,
 			@Param("imgType") String imgType
 			);
+	
+	/**
+	 * Find phenology images still stored in the DB instead of the blob store.
+	 * @param limit max. amount of images to return
+	 * @return images with data and the hash it will be stored under
+	 */
+	List<Image> findUnstoredPhenologyImages(@Param("limit") int limit);
+	
+	/**
+	 * Replace the data of all phenology images with the given hashes
+	 * by the reference to the blob store.
+	 * @param hashes hashes of images already in the blob store
+	 */
+	void updatePhenologyImagesStored(@Param("hashes") List<String> hashes);
 
 	/**
 	 * Find complete {@link UserAchievements} with all XP entries.
@@ -64,6 +79,20 @@ public interface UserMapper {
 			@Param("context") UserLevelActionContext context
 			);
 	
+	/**
+	 * Insert multiple level actions of the same type for a user in a single statement.
+	 * The user must already have a level entry.
+	 * @param userId user to increase xp for
+	 * @param action action type of all entries
+	 * @param increases xp (relative to the users' current xp, so cumulative) and
+	 * 					context of each entry to insert, in order
+	 */
+	void insertIncreaseLevels(
+			@Param("userId") int userId,
+			@Param("action") UserLevelAction action,
+			@Param("increases") List<UserXp> increases
+			);
+	
 	void insertLevel(@Param("userId") int userId,
 					 @Param("xp") int xp,
 					 @Param("action") String action,
@@ -0,0 +1,63 @@
+package at.sparklingscience.urbantrees.mapper.util;
+
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+
+/**
+ * Type handler for postgres integer arrays (int4[]) as int[].
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@MappedJdbcTypes(JdbcType.ARRAY)
+public class IntArrayTypeHandler extends BaseTypeHandler<int[]> {
+
+	private static int[] toIntArray(Array array) throws SQLException {
+		if (array == null) {
+			return null;
+		}
+		try {
+			final Object[] values = (Object[]) array.getArray();
+			final int[] result = new int[values.length];
+			for (int i = 0; i < values.length; i++) {
+				result[i] = ((Number) values[i]).intValue();
+			}
+			return result;
+		} finally {
+			array.free();
+		}
+	}
+
+	@Override
+	public int[] getNullableResult(ResultSet rs, String columnName) throws SQLException {
+		return toIntArray(rs.getArray(columnName));
+	}
+
+	@Override
+	public int[] getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+		return toIntArray(rs.getArray(columnIndex));
+	}
+
+	@Override
+	public int[] getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+		return toIntArray(cs.getArray(columnIndex));
+	}
+
+	@Override
+	public void setNonNullParameter(PreparedStatement ps, int columnIndex, int[] parameter, JdbcType jdbcType)
+			throws SQLException {
+		final Integer[] values = new Integer[parameter.length];
+		for (int i = 0; i < parameter.length; i++) {
+			values[i] = parameter[i];
+		}
+		ps.setArray(columnIndex, ps.getConnection().createArrayOf("int4", values));
+	}
+
+}
@@ -0,0 +1,140 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconLog;
+import at.sparklingscience.urbantrees.domain.BeaconLogSeverity;
+import at.sparklingscience.urbantrees.domain.BeaconLogType;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+import at.sparklingscience.urbantrees.util.BeaconSensorState;
+import at.sparklingscience.urbantrees.util.BeaconSensorState.Anomaly;
+
+/**
+ * Detects sensor faults in incoming beacon datasets.
+ * Keeps rolling statistics per beacon (see {@link BeaconSensorState}), so
+ * every dataset is checked in constant time and memory when it arrives.
+ * Detected anomalies are stored as {@link BeaconLogType#ANOMALY} logs,
+ * at most one per kind and readout.
+ * Statistics are kept in memory only and built up again after a restart.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconAnomalyService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconAnomalyService.class);
+
+	@Autowired
+	private BeaconMapper beaconMapper;
+
+	@Autowired
+	private BeaconEventService beaconEventService;
+
+	/**
+	 * Statistics by beacon id.
+	 */
+	private final Map<Long, BeaconSensorState> states = new ConcurrentHashMap<>();
+
+	/**
+	 * Check the given newly stored datasets of a beacon and store
+	 * a log for every kind of anomaly found.
+	 * @param beaconId beacon the datasets belong to
+	 * @param datasets datasets with observation dates set, oldest first
+	 * @return amount of anomaly logs stored
+	 * @see #detect(long, Iterable)
+	 */
+	public int check(long beaconId, Iterable<BeaconDataset> datasets) {
+
+		final List<BeaconLog> logs = this.detect(beaconId, datasets);
+		if (!logs.isEmpty()) {
+			this.beaconMapper.insertBeaconLogs(logs);
+			this.beaconEventService.logged(logs);
+		}
+		return logs.size();
+
+	}
+
+	/**
+	 * Check the given newly stored datasets of a beacon without storing
+	 * the found anomalies, so callers can store the logs of multiple beacons at once.
+	 * Concurrent checks of the same beacon are serialized, so no dataset
+	 * is lost from the statistics. If called inside a transaction that is
+	 * rolled back, the beacons' statistics are reset and built up again,
+	 * since the datasets can't be taken out of them.
+	 * @param beaconId beacon the datasets belong to
+	 * @param datasets datasets with observation dates set, oldest first
+	 * @return one log for every kind of anomaly found
+	 */
+	public List<BeaconLog> detect(long beaconId, Iterable<BeaconDataset> datasets) {
+
+		final BeaconSensorState state = this.states.computeIfAbsent(beaconId, id -> new BeaconSensorState());
+		final Map<Anomaly, Finding> findings = new EnumMap<>(Anomaly.class);
+
+		synchronized (state) {
+			for (BeaconDataset dataset : datasets) {
+				state.check(dataset, (anomaly, detail) ->
+					findings.computeIfAbsent(anomaly, a -> new Finding(dataset.getObservationDate(), detail)).count++
+				);
+			}
+		}
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						states.remove(beaconId, state);
+					}
+				}
+			});
+		}
+
+		final List<BeaconLog> logs = new ArrayList<>(findings.size());
+		findings.forEach((anomaly, finding) -> logs.add(new BeaconLog(
+				(int) beaconId,
+				BeaconLogSeverity.WARN,
+				BeaconLogType.ANOMALY,
+				anomaly.getDescription() + " (" + finding.detail + ")"
+					+ (finding.count > 1 ? ", " + finding.count + " times in readout." : "."),
+				finding.firstDate
+		)));
+		if (!logs.isEmpty()) {
+			LOGGER.info("Detected {} kinds of anomalies in datasets of beacon {}.", logs.size(), beaconId);
+		}
+		return logs;
+
+	}
+
+	/**
+	 * First occurrence of an anomaly in a readout.
+	 */
+	private static final class Finding {
+
+		private final Date firstDate;
+
+		private final String detail;
+
+		private int count;
+
+		private Finding(Date firstDate, String detail) {
+			this.firstDate = firstDate;
+			this.detail = detail;
+		}
+
+	}
+
+}
@@ -0,0 +1,239 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataArchive;
+import at.sparklingscience.urbantrees.domain.BeaconDataRollup;
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+import at.sparklingscience.urbantrees.util.BeaconDataAggregation;
+import at.sparklingscience.urbantrees.util.BeaconDataCodec;
+
+/**
+ * Moves cold beacon data from tree_data.beacon_data into a compressed
+ * per-beacon-per-month archive (see {@link BeaconDataCodec}) and reads
+ * it back for queries reaching into the archived range.
+ * Rollups are kept when archiving, so aggregated queries keep working
+ * without decoding the archive.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconDataArchiveService {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconDataArchiveService.class);
+	
+	@Autowired
+	private BeaconMapper beaconMapper;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	/**
+	 * Full months of raw data older than this are archived.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.archiveAfterMonths}")
+	private int archiveAfterMonths;
+	
+	/**
+	 * Archive all full months of raw data older than {@link #archiveAfterMonths}.
+	 * Every beacon-month is archived in its own transaction.
+	 * Raw data arriving late for an already archived month is merged into
+	 * the existing archive on the next run.
+	 * @return amount of datasets moved into the archive
+	 */
+	@Scheduled(cron = "${at.sparklingscience.urbantrees.beacon.archiveCron}", zone = "UTC")
+	public long archiveColdData() {
+		
+		final Date before = this.findArchiveBoundary();
+		
+		LOGGER.info("Archiving beacon data observed before {}", before);
+		
+		long archivedAmount = 0;
+		for (Integer beaconId : this.beaconMapper.findAllBeaconIds()) {
+			for (Date month : this.beaconMapper.findBeaconDataArchiveMonths(beaconId, before)) {
+				try {
+					archivedAmount += this.transactionTemplate.execute(status -> this.archiveMonth(beaconId, month));
+				} catch (RuntimeException e) {
+					LOGGER.error("Failed to archive data of beacon {} for month {}: {}", beaconId, month, e.getMessage(), e);
+				}
+			}
+		}
+		
+		LOGGER.info("Archived {} beacon datasets observed before {}", archivedAmount, before);
+		return archivedAmount;
+		
+	}
+	
+	/**
+	 * Data observed before the returned date is archived by {@link #archiveColdData()}.
+	 * As long as {@link #archiveAfterMonths} is not decreased, no beacons' archive
+	 * reaches past this date, so queries starting after it don't need to check the archive.
+	 * @return start of the month {@link #archiveAfterMonths} months ago (UTC)
+	 */
+	public Date findArchiveBoundary() {
+		
+		return Date.from(
+				ZonedDateTime.now(ZoneOffset.UTC)
+				.truncatedTo(ChronoUnit.DAYS)
+				.withDayOfMonth(1)
+				.minusMonths(this.archiveAfterMonths)
+				.toInstant()
+				);
+		
+	}
+	
+	/**
+	 * Move all raw datasets of the given beacon and month into the archive.
+	 * The raw datasets are deleted first and exactly the deleted rows are
+	 * archived, so datasets committed concurrently are either archived
+	 * or stay in the raw table (and are archived by the next run).
+	 * Raw datasets arriving late for an archived month never reach the rollups
+	 * (see {@link BeaconService}), so the rollup hours touched by the archived
+	 * datasets are re-aggregated from the merged month.
+	 * Must be called inside a transaction.
+	 * @return amount of raw datasets archived
+	 */
+	private long archiveMonth(int beaconId, Date month) {
+		
+		final Date monthStart = month;
+		final Date nextMonth = Date.from(month.toInstant().atZone(ZoneOffset.UTC).plusMonths(1).toInstant());
+		
+		final List<BeaconDataset> raw = this.beaconMapper.deleteBeaconData(beaconId, monthStart, nextMonth);
+		if (raw.isEmpty()) {
+			return 0;
+		}
+		raw.sort(Comparator.comparing(BeaconDataset::getObservationDate));
+		
+		List<BeaconDataset> datasets = raw;
+		final BeaconDataArchive existing = this.beaconMapper.findBeaconDataArchive(beaconId, monthStart);
+		if (existing != null) {
+			datasets = this.merge(BeaconDataCodec.decode(existing.getData(), beaconId), raw);
+		}
+		
+		BeaconDataArchive archive = new BeaconDataArchive();
+		archive.setBeaconId(beaconId);
+		archive.setMonthDate(monthStart);
+		archive.setDatasetAmount(datasets.size());
+		archive.setFirstObservationDate(datasets.get(0).getObservationDate());
+		archive.setLastObservationDate(datasets.get(datasets.size() - 1).getObservationDate());
+		archive.setData(BeaconDataCodec.encode(datasets));
+		
+		this.beaconMapper.upsertBeaconDataArchive(archive);
+		this.updateRollups(beaconId, datasets, raw);
+		
+		LOGGER.debug("Archived {} datasets of beacon {} for month {} ({} bytes)", raw.size(), beaconId, monthStart, archive.getData().length);
+		return raw.size();
+		
+	}
+	
+	/**
+	 * Re-aggregate the hourly rollup buckets containing any of the given raw
+	 * datasets from all datasets of the month, and the daily buckets from them.
+	 * @param datasets all datasets of the month, ordered by observation date
+	 * @param raw archived raw datasets, ordered by observation date
+	 */
+	private void updateRollups(int beaconId, List<BeaconDataset> datasets, List<BeaconDataset> raw) {
+		
+		final long hourMs = BeaconDataRollup.HOUR.getBucketSec() * 1000;
+		final Set<Long> hours = new HashSet<>();
+		for (BeaconDataset dataset : raw) {
+			hours.add(Math.floorDiv(dataset.getObservationDate().getTime(), hourMs));
+		}
+		final List<BeaconDataset> affected = new ArrayList<>();
+		for (BeaconDataset dataset : datasets) {
+			if (hours.contains(Math.floorDiv(dataset.getObservationDate().getTime(), hourMs))) {
+				affected.add(dataset);
+			}
+		}
+		
+		this.beaconMapper.upsertBeaconDataRollupHours(
+				beaconId,
+				BeaconDataAggregation.aggregate(affected, BeaconDataRollup.HOUR.getBucketSec())
+				);
+		this.beaconMapper.updateBeaconDataRollupDay(
+				beaconId,
+				raw.get(0).getObservationDate(),
+				raw.get(raw.size() - 1).getObservationDate()
+				);
+		
+	}
+	
+	/**
+	 * Merge raw datasets with archived ones, e.g. late raw datasets into an existing archive.
+	 * Raw datasets with an observation date already present in the archive are dropped.
+	 * @return merged datasets ordered by observation date ascending
+	 */
+	public List<BeaconDataset> merge(List<BeaconDataset> archived, List<BeaconDataset> raw) {
+		
+		List<BeaconDataset> merged = new ArrayList<>(archived.size() + raw.size());
+		merged.addAll(archived);
+		merged.addAll(raw);
+		merged.sort(Comparator.comparing(BeaconDataset::getObservationDate));
+		
+		List<BeaconDataset> distinct = new ArrayList<>(merged.size());
+		for (BeaconDataset dataset : merged) {
+			if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).getObservationDate().equals(dataset.getObservationDate())) {
+				distinct.add(dataset);
+			}
+		}
+		return distinct;
+		
+	}
+	
+	/**
+	 * Read archived datasets of the given beacon.
+	 * If the amount is limited, the newest datasets are returned.
+	 * @param beaconId beacon to get data for
+	 * @param maxDatapoints maximum amount of datasets; -1 for all
+	 * @param timespanMin (optional) earliest observation date
+	 * @param timespanMax (optional) latest observation date
+	 * @return archived datasets ordered by observation date ascending
+	 */
+	public List<BeaconDataset> findArchivedData(int beaconId, int maxDatapoints, Date timespanMin, Date timespanMax) {
+		
+		final List<List<BeaconDataset>> months = new ArrayList<>();
+		int total = 0;
+		
+		for (BeaconDataArchive archive : this.beaconMapper.findBeaconDataArchives(beaconId, timespanMin, timespanMax)) {
+			List<BeaconDataset> datasets = BeaconDataCodec.decode(archive.getData(), beaconId);
+			datasets.removeIf(d ->
+				(timespanMin != null && d.getObservationDate().before(timespanMin)) ||
+				(timespanMax != null && d.getObservationDate().after(timespanMax))
+			);
+			if (maxDatapoints != -1 && total + datasets.size() > maxDatapoints) {
+				datasets = datasets.subList(datasets.size() - (maxDatapoints - total), datasets.size());
+			}
+			months.add(datasets);
+			total += datasets.size();
+			if (maxDatapoints != -1 && total >= maxDatapoints) {
+				break;
+			}
+		}
+		
+		final List<BeaconDataset> result = new ArrayList<>(total);
+		for (int i = months.size() - 1; i >= 0; i--) {
+			result.addAll(months.get(i));
+		}
+		return result;
+		
+	}
+	
+}
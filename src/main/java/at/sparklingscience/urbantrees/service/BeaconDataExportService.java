@@ -0,0 +1,325 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.sparklingscience.urbantrees.UrbantreesApplication;
+import at.sparklingscience.urbantrees.controller.util.Timespan;
+import at.sparklingscience.urbantrees.domain.BeaconDataArchive;
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.exception.BadRequestException;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+import at.sparklingscience.urbantrees.util.BeaconDataCodec;
+
+/**
+ * Streams beacon data of arbitrary size to an output stream.
+ * Raw data is read using a DB cursor and archived data one month
+ * at a time, merged by observation date, so memory usage does not
+ * depend on the amount exported.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconDataExportService {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconDataExportService.class);
+	
+	/**
+	 * Buffer size used for the writer and gzip stream.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private static final String CSV_HEADER = "beacon_id,observation_date,temperature,humidity,dew_point\n";
+	
+	/**
+	 * Formats beacon data can be exported in.
+	 */
+	public enum Format {
+		
+		/**
+		 * Comma-separated values with a header line.
+		 * Observation dates are ISO-8601 instants.
+		 */
+		CSV(new MediaType("text", "csv", UrbantreesApplication.DEFAULT_CHARSET), "csv"),
+		
+		/**
+		 * One JSON-serialized {@link BeaconDataset} per line.
+		 */
+		NDJSON(new MediaType("application", "x-ndjson", UrbantreesApplication.DEFAULT_CHARSET), "ndjson");
+		
+		private final MediaType mediaType;
+		
+		private final String fileExtension;
+		
+		private Format(MediaType mediaType, String fileExtension) {
+			this.mediaType = mediaType;
+			this.fileExtension = fileExtension;
+		}
+		
+		public MediaType getMediaType() {
+			return mediaType;
+		}
+		
+		public String getFileExtension() {
+			return fileExtension;
+		}
+		
+		/**
+		 * @param format format name (case-insensitive); null for {@link #CSV}
+		 * @return matching format
+		 * @throws BadRequestException if the format is unknown
+		 */
+		public static Format parse(String format) {
+			if (format == null) {
+				return CSV;
+			}
+			try {
+				return valueOf(format.toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new BadRequestException("Unknown export format: " + format);
+			}
+		}
+		
+	}
+	
+	@Autowired
+	private BeaconMapper beaconMapper;
+	
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	
+	@Autowired
+	private ObjectMapper jsonObjectMapper;
+	
+	/**
+	 * Write all data of the given beacons in the given timespan to out,
+	 * ordered by beacon (as given) and observation date.
+	 * The header (CSV) is flushed right away, so the client receives
+	 * the first bytes before the first query has finished.
+	 * @param beaconIds beacons to export data of
+	 * @param timespan timespan to export; start and end are optional
+	 * @param format output format
+	 * @param gzip whether to gzip the output
+	 * @param out stream to write to; is not closed
+	 * @throws IOException if writing to out fails
+	 */
+	public void export(List<Integer> beaconIds, Timespan timespan, Format format, boolean gzip, OutputStream out) throws IOException {
+		
+		final GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+		final Writer writer = new BufferedWriter(
+				new OutputStreamWriter(gzip ? gzipOut : out, UrbantreesApplication.DEFAULT_CHARSET),
+				BUFFER_SIZE
+				);
+		final RowWriter rowWriter = format == Format.CSV ? this.csvRowWriter(writer) : this.ndjsonRowWriter(writer);
+		
+		if (format == Format.CSV) {
+			writer.write(CSV_HEADER);
+		}
+		writer.flush();
+		
+		for (Integer beaconId : beaconIds) {
+			final long datasetAmount;
+			try {
+				datasetAmount = this.transactionTemplate.execute(status -> this.exportBeacon(beaconId, timespan, rowWriter));
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			LOGGER.debug("Exported {} datasets of beacon {}", datasetAmount, beaconId);
+		}
+		
+		rowWriter.flush();
+		writer.flush();
+		if (gzipOut != null) {
+			gzipOut.finish();
+		}
+		
+	}
+	
+	/**
+	 * Write archived and raw data of a single beacon, ordered by observation date.
+	 * Raw data arriving late may be older than archived data, so both cursors
+	 * are merged by observation date. Like {@link BeaconDataArchiveService#merge(List, List)},
+	 * raw datasets with an observation date already present in the archive are dropped.
+	 * Must be called inside a transaction for the cursors to stay open.
+	 * @return amount of datasets written
+	 */
+	private long exportBeacon(int beaconId, Timespan timespan, RowWriter rowWriter) {
+		
+		final Date start = timespan.getStart();
+		final Date end = timespan.getEnd();
+		long datasetAmount = 0;
+		
+		try (Cursor<BeaconDataArchive> archives = this.beaconMapper.streamBeaconDataArchives(beaconId, start, end);
+			 Cursor<BeaconDataset> raw = this.beaconMapper.streamBeaconDataByBeaconId(beaconId, start, end)) {
+			
+			final Iterator<BeaconDataset> archivedIt = new ArchivedDatasetIterator(archives.iterator(), beaconId, start, end);
+			final Iterator<BeaconDataset> rawIt = raw.iterator();
+			BeaconDataset archived = archivedIt.hasNext() ? archivedIt.next() : null;
+			BeaconDataset rawDataset = rawIt.hasNext() ? rawIt.next() : null;
+			long lastObservationTime = Long.MIN_VALUE;
+			
+			while (archived != null || rawDataset != null) {
+				final BeaconDataset dataset;
+				if (rawDataset == null || (archived != null
+						&& archived.getObservationDate().getTime() <= rawDataset.getObservationDate().getTime())) {
+					dataset = archived;
+					archived = archivedIt.hasNext() ? archivedIt.next() : null;
+				} else {
+					dataset = rawDataset;
+					rawDataset = rawIt.hasNext() ? rawIt.next() : null;
+				}
+				
+				if (dataset.getObservationDate().getTime() == lastObservationTime) {
+					continue;
+				}
+				lastObservationTime = dataset.getObservationDate().getTime();
+				rowWriter.write(dataset);
+				datasetAmount++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		return datasetAmount;
+		
+	}
+	
+	private RowWriter csvRowWriter(Writer writer) {
+		
+		final StringBuilder row = new StringBuilder(96);
+		return new RowWriter() {
+			@Override
+			public void write(BeaconDataset dataset) throws IOException {
+				row.setLength(0);
+				row.append(dataset.getBeaconId()).append(',')
+					.append(dataset.getObservationDate().toInstant()).append(',')
+					.append(dataset.getTemperature()).append(',')
+					.append(dataset.getHumidity()).append(',')
+					.append(dataset.getDewPoint()).append('\n');
+				writer.append(row);
+			}
+			@Override
+			public void flush() {
+			}
+		};
+		
+	}
+	
+	private RowWriter ndjsonRowWriter(Writer writer) throws IOException {
+		
+		final JsonGenerator generator = this.jsonObjectMapper.getFactory().createGenerator(writer);
+		generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+		generator.setRootValueSeparator(null);
+		
+		return new RowWriter() {
+			@Override
+			public void write(BeaconDataset dataset) throws IOException {
+				jsonObjectMapper.writeValue(generator, dataset);
+				generator.writeRaw('\n');
+			}
+			@Override
+			public void flush() throws IOException {
+				generator.flush();
+			}
+		};
+		
+	}
+	
+	/**
+	 * Iterates over the datasets of archived months in the given timespan,
+	 * decoding one month at a time.
+	 */
+	private static final class ArchivedDatasetIterator implements Iterator<BeaconDataset> {
+		
+		private final Iterator<BeaconDataArchive> archives;
+		
+		private final int beaconId;
+		
+		private final Date start;
+		
+		private final Date end;
+		
+		private Iterator<BeaconDataset> month = Collections.emptyIterator();
+		
+		private BeaconDataset next;
+		
+		private ArchivedDatasetIterator(Iterator<BeaconDataArchive> archives, int beaconId, Date start, Date end) {
+			this.archives = archives;
+			this.beaconId = beaconId;
+			this.start = start;
+			this.end = end;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			
+			while (this.next == null) {
+				if (!this.month.hasNext()) {
+					if (!this.archives.hasNext()) {
+						return false;
+					}
+					this.month = BeaconDataCodec.decode(this.archives.next().getData(), this.beaconId).iterator();
+					continue;
+				}
+				final BeaconDataset dataset = this.month.next();
+				if ((this.start == null || !dataset.getObservationDate().before(this.start))
+						&& (this.end == null || !dataset.getObservationDate().after(this.end))) {
+					this.next = dataset;
+				}
+			}
+			return true;
+			
+		}
+		
+		@Override
+		public BeaconDataset next() {
+			
+			if (!this.hasNext()) {
+				throw new NoSuchElementException();
+			}
+			final BeaconDataset dataset = this.next;
+			this.next = null;
+			return dataset;
+			
+		}
+		
+	}
+	
+	/**
+	 * Writes single datasets in the export format.
+	 */
+	private interface RowWriter {
+		
+		void write(BeaconDataset dataset) throws IOException;
+		
+		/**
+		 * Flush buffered rows to the underlying writer.
+		 */
+		void flush() throws IOException;
+		
+	}
+	
+}
@@ -0,0 +1,242 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import at.sparklingscience.urbantrees.domain.BeaconEvent;
+import at.sparklingscience.urbantrees.domain.BeaconLog;
+import at.sparklingscience.urbantrees.domain.BeaconLogSeverity;
+import at.sparklingscience.urbantrees.domain.BeaconStatus;
+
+/**
+ * In-process event bus pushing beacon status changes, stored readouts
+ * and warning/error logs to subscribed clients using server-sent events.
+ * Events published inside a transaction are only sent after commit.
+ * Every subscriber has a bounded buffer which is drained by a small
+ * dispatcher pool, so slow clients never block publishers. Subscribers
+ * whose buffer overflows are disconnected and are expected to reconnect
+ * and reload the current state.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconEventService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconEventService.class);
+
+	/**
+	 * Amount of threads sending events to subscribers.
+	 */
+	private static final int DISPATCHER_THREADS = 2;
+
+	/**
+	 * Max. amount of events buffered per subscriber.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.eventBufferSize}")
+	private int bufferSize;
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+	private ExecutorService dispatcher;
+
+	@PostConstruct
+	private void start() {
+
+		final AtomicInteger threadNumber = new AtomicInteger();
+		this.dispatcher = Executors.newFixedThreadPool(DISPATCHER_THREADS, r -> {
+			Thread t = new Thread(r, "beacon-event-" + threadNumber.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+
+	}
+
+	@PreDestroy
+	private void stop() {
+
+		this.dispatcher.shutdownNow();
+		for (Subscriber subscriber : this.subscribers) {
+			subscriber.emitter.complete();
+		}
+		this.subscribers.clear();
+
+	}
+
+	/**
+	 * Register a new subscriber. The returned emitter is removed
+	 * once it completes, times out or fails.
+	 * @return emitter to return from the controller
+	 */
+	public SseEmitter subscribe() {
+
+		final Subscriber subscriber = new Subscriber(new SseEmitter(), this.bufferSize);
+		subscriber.emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+		subscriber.emitter.onTimeout(() -> this.subscribers.remove(subscriber));
+		subscriber.emitter.onError(e -> this.subscribers.remove(subscriber));
+		this.subscribers.add(subscriber);
+
+		LOGGER.debug("New beacon event subscriber, {} in total.", this.subscribers.size());
+		return subscriber.emitter;
+
+	}
+
+	/**
+	 * Publish a status change of a beacon. Called by {@link BeaconRegistryService}
+	 * once the change has been committed, so the event is dispatched immediately.
+	 * @param beaconId beacon whose status changed
+	 * @param status new status
+	 */
+	public void statusChanged(long beaconId, BeaconStatus status) {
+		if (!this.subscribers.isEmpty()) {
+			this.dispatch(BeaconEvent.status(beaconId, status));
+		}
+	}
+
+	/**
+	 * Publish a stored readout of a beacon.
+	 * @param beaconId beacon that has been read out
+	 * @param datasetAmount amount of newly stored datasets
+	 */
+	public void readoutStored(long beaconId, int datasetAmount) {
+		this.publish(BeaconEvent.readout(beaconId, datasetAmount));
+	}
+
+	/**
+	 * Publish the given stored logs. Only logs with a severity
+	 * of WARN or ERROR are sent to subscribers.
+	 * @param logs stored logs
+	 */
+	public void logged(List<BeaconLog> logs) {
+
+		if (this.subscribers.isEmpty()) {
+			return;
+		}
+		for (BeaconLog log : logs) {
+			if (log.getSeverity() != null && log.getSeverity().compareTo(BeaconLogSeverity.WARN) <= 0) {
+				this.publish(BeaconEvent.log(log));
+			}
+		}
+
+	}
+
+	/**
+	 * Dispatch the given event now or, if a transaction is active,
+	 * after it has been committed.
+	 */
+	private void publish(BeaconEvent event) {
+
+		if (this.subscribers.isEmpty()) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					dispatch(event);
+				}
+			});
+		} else {
+			this.dispatch(event);
+		}
+
+	}
+
+	private void dispatch(BeaconEvent event) {
+
+		for (Subscriber subscriber : this.subscribers) {
+			if (!subscriber.buffer.offer(event)) {
+				LOGGER.info("Beacon event buffer of subscriber overflowed, disconnecting.");
+				this.subscribers.remove(subscriber);
+				subscriber.emitter.complete();
+				continue;
+			}
+			this.schedule(subscriber);
+		}
+
+	}
+
+	private void schedule(Subscriber subscriber) {
+
+		if (subscriber.scheduled.compareAndSet(false, true)) {
+			try {
+				this.dispatcher.execute(() -> this.drain(subscriber));
+			} catch (RuntimeException e) {
+				subscriber.scheduled.set(false);
+				LOGGER.warn("Could not schedule beacon event dispatch: {}", e.getMessage());
+			}
+		}
+
+	}
+
+	/**
+	 * Send all buffered events of the given subscriber.
+	 */
+	private void drain(Subscriber subscriber) {
+
+		try {
+			BeaconEvent event;
+			while ((event = subscriber.buffer.poll()) != null) {
+				subscriber.emitter.send(
+						SseEmitter.event()
+							.name(event.getType().name().toLowerCase(Locale.ROOT))
+							.data(event, MediaType.APPLICATION_JSON)
+				);
+			}
+		} catch (IOException | IllegalStateException e) {
+			LOGGER.debug("Could not send beacon event, removing subscriber: {}", e.getMessage());
+			this.subscribers.remove(subscriber);
+			subscriber.buffer.clear();
+			return;
+		} finally {
+			subscriber.scheduled.set(false);
+		}
+
+		if (!subscriber.buffer.isEmpty()) {
+			this.schedule(subscriber);
+		}
+
+	}
+
+	/**
+	 * A connected client and its pending events.
+	 */
+	private static final class Subscriber {
+
+		private final SseEmitter emitter;
+
+		private final BlockingQueue<BeaconEvent> buffer;
+
+		/**
+		 * True while a drain of this subscriber is queued or running.
+		 */
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private Subscriber(SseEmitter emitter, int bufferSize) {
+			this.emitter = emitter;
+			this.buffer = new ArrayBlockingQueue<>(bufferSize);
+		}
+
+	}
+
+}
@@ -0,0 +1,259 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import at.sparklingscience.urbantrees.domain.BeaconLog;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+
+/**
+ * Filters beacon logs uploaded by the app before they are stored.
+ * Beacons re-upload overlapping log windows on every readout, so logs
+ * already seen recently are dropped (keyed on beacon, event date, type
+ * and message). Additionally, every beacon has a token bucket limiting
+ * the amount of logs stored over time. Logs of unknown beacons are dropped.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconLogIngestService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconLogIngestService.class);
+
+	@Autowired
+	private BeaconMapper beaconMapper;
+
+	@Autowired
+	private BeaconEventService beaconEventService;
+
+	@Autowired
+	private BeaconRegistryService beaconRegistryService;
+
+	/**
+	 * If false, every log passing the rate limit is stored.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.logDedupe}")
+	private boolean dedupe;
+
+	/**
+	 * Amount of log keys remembered per beacon.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.logDedupeWindow}")
+	private int dedupeWindow;
+
+	/**
+	 * Max. amount of logs a beacon may send at once.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.logRateBurst}")
+	private int rateBurst;
+
+	/**
+	 * Amount of logs a beacon may send per minute on average.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.logRatePerMin}")
+	private int ratePerMin;
+
+	/**
+	 * Max. amount of beacons whose dedupe and rate-limit state is kept.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.logWindowCacheSize}")
+	private int windowCacheSize;
+
+	/**
+	 * Dedupe and rate-limit state by beacon id.
+	 * The state of the least recently active beacons is dropped
+	 * once more than {@link #windowCacheSize} are known.
+	 */
+	private final LinkedHashMap<Integer, BeaconLogWindow> windows = new LinkedHashMap<Integer, BeaconLogWindow>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, BeaconLogWindow> eldest) {
+			return this.size() > windowCacheSize;
+		}
+	};
+
+	/**
+	 * Store all given logs that have not been seen recently and
+	 * are within their beacons' rate limit. If called inside a transaction,
+	 * dropped keys are forgotten again if it is rolled back.
+	 * @param logs logs to store (of any amount of beacons)
+	 * @return amount of logs stored
+	 */
+	public int insert(List<BeaconLog> logs) {
+
+		final long now = System.nanoTime();
+		final List<BeaconLog> accepted = new ArrayList<>(logs.size());
+		final Map<BeaconLogWindow, List<Long>> remembered = new HashMap<>();
+		int duplicates = 0, limited = 0, unknown = 0;
+
+		for (BeaconLog log : logs) {
+			if (this.beaconRegistryService.findById(log.getBeaconId()) == null) {
+				unknown++;
+				continue;
+			}
+			final BeaconLogWindow window;
+			synchronized (this.windows) {
+				window = this.windows.computeIfAbsent(
+						log.getBeaconId(),
+						id -> new BeaconLogWindow(this.dedupeWindow, this.rateBurst, this.ratePerMin)
+				);
+			}
+			final long key = key(log);
+			synchronized (window) {
+				if (this.dedupe && !window.remember(key)) {
+					duplicates++;
+					continue;
+				}
+				if (!window.tryAcquire(now)) {
+					if (this.dedupe) {
+						window.forget(key);
+					}
+					limited++;
+					continue;
+				}
+			}
+			accepted.add(log);
+			if (this.dedupe) {
+				remembered.computeIfAbsent(window, w -> new ArrayList<>()).add(key);
+			}
+		}
+
+		if (unknown > 0) {
+			LOGGER.warn("Dropped {} beacon logs of unknown beacons.", unknown);
+		}
+		if (limited > 0) {
+			LOGGER.warn("Dropped {} beacon logs exceeding the rate limit.", limited);
+		}
+		LOGGER.debug("Received {} beacon logs: {} duplicates, {} rate-limited, {} of unknown beacons.", logs.size(), duplicates, limited, unknown);
+
+		if (accepted.isEmpty()) {
+			return 0;
+		}
+
+		if (!remembered.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status != STATUS_COMMITTED) {
+						remembered.forEach((window, keys) -> {
+							synchronized (window) {
+								keys.forEach(window::forget);
+							}
+						});
+					}
+				}
+			});
+		}
+
+		this.beaconMapper.insertBeaconLogs(accepted);
+		this.beaconEventService.logged(accepted);
+		return accepted.size();
+
+	}
+
+	/**
+	 * Dedupe key of the given log. The beacon id is not part of it,
+	 * since keys are stored per beacon.
+	 */
+	private static long key(BeaconLog log) {
+
+		long h = 0xcbf29ce484222325L;
+		h = fnv(h, log.getEventDate() == null ? 0 : log.getEventDate().getTime());
+		h = fnv(h, log.getType() == null ? -1 : log.getType().ordinal());
+		final String message = log.getMessage();
+		if (message != null) {
+			for (int i = 0; i < message.length(); i++) {
+				h = fnv(h, message.charAt(i));
+			}
+		}
+		return h;
+
+	}
+
+	/**
+	 * 64-bit FNV-1a step over all bytes of the given value.
+	 */
+	private static long fnv(long h, long value) {
+		for (int i = 0; i < Long.BYTES; i++) {
+			h ^= (value >>> (i * 8)) & 0xff;
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+
+	/**
+	 * Recently seen log keys and the token bucket of a single beacon.
+	 * Not thread-safe; callers synchronize on the instance.
+	 */
+	private static class BeaconLogWindow {
+
+		private final LinkedHashSet<Long> recentKeys = new LinkedHashSet<>();
+
+		private final int maxKeys;
+
+		private final double capacity;
+
+		private final double tokensPerNano;
+
+		private double tokens;
+
+		private long lastRefill;
+
+		BeaconLogWindow(int maxKeys, int capacity, int perMin) {
+			this.maxKeys = maxKeys;
+			this.capacity = capacity;
+			this.tokensPerNano = perMin / (double) TimeUnit.MINUTES.toNanos(1);
+			this.tokens = capacity;
+			this.lastRefill = System.nanoTime();
+		}
+
+		/**
+		 * @return true if the key was not yet known
+		 */
+		boolean remember(long key) {
+			if (!this.recentKeys.add(key)) {
+				return false;
+			}
+			if (this.recentKeys.size() > this.maxKeys) {
+				Iterator<Long> oldest = this.recentKeys.iterator();
+				oldest.next();
+				oldest.remove();
+			}
+			return true;
+		}
+
+		void forget(long key) {
+			this.recentKeys.remove(key);
+		}
+
+		boolean tryAcquire(long now) {
+			if (now > this.lastRefill) {
+				this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefill) * this.tokensPerNano);
+				this.lastRefill = now;
+			}
+			if (this.tokens < 1) {
+				return false;
+			}
+			this.tokens--;
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,446 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import at.sparklingscience.urbantrees.domain.BeaconReadoutResult;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutState;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutStatus;
+import at.sparklingscience.urbantrees.exception.BadRequestException;
+import at.sparklingscience.urbantrees.exception.InternalException;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+
+/**
+ * Asynchronous ingest of beacon readouts.
+ * Readouts are written to an on-disk journal and acknowledged immediately.
+ * A bounded pool of workers drains the journal into the DB in batches
+ * using {@link BeaconService}. Journaled readouts that have not been
+ * processed before shutdown are picked up again on the next start.
+ * Readout ids are stored in the DB together with the readouts' data,
+ * so every readout is inserted at most once, even if it is queued again
+ * after its status was dropped from memory or on another instance.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconReadoutQueueService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconReadoutQueueService.class);
+
+	/**
+	 * The journal directory relative to the service working directory.
+	 */
+	public static final Path JOURNAL_ROOT = Path.of("data", "beacon_readout");
+
+	/**
+	 * File suffix of journaled readouts waiting for processing.
+	 */
+	private static final String QUEUED_SUFFIX = ".json";
+
+	/**
+	 * File suffix of journaled readouts that failed to be inserted.
+	 */
+	private static final String FAILED_SUFFIX = ".failed";
+
+	/**
+	 * File suffix of journal entries that are still being written.
+	 */
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	/**
+	 * Amount of readout statuses kept in memory for polling.
+	 * Once exceeded, the oldest statuses are dropped and
+	 * inserted readouts are looked up in the DB instead.
+	 */
+	private static final int MAX_KNOWN_STATUSES = 10_000;
+
+	@Autowired
+	private BeaconService beaconService;
+
+	@Autowired
+	private BeaconMapper beaconMapper;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper jsonObjectMapper;
+
+	@Value("${at.sparklingscience.urbantrees.beacon.asyncWorkers}")
+	private int workerAmount;
+
+	@Value("${at.sparklingscience.urbantrees.beacon.asyncBatchSize}")
+	private int batchSize;
+
+	@Value("${at.sparklingscience.urbantrees.beacon.asyncMaxPending}")
+	private int maxPending;
+
+	/**
+	 * Mapper for journal entries. Dates are written as timestamps
+	 * so no precision is lost.
+	 */
+	private ObjectMapper journalMapper;
+
+	/**
+	 * IDs of journaled readouts waiting for processing.
+	 */
+	private final BlockingQueue<UUID> pending = new LinkedBlockingQueue<>();
+
+	/**
+	 * Last known status of recent readouts.
+	 */
+	private final Map<UUID, BeaconReadoutStatus> statuses = Collections.synchronizedMap(
+			new LinkedHashMap<UUID, BeaconReadoutStatus>() {
+				private static final long serialVersionUID = 20261017L;
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<UUID, BeaconReadoutStatus> eldest) {
+					return this.size() > MAX_KNOWN_STATUSES;
+				}
+			}
+	);
+
+	private ExecutorService workers;
+
+	@PostConstruct
+	public void start() throws IOException {
+
+		this.journalMapper = this.jsonObjectMapper.copy().enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+		Files.createDirectories(JOURNAL_ROOT);
+
+		try (Stream<Path> files = Files.list(JOURNAL_ROOT)) {
+			files
+				.filter(f -> f.getFileName().toString().endsWith(QUEUED_SUFFIX))
+				.sorted(Comparator.comparingLong(f -> f.toFile().lastModified()))
+				.forEach(f -> {
+					final String fileName = f.getFileName().toString();
+					this.pending.add(UUID.fromString(fileName.substring(0, fileName.length() - QUEUED_SUFFIX.length())));
+				});
+		}
+		if (!this.pending.isEmpty()) {
+			LOGGER.info("Re-queued {} journaled beacon readouts.", this.pending.size());
+		}
+
+		final AtomicInteger threadNumber = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(
+				this.workerAmount,
+				r -> new Thread(r, "beacon-readout-" + threadNumber.incrementAndGet())
+		);
+		for (int i = 0; i < this.workerAmount; i++) {
+			this.workers.execute(this::work);
+		}
+
+	}
+
+	/**
+	 * Stop all workers. Readouts currently being processed are rolled back
+	 * and stay in the journal.
+	 */
+	@PreDestroy
+	public void stop() {
+		this.workers.shutdownNow();
+	}
+
+	/**
+	 * Journal the given readout result for asynchronous insertion.
+	 * If an idempotency key is given and a readout with this id is
+	 * already known, its status is returned and nothing is queued.
+	 * @param beaconId beacon the readout belongs to
+	 * @param result datasets and settings read from the beacon
+	 * @param idempotencyKey (optional) client-chosen readout id
+	 * @param auth current user
+	 * @return status of the queued readout
+	 * @throws BadRequestException if the idempotency key is used for another beacon
+	 * @throws ResponseStatusException if too many readouts are pending
+	 * @throws InternalException if the readout could not be journaled
+	 */
+	public @NonNull BeaconReadoutStatus enqueue(int beaconId,
+												@NonNull BeaconReadoutResult result,
+												@Nullable UUID idempotencyKey,
+												Authentication auth) {
+
+		final UUID readoutId = idempotencyKey == null ? UUID.randomUUID() : idempotencyKey;
+		if (idempotencyKey != null) {
+			BeaconReadoutStatus known = this.findStatus(idempotencyKey);
+			if (known != null) {
+				return this.assertSameBeacon(known, beaconId);
+			}
+		}
+		if (this.pending.size() >= this.maxPending) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many pending beacon readouts.");
+		}
+
+		final BeaconReadoutStatus status = new BeaconReadoutStatus(readoutId, beaconId, BeaconReadoutState.QUEUED);
+		final BeaconReadoutStatus known = this.statuses.putIfAbsent(readoutId, status);
+		if (known != null) {
+			return this.assertSameBeacon(known, beaconId);
+		}
+
+		try {
+			this.writeJournal(new JournalEntry(
+					readoutId,
+					beaconId,
+					result,
+					System.currentTimeMillis(),
+					this.beaconService.rewardUserIds(auth)
+			));
+		} catch (IOException e) {
+			this.statuses.remove(readoutId);
+			throw new InternalException("Failed to journal readout for beacon " + beaconId, e);
+		}
+		this.pending.add(readoutId);
+
+		LOGGER.debug("Queued readout {} for beacon {}", readoutId, beaconId);
+
+		return status;
+
+	}
+
+	/**
+	 * Get the status of the readout with given id.
+	 * Recent statuses are held in memory; otherwise the journal
+	 * and the readout ids stored in the DB are checked.
+	 * @param readoutId id returned by {@link #enqueue(int, BeaconReadoutResult, UUID, Authentication)}
+	 * @return the readouts' status or null if it is unknown
+	 */
+	public @Nullable BeaconReadoutStatus findStatus(@NonNull UUID readoutId) {
+
+		BeaconReadoutStatus status = this.statuses.get(readoutId);
+		if (status != null) {
+			return status;
+		}
+
+		try {
+			if (Files.exists(this.journalFile(readoutId, QUEUED_SUFFIX))) {
+				JournalEntry entry = this.readJournal(readoutId, QUEUED_SUFFIX);
+				return new BeaconReadoutStatus(readoutId, entry.beaconId, BeaconReadoutState.QUEUED);
+			}
+			if (Files.exists(this.journalFile(readoutId, FAILED_SUFFIX))) {
+				JournalEntry entry = this.readJournal(readoutId, FAILED_SUFFIX);
+				return new BeaconReadoutStatus(readoutId, entry.beaconId, BeaconReadoutState.FAILED);
+			}
+		} catch (IOException e) {
+			throw new InternalException("Failed to read journaled readout " + readoutId, e);
+		}
+
+		final Integer beaconId = this.beaconMapper.findBeaconReadoutBeaconId(readoutId);
+		if (beaconId != null) {
+			return new BeaconReadoutStatus(readoutId, beaconId, BeaconReadoutState.DONE);
+		}
+		return null;
+
+	}
+
+	/**
+	 * Worker loop: takes up to {@link #batchSize} pending readouts at
+	 * once and processes them until interrupted.
+	 */
+	private void work() {
+
+		final List<UUID> batch = new ArrayList<>(this.batchSize);
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				batch.clear();
+				batch.add(this.pending.take());
+				this.pending.drainTo(batch, this.batchSize - 1);
+				this.process(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (Throwable t) {
+				LOGGER.error("Unexpected error in beacon readout worker: {}", t.getMessage(), t);
+			}
+		}
+
+	}
+
+	/**
+	 * Insert the given journaled readouts in a single transaction.
+	 * If that fails, each readout is retried in its own transaction
+	 * so only the faulty ones are marked as failed.
+	 */
+	private void process(List<UUID> batch) throws IOException {
+
+		final List<JournalEntry> entries = new ArrayList<>(batch.size());
+		for (UUID readoutId : batch) {
+			if (!Files.exists(this.journalFile(readoutId, QUEUED_SUFFIX))) {
+				continue; // already processed
+			}
+			final JournalEntry entry = this.readJournal(readoutId, QUEUED_SUFFIX);
+			entries.add(entry);
+			this.updateStatus(readoutId, entry.beaconId, BeaconReadoutState.PROCESSING);
+		}
+		if (entries.isEmpty()) {
+			return;
+		}
+
+		try {
+			this.transactionTemplate.executeWithoutResult(s -> entries.forEach(this::insert));
+			for (JournalEntry entry : entries) {
+				this.complete(entry);
+			}
+			return;
+		} catch (Throwable t) {
+			if (entries.size() == 1) {
+				this.fail(entries.get(0), t);
+				return;
+			}
+			LOGGER.warn("Inserting batch of {} readouts failed, retrying one by one: {}", entries.size(), t.getMessage());
+		}
+
+		for (JournalEntry entry : entries) {
+			try {
+				this.transactionTemplate.executeWithoutResult(s -> this.insert(entry));
+				this.complete(entry);
+			} catch (Throwable t) {
+				this.fail(entry, t);
+			}
+		}
+
+	}
+
+	/**
+	 * Insert the given readout unless a readout with the same id has already been inserted.
+	 * Must be called inside a transaction.
+	 */
+	private void insert(JournalEntry entry) {
+
+		if (this.beaconMapper.insertBeaconReadoutId(entry.readoutId, entry.beaconId) == 0) {
+			LOGGER.debug("Readout {} for beacon {} has already been inserted, skipping.", entry.readoutId, entry.beaconId);
+			return;
+		}
+		this.beaconService.insertReadoutResult(entry.beaconId, entry.result, entry.receiveTime, entry.rewardUserIds);
+
+	}
+
+	private void complete(JournalEntry entry) throws IOException {
+		Files.deleteIfExists(this.journalFile(entry.readoutId, QUEUED_SUFFIX));
+		this.updateStatus(entry.readoutId, entry.beaconId, BeaconReadoutState.DONE);
+		LOGGER.debug("Inserted readout {} for beacon {}", entry.readoutId, entry.beaconId);
+	}
+
+	private void fail(JournalEntry entry, Throwable t) throws IOException {
+		LOGGER.error("Failed to insert readout {} for beacon {}: {}", entry.readoutId, entry.beaconId, t.getMessage(), t);
+		Files.move(
+				this.journalFile(entry.readoutId, QUEUED_SUFFIX),
+				this.journalFile(entry.readoutId, FAILED_SUFFIX),
+				StandardCopyOption.REPLACE_EXISTING
+		);
+		this.updateStatus(entry.readoutId, entry.beaconId, BeaconReadoutState.FAILED);
+	}
+
+	private void updateStatus(UUID readoutId, int beaconId, BeaconReadoutState state) {
+		this.statuses.put(readoutId, new BeaconReadoutStatus(readoutId, beaconId, state));
+	}
+
+	private BeaconReadoutStatus assertSameBeacon(BeaconReadoutStatus status, int beaconId) {
+		if (status.getBeaconId() != beaconId) {
+			throw new BadRequestException("Readout id " + status.getReadoutId() + " is already used for another beacon.");
+		}
+		return status;
+	}
+
+	private Path journalFile(UUID readoutId, String suffix) {
+		return JOURNAL_ROOT.resolve(readoutId.toString() + suffix);
+	}
+
+	/**
+	 * Durably write the given entry to the journal. The entry is written
+	 * to a temporary file first and atomically moved in place once it has
+	 * been flushed to disk.
+	 */
+	private void writeJournal(JournalEntry entry) throws IOException {
+
+		final Path tempFile = this.journalFile(entry.readoutId, TEMP_SUFFIX);
+		final ByteBuffer bytes = ByteBuffer.wrap(this.journalMapper.writeValueAsBytes(entry));
+		try (FileChannel channel = FileChannel.open(
+				tempFile,
+				StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			channel.force(true);
+		}
+		Files.move(
+				tempFile,
+				this.journalFile(entry.readoutId, QUEUED_SUFFIX),
+				StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING
+		);
+
+	}
+
+	private JournalEntry readJournal(UUID readoutId, String suffix) throws IOException {
+		return this.journalMapper.readValue(this.journalFile(readoutId, suffix).toFile(), JournalEntry.class);
+	}
+
+	/**
+	 * Single readout as stored in the journal.
+	 */
+	private static class JournalEntry {
+
+		private UUID readoutId;
+
+		private int beaconId;
+
+		private BeaconReadoutResult result;
+
+		/**
+		 * When the readout was received (epoch millis).
+		 * {@link BeaconReadoutResult#getTimeSinceDataReadoutMs()} is relative to this.
+		 */
+		private long receiveTime;
+
+		private int[] rewardUserIds;
+
+		@SuppressWarnings("unused")
+		private JournalEntry() {}
+
+		private JournalEntry(UUID readoutId, int beaconId, BeaconReadoutResult result, long receiveTime, int[] rewardUserIds) {
+			this.readoutId = readoutId;
+			this.beaconId = beaconId;
+			this.result = result;
+			this.receiveTime = receiveTime;
+			this.rewardUserIds = rewardUserIds;
+		}
+
+	}
+
+}
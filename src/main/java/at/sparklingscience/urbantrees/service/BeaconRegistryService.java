@@ -0,0 +1,281 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import at.sparklingscience.urbantrees.domain.Beacon;
+import at.sparklingscience.urbantrees.domain.BeaconStatus;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+
+/**
+ * In-memory registry of all beacons, indexed by id, bluetooth address
+ * and status. Beacons change rarely but are looked up on every app scan,
+ * so the whole registry is loaded at startup and reloaded after changes
+ * instead of querying the DB (plus nested location and tree selects)
+ * on every lookup.
+ * Returned beacons are shared between callers and must not be modified.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconRegistryService {
+	
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconRegistryService.class);
+	
+	@Autowired
+	private BeaconMapper beaconMapper;
+	
+	@Autowired
+	private BeaconEventService beaconEventService;
+	
+	@Autowired
+	private TreeCatalogueService treeCatalogueService;
+	
+	/**
+	 * Current registry contents. Replaced as a whole on reload;
+	 * null until loaded successfully.
+	 */
+	private volatile Snapshot snapshot;
+	
+	/**
+	 * True if beacons changed but the reload failed,
+	 * so the next lookup retries it.
+	 */
+	private volatile boolean dirty;
+	
+	@PostConstruct
+	private void start() {
+		try {
+			this.reload();
+		} catch (RuntimeException e) {
+			// retried on first lookup
+		}
+	}
+	
+	/**
+	 * @return all beacons that are not deleted, ordered by id
+	 */
+	public List<Beacon> findAllActive() {
+		return this.snapshot().active;
+	}
+	
+	/**
+	 * @param status status to filter by
+	 * @return all beacons having the given status, ordered by id
+	 */
+	public List<Beacon> findAllByStatus(BeaconStatus status) {
+		return this.snapshot().byStatus.getOrDefault(status, Collections.emptyList());
+	}
+	
+	/**
+	 * @param beaconId id of the beacon
+	 * @return the beacon or null if it does not exist or is deleted
+	 */
+	public Beacon findById(long beaconId) {
+		return this.snapshot().byId.get(beaconId);
+	}
+	
+	/**
+	 * @param address bluetooth address of the beacon
+	 * @return the beacon or null if it does not exist or is deleted
+	 */
+	public Beacon findByAddress(String address) {
+		return this.snapshot().byAddress.get(address);
+	}
+	
+	/**
+	 * Reload the registry after beacons (or their trees or locations) have changed.
+	 * If called inside a transaction, the reload happens after commit,
+	 * so uncommitted or rolled back changes never become visible.
+	 * If the reload fails, the change is already committed, so the error
+	 * is only logged and the reload is retried on the next lookup.
+	 */
+	public void invalidate() {
+		
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					tryReload();
+				}
+			});
+		} else {
+			this.tryReload();
+		}
+		
+	}
+	
+	/**
+	 * Reload the registry if the given status differs from the registered one.
+	 * Used after status updates, which mostly re-set the current status.
+	 * @param beaconId beacon whose status was updated
+	 * @param status new status
+	 */
+	public void statusUpdated(long beaconId, BeaconStatus status) {
+		
+		final Beacon beacon = this.findById(beaconId);
+		if (beacon == null || beacon.getStatus() != status) {
+			this.invalidate();
+		}
+		
+	}
+	
+	/**
+	 * Reload the registry if the given status differs from the registered
+	 * status of any of the given beacons.
+	 * @param beaconIds beacons whose status was updated
+	 * @param status new status
+	 */
+	public void statusUpdated(Collection<Integer> beaconIds, BeaconStatus status) {
+		
+		for (Integer beaconId : beaconIds) {
+			final Beacon beacon = this.findById(beaconId);
+			if (beacon == null || beacon.getStatus() != status) {
+				this.invalidate();
+				return;
+			}
+		}
+		
+	}
+	
+	/**
+	 * @return the current snapshot, reloaded first if it is missing or outdated
+	 * @throws RuntimeException if nothing has been loaded yet and loading fails
+	 */
+	private Snapshot snapshot() {
+		
+		Snapshot current = this.snapshot;
+		if (current == null || this.dirty) {
+			try {
+				current = this.reloadIfOutdated();
+			} catch (RuntimeException e) {
+				if (current == null) {
+					throw e;
+				}
+				// serve the outdated snapshot, retried on the next lookup
+			}
+		}
+		return current;
+		
+	}
+	
+	/**
+	 * Reload unless another thread did so while waiting for the lock.
+	 */
+	private synchronized Snapshot reloadIfOutdated() {
+		if (this.snapshot != null && !this.dirty) {
+			return this.snapshot;
+		}
+		return this.reload();
+	}
+	
+	/**
+	 * {@link #reload()} without propagating errors;
+	 * on failure, the reload is retried on the next lookup.
+	 */
+	private void tryReload() {
+		try {
+			this.reload();
+		} catch (RuntimeException e) {
+			// logged and marked dirty by reload
+		}
+	}
+	
+	/**
+	 * Load all beacons from the DB and replace the snapshot.
+	 * Status changes compared to the previous snapshot are published
+	 * to {@link BeaconEventService}. Since trees hold their beacons, the
+	 * {@link TreeCatalogueService} is invalidated as well.
+	 * If loading fails, the previous snapshot is kept and marked dirty.
+	 */
+	private synchronized Snapshot reload() {
+		
+		this.dirty = false;
+		try {
+			final Snapshot previous = this.snapshot;
+			final Snapshot loaded = new Snapshot(this.beaconMapper.findAllBeacons());
+			this.snapshot = loaded;
+			LOGGER.debug("Loaded {} beacons into registry", loaded.byId.size());
+			if (previous != null) {
+				this.treeCatalogueService.invalidate();
+				loaded.statusById.forEach((beaconId, status) -> {
+					if (status != previous.statusById.get(beaconId)) {
+						this.beaconEventService.statusChanged(beaconId, status);
+					}
+				});
+			}
+			return loaded;
+		} catch (RuntimeException e) {
+			this.dirty = true;
+			LOGGER.error("Failed to load beacon registry: {}", e.getMessage(), e);
+			throw e;
+		}
+		
+	}
+	
+	/**
+	 * Immutable indexes over all beacons.
+	 */
+	private static final class Snapshot {
+		
+		private final List<Beacon> active;
+		
+		private final Map<Long, Beacon> byId;
+		
+		private final Map<String, Beacon> byAddress;
+		
+		private final Map<BeaconStatus, List<Beacon>> byStatus;
+		
+		/**
+		 * Status of every beacon, including deleted ones.
+		 */
+		private final Map<Long, BeaconStatus> statusById;
+		
+		private Snapshot(List<Beacon> beacons) {
+			
+			final List<Beacon> active = new ArrayList<>(beacons.size());
+			final Map<Long, Beacon> byId = new HashMap<>();
+			final Map<String, Beacon> byAddress = new HashMap<>();
+			final Map<BeaconStatus, List<Beacon>> byStatus = new EnumMap<>(BeaconStatus.class);
+			final Map<Long, BeaconStatus> statusById = new HashMap<>();
+			
+			for (Beacon beacon : beacons) {
+				statusById.put(beacon.getId(), beacon.getStatus());
+				byStatus.computeIfAbsent(beacon.getStatus(), s -> new ArrayList<>()).add(beacon);
+				if (beacon.getStatus() == BeaconStatus.DELETED) {
+					continue;
+				}
+				active.add(beacon);
+				byId.put(beacon.getId(), beacon);
+				if (beacon.getBluetoothAddress() != null) {
+					byAddress.put(beacon.getBluetoothAddress(), beacon);
+				}
+			}
+			byStatus.replaceAll((status, list) -> Collections.unmodifiableList(list));
+			
+			this.active = Collections.unmodifiableList(active);
+			this.byId = byId;
+			this.byAddress = byAddress;
+			this.byStatus = byStatus;
+			this.statusById = statusById;
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,980 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.sparklingscience.urbantrees.UrbantreesApplication;
+import at.sparklingscience.urbantrees.controller.util.ControllerUtil;
+import at.sparklingscience.urbantrees.controller.util.Timespan;
+import at.sparklingscience.urbantrees.domain.BeaconDataRollup;
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconDatasetAggregate;
+import at.sparklingscience.urbantrees.domain.BeaconLog;
+import at.sparklingscience.urbantrees.domain.BeaconLogSeverity;
+import at.sparklingscience.urbantrees.domain.BeaconLogType;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutBatchEntry;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutBatchResult;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutResult;
+import at.sparklingscience.urbantrees.domain.BeaconSettings;
+import at.sparklingscience.urbantrees.domain.BeaconStatus;
+import at.sparklingscience.urbantrees.domain.UserLevelAction;
+import at.sparklingscience.urbantrees.domain.UserLevelActionContext;
+import at.sparklingscience.urbantrees.domain.validator.ValidationGroups;
+import at.sparklingscience.urbantrees.exception.BadRequestException;
+import at.sparklingscience.urbantrees.exception.InternalException;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+import at.sparklingscience.urbantrees.util.BeaconDataAggregation;
+import at.sparklingscience.urbantrees.util.BeaconTimeline;
+
+/**
+ * Service for beacon-related actions like data readouts.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BeaconService.class);
+
+	/**
+	 * COPY statement used to bulk-load datasets into the staging table.
+	 * Column order must match {@link #appendDataCsvRow(StringBuilder, long, BeaconDataset)}.
+	 */
+	private static final String COPY_DATA_STAGING_SQL =
+			"copy pg_temp.beacon_data_staging (beacon_id, humidity, temperature, dew_point, observe_dat) from stdin with (format csv)";
+
+	/**
+	 * COPY statement used to stage streamed readout datasets.
+	 * Column order must match {@link #appendReadoutCsvRow(StringBuilder, int, BeaconDataset)}.
+	 */
+	private static final String COPY_READOUT_STAGING_SQL =
+			"copy pg_temp.beacon_readout_staging (ordinal, humidity, temperature, dew_point) from stdin with (format csv)";
+
+	/**
+	 * Smallest bucket width allowed for aggregated data queries.
+	 */
+	private static final long MIN_BUCKET_SEC = 60;
+
+	/**
+	 * Amount of buckets targeted by the automatic bucket width if the
+	 * caller gives no limit.
+	 */
+	private static final int DEFAULT_AUTO_BUCKETS = 500;
+
+	/**
+	 * Explicit bucket widths: amount followed by unit (m, h or d).
+	 */
+	private static final Pattern BUCKET_PATTERN = Pattern.compile("^(\\d+)([mhd])$");
+
+	/**
+	 * Properties of datasets sent by beacons in a readout (observation dates are calculated).
+	 */
+	private static final String[] READOUT_DATASET_PROPERTIES = {"humidity", "temperature", "dewPoint"};
+
+	/**
+	 * Value of the bucket parameter selecting the width automatically.
+	 */
+	public static final String BUCKET_AUTO = "auto";
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private BeaconMapper beaconMapper;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private BeaconDataArchiveService beaconDataArchiveService;
+
+	@Autowired
+	private BeaconRegistryService beaconRegistryService;
+
+	@Autowired
+	private BeaconSettingsService beaconSettingsService;
+
+	@Autowired
+	private BeaconEventService beaconEventService;
+
+	@Autowired
+	private BeaconAnomalyService beaconAnomalyService;
+
+	@Autowired
+	private ObjectMapper jsonObjectMapper;
+
+	@Autowired
+	private Validator validator;
+
+	/**
+	 * If more datasets than this are inserted at once, they are
+	 * streamed to the DB using COPY instead of a multi-row insert.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.copyIngestThreshold}")
+	private int copyIngestThreshold;
+
+	/**
+	 * Amount of datasets held in memory by
+	 * {@link #insertReadoutResult(int, InputStream, Authentication)}
+	 * before they are validated and sent to the DB.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.streamChunkSize}")
+	private int streamChunkSize;
+
+	/**
+	 * Max. duration of an upload to
+	 * {@link #insertReadoutResult(int, InputStream, Authentication)},
+	 * which keeps its transaction open while reading.
+	 */
+	@Value("${at.sparklingscience.urbantrees.beacon.streamMaxDurationSec}")
+	private int streamMaxDurationSec;
+
+	/**
+	 * Store the given readout result of a beacon.
+	 * Reconstructs the observation dates of all datasets, inserts them
+	 * together with the read settings, sets the beacon status to OK and
+	 * rewards the current user.
+	 * @param beaconId beacon the readout belongs to
+	 * @param result datasets and settings read from the beacon
+	 * @param auth current user
+	 */
+	@Transactional
+	public void insertReadoutResult(int beaconId, BeaconReadoutResult result, Authentication auth) {
+		this.insertReadoutResult(beaconId, result, System.currentTimeMillis(), this.rewardUserIds(auth));
+	}
+
+	/**
+	 * Store the given readout result of a beacon.
+	 * @param beaconId beacon the readout belongs to
+	 * @param result datasets and settings read from the beacon
+	 * @param receiveTime epoch millis when the result was received from the
+	 * 					  client ({@link BeaconReadoutResult#getTimeSinceDataReadoutMs()}
+	 * 					  is relative to this)
+	 * @param rewardUserIds users to reward for the readout (may be empty)
+	 * @see #insertReadoutResult(int, BeaconReadoutResult, Authentication)
+	 */
+	@Transactional
+	public void insertReadoutResult(int beaconId, BeaconReadoutResult result, long receiveTime, int[] rewardUserIds) {
+
+		final List<BeaconDataset> datasets = this.assignObservationDates(beaconId, result, receiveTime);
+		this.insertDatasets(beaconId, datasets);
+		this.finishReadout(beaconId, result.getSettings(), datasets.size(), rewardUserIds);
+
+	}
+
+	/**
+	 * Store the readout results of multiple beacons at once.
+	 * Entries that can't be stored (unknown beacon, missing settings, ...)
+	 * are rejected individually, all others are stored together:
+	 * the newest stored dates, hourly and daily rollups and logs use one
+	 * statement each, datasets one COPY, settings one multi-row insert,
+	 * statuses one update and XP one insert per rewarded user.
+	 * @param entries readout results including their beacon ids
+	 * @param auth current user
+	 * @return one result per entry, in order
+	 */
+	@Transactional
+	public List<BeaconReadoutBatchResult> insertReadoutResults(List<BeaconReadoutBatchEntry> entries, Authentication auth) {
+
+		final long receiveTime = System.currentTimeMillis();
+		final List<BeaconReadoutBatchResult> results = new ArrayList<>(entries.size());
+		final List<BeaconReadoutBatchEntry> accepted = new ArrayList<>(entries.size());
+		final Set<Integer> beaconIds = new HashSet<>();
+		int datasetAmount = 0;
+
+		for (BeaconReadoutBatchEntry entry : entries) {
+			final String rejection = this.validateBatchEntry(entry, beaconIds);
+			if (rejection != null) {
+				results.add(BeaconReadoutBatchResult.rejected(entry == null ? 0 : entry.getBeaconId(), rejection));
+				continue;
+			}
+			results.add(BeaconReadoutBatchResult.accepted(entry.getBeaconId(), entry.getDatasets().size()));
+			accepted.add(entry);
+		}
+
+		if (accepted.isEmpty()) {
+			return results;
+		}
+
+		final Map<Integer, Date> newestStored = new HashMap<>();
+		for (BeaconDataset last : this.beaconMapper.findLastBeaconDataDates(beaconIds)) {
+			newestStored.put(last.getBeaconId(), last.getObservationDate());
+		}
+		final List<BeaconLog> logs = new ArrayList<>();
+		for (BeaconReadoutBatchEntry entry : accepted) {
+			final BeaconTimeline timeline = this.assignTimeline(entry, receiveTime);
+			final Date entryNewestStored = newestStored.get(entry.getBeaconId());
+			final BeaconLog gapLog = this.gapLog(entry.getBeaconId(), timeline, entryNewestStored);
+			if (gapLog != null) {
+				logs.add(gapLog);
+			}
+			final int overlap = this.overlap(entry.getBeaconId(), timeline, entryNewestStored);
+			entry.setDatasets(new ArrayList<>(entry.getDatasets().subList(overlap, entry.getDatasets().size())));
+			datasetAmount += entry.getDatasets().size();
+		}
+
+		LOGGER.debug("Inserting batch of {} readouts with {} datasets", accepted.size(), datasetAmount);
+
+		final List<BeaconDataset> datasets = new ArrayList<>(datasetAmount);
+		for (BeaconReadoutBatchEntry entry : accepted) {
+			entry.getDatasets().forEach(d -> d.setBeaconId(entry.getBeaconId()));
+			datasets.addAll(entry.getDatasets());
+		}
+		if (!datasets.isEmpty()) {
+			this.beaconMapper.createBeaconDataStaging();
+			this.copyRows(COPY_DATA_STAGING_SQL, datasets.size(), (row, i) -> this.appendDataCsvRow(row, datasets.get(i).getBeaconId(), datasets.get(i)));
+			this.beaconMapper.mergeBeaconDataStaging();
+		}
+
+		final Map<Integer, Timespan> rollupRanges = new LinkedHashMap<>();
+		for (BeaconReadoutBatchEntry entry : accepted) {
+			final List<BeaconDataset> entryDatasets = entry.getDatasets();
+			if (!entryDatasets.isEmpty()) {
+				rollupRanges.put(entry.getBeaconId(), new Timespan(
+						entryDatasets.get(0).getObservationDate(),
+						entryDatasets.get(entryDatasets.size() - 1).getObservationDate()
+				));
+				logs.addAll(this.beaconAnomalyService.detect(entry.getBeaconId(), entryDatasets));
+			}
+		}
+		if (!rollupRanges.isEmpty()) {
+			this.beaconMapper.updateBeaconDataRollupHours(rollupRanges);
+			this.beaconMapper.updateBeaconDataRollupDays(rollupRanges);
+		}
+		if (!logs.isEmpty()) {
+			this.beaconMapper.insertBeaconLogs(logs);
+			this.beaconEventService.logged(logs);
+		}
+
+		final List<Integer> acceptedBeaconIds = new ArrayList<>(accepted.size());
+		final List<UserLevelActionContext> xpContexts = new ArrayList<>(accepted.size());
+		for (BeaconReadoutBatchEntry entry : accepted) {
+			acceptedBeaconIds.add(entry.getBeaconId());
+			xpContexts.add(new UserLevelActionContext(entry.getBeaconId(), entry.getBeaconId()));
+			this.beaconEventService.readoutStored(entry.getBeaconId(), entry.getDatasets().size());
+		}
+
+		this.beaconMapper.insertBeaconSettingsBatch(accepted);
+		this.beaconSettingsService.settingsChanged(acceptedBeaconIds);
+		this.beaconMapper.updateBeaconsStatus(acceptedBeaconIds, BeaconStatus.OK);
+		this.beaconRegistryService.statusUpdated(acceptedBeaconIds, BeaconStatus.OK);
+		this.userService.increaseXp(UserLevelAction.BEACON_READOUT, xpContexts, this.rewardUserIds(auth));
+
+		return results;
+
+	}
+
+	/**
+	 * Check whether the given batch entry can be stored.
+	 * Entries are validated one by one like the request body of a single
+	 * readout ({@link ValidationGroups.Update}), since bean validation
+	 * does not descend into the elements of the request body list.
+	 * @param entry entry to check
+	 * @param beaconIds beacon ids of all previously accepted entries;
+	 * 					the entries' beacon id is added if accepted
+	 * @return reason for rejection or null if the entry is valid
+	 */
+	private String validateBatchEntry(BeaconReadoutBatchEntry entry, Set<Integer> beaconIds) {
+
+		if (entry == null) {
+			return "Readout is null.";
+		}
+		final Set<ConstraintViolation<BeaconReadoutBatchEntry>> violations = this.validator.validate(entry, ValidationGroups.Update.class);
+		if (!violations.isEmpty()) {
+			return "Readout is invalid: " + violationsMessage(violations);
+		}
+		if (entry.getDatasets() == null || entry.getSettings() == null) {
+			return "Beacon data/settings is null.";
+		}
+		if (entry.getSettings().getLoggingIntervalSec() < 1) {
+			return "Beacon logging interval must be positive.";
+		}
+		if (this.beaconRegistryService.findById(entry.getBeaconId()) == null) {
+			return "No beacon found for given id.";
+		}
+		if (!beaconIds.add(entry.getBeaconId())) {
+			return "Duplicate readout for beacon in batch.";
+		}
+		return null;
+
+	}
+
+	/**
+	 * Reconstruct the observation dates of all datasets of the given readout
+	 * and skip all datasets that have already been stored by a previous readout.
+	 * @param beaconId beacon the readout belongs to
+	 * @param result readout result to set the dates on
+	 * @param receiveTime epoch millis when the result was received
+	 * @return datasets of the readout that are newer than all stored datasets
+	 * @see BeaconTimeline
+	 */
+	private List<BeaconDataset> assignObservationDates(int beaconId, BeaconReadoutResult result, long receiveTime) {
+
+		final List<BeaconDataset> datasets = result.getDatasets();
+		final int overlap = this.checkTimeline(beaconId, this.assignTimeline(result, receiveTime));
+		return datasets.subList(overlap, datasets.size());
+
+	}
+
+	/**
+	 * Reconstruct the observation dates of all datasets of the given readout.
+	 * @param result readout result to set the dates on
+	 * @param receiveTime epoch millis when the result was received
+	 * @return timeline of the readout
+	 */
+	private BeaconTimeline assignTimeline(BeaconReadoutResult result, long receiveTime) {
+
+		final BeaconTimeline timeline = new BeaconTimeline(
+				result.getSettings(),
+				receiveTime - result.getTimeSinceDataReadoutMs(),
+				result.getDatasets().size()
+		);
+		timeline.assignTo(result.getDatasets());
+		return timeline;
+
+	}
+
+	/**
+	 * Compare the timeline of a readout with the newest stored dataset
+	 * of the beacon. If datasets are missing in between, a warning is
+	 * added to the beacons' logs.
+	 * @param beaconId beacon the readout belongs to
+	 * @param timeline timeline of the readout
+	 * @return amount of the oldest datasets of the readout already stored
+	 */
+	private int checkTimeline(int beaconId, BeaconTimeline timeline) {
+
+		final Date newestStored = this.beaconMapper.findLastBeaconDataDate(beaconId);
+
+		final BeaconLog gapLog = this.gapLog(beaconId, timeline, newestStored);
+		if (gapLog != null) {
+			this.beaconMapper.insertBeaconLog(beaconId, gapLog);
+			this.beaconEventService.logged(List.of(gapLog));
+		}
+		return this.overlap(beaconId, timeline, newestStored);
+
+	}
+
+	/**
+	 * @param newestStored newest stored observation date of the beacon (may be null)
+	 * @return a warning if datasets are missing between the newest stored
+	 * 		   dataset and the given readout; null otherwise
+	 */
+	private BeaconLog gapLog(int beaconId, BeaconTimeline timeline, Date newestStored) {
+
+		final long gap = timeline.gap(newestStored);
+		if (gap <= 0) {
+			return null;
+		}
+		LOGGER.info("Readout of beacon {} is missing {} datasets after {}.", beaconId, gap, newestStored);
+		return new BeaconLog(
+				beaconId,
+				BeaconLogSeverity.WARN,
+				BeaconLogType.SYSTEM,
+				"Readout is missing " + gap + " datasets after " + newestStored.toInstant() + ".",
+				new Date()
+		);
+
+	}
+
+	/**
+	 * @param newestStored newest stored observation date of the beacon (may be null)
+	 * @return amount of the oldest datasets of the readout already stored
+	 */
+	private int overlap(int beaconId, BeaconTimeline timeline, Date newestStored) {
+
+		final int overlap = timeline.overlap(newestStored);
+		if (overlap > 0) {
+			LOGGER.debug("Skipping {} of {} datasets of beacon {}, they are already stored.", overlap, timeline.getDatasetAmount(), beaconId);
+		}
+		return overlap;
+
+	}
+
+	/**
+	 * Store the readout result of a beacon, read directly from the given
+	 * JSON stream (same format as {@link BeaconReadoutResult}).
+	 * Datasets are parsed and validated in chunks of {@link #streamChunkSize}
+	 * and staged in the DB while the rest of the body is still being read,
+	 * so memory usage does not depend on the size of the readout.
+	 * Since the transaction is open during the upload, uploads taking longer
+	 * than {@link #streamMaxDurationSec} are aborted and rolled back.
+	 * Since observation dates are counted back from the last dataset, they
+	 * are only applied once the whole stream has been read.
+	 * @param beaconId beacon the readout belongs to
+	 * @param body JSON readout result
+	 * @param auth current user
+	 * @return amount of datasets read from the stream
+	 * @throws BadRequestException if the stream is malformed, settings are missing
+	 * 							   or settings/datasets are invalid
+	 * @throws ResponseStatusException if the upload takes too long
+	 * @throws IOException if the stream can't be read
+	 */
+	@Transactional
+	public int insertReadoutResult(int beaconId, InputStream body, Authentication auth) throws IOException {
+
+		final long deadline = System.currentTimeMillis() + this.streamMaxDurationSec * 1000L;
+		BeaconSettings settings = null;
+		long timeSinceDataReadoutMs = 0;
+		boolean hasDatasets = false;
+		int datasetAmount = 0;
+
+		this.beaconMapper.createBeaconReadoutStaging();
+
+		try (JsonParser parser = this.jsonObjectMapper.createParser(body)) {
+
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new BadRequestException("Readout result must be a JSON object.");
+			}
+
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				final String field = parser.getCurrentName();
+				final JsonToken valueToken = parser.nextToken();
+				switch (field) {
+				case "settings":
+					settings = parser.readValueAs(BeaconSettings.class);
+					this.validateReadoutSettings(beaconId, settings);
+					break;
+				case "timeSinceDataReadoutMs":
+					timeSinceDataReadoutMs = parser.getLongValue();
+					break;
+				case "datasets":
+					if (valueToken != JsonToken.START_ARRAY) {
+						throw new BadRequestException("Readout datasets must be a JSON array.");
+					}
+					hasDatasets = true;
+					List<BeaconDataset> chunk = new ArrayList<>(this.streamChunkSize);
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						chunk.add(parser.readValueAs(BeaconDataset.class));
+						if (chunk.size() >= this.streamChunkSize) {
+							this.stageReadoutDatasets(datasetAmount, chunk, deadline);
+							datasetAmount += chunk.size();
+							chunk.clear();
+						}
+					}
+					this.stageReadoutDatasets(datasetAmount, chunk, deadline);
+					datasetAmount += chunk.size();
+					break;
+				default:
+					parser.skipChildren();
+				}
+			}
+
+		} catch (JsonProcessingException e) {
+			throw new BadRequestException("Readout result could not be parsed: " + e.getOriginalMessage());
+		}
+
+		if (!hasDatasets || settings == null) {
+			throw new BadRequestException("Beacon data/settings is null, can't continue with readout for beaconId: " + beaconId);
+		}
+		if (settings.getLoggingIntervalSec() < 1) {
+			throw new BadRequestException("Beacon logging interval must be positive for beaconId: " + beaconId);
+		}
+
+		final BeaconTimeline timeline = new BeaconTimeline(settings, System.currentTimeMillis() - timeSinceDataReadoutMs, datasetAmount);
+		final int overlap = this.checkTimeline(beaconId, timeline);
+		this.beaconMapper.mergeBeaconReadoutStaging(
+				beaconId,
+				new Date(timeline.getFirstObservationTime()),
+				settings.getLoggingIntervalSec(),
+				overlap
+		);
+		if (datasetAmount > overlap) {
+			final Date from = new Date(timeline.observationTime(overlap));
+			final Date to = new Date(timeline.getLastObservationTime());
+			this.updateRollups(beaconId, from, to);
+			try (Cursor<BeaconDataset> stored = this.beaconMapper.streamBeaconDataByBeaconId(beaconId, from, to)) {
+				this.beaconAnomalyService.check(beaconId, stored);
+			}
+		}
+		this.finishReadout(beaconId, settings, datasetAmount - overlap, this.rewardUserIds(auth));
+
+		return datasetAmount;
+
+	}
+
+	/**
+	 * Insert the given datasets for the given beacon. Datasets that
+	 * already exist are skipped.
+	 * Small amounts are inserted using {@link BeaconMapper#insertBeaconDatasets(long, List)},
+	 * amounts above {@link #copyIngestThreshold} are streamed using COPY.
+	 * Must be called inside a transaction.
+	 * @param beaconId beacon the datasets belong to
+	 * @param datasets datasets with observation dates set
+	 */
+	public void insertDatasets(long beaconId, List<BeaconDataset> datasets) {
+
+		if (datasets.isEmpty()) {
+			return;
+		}
+		if (datasets.size() <= this.copyIngestThreshold) {
+			this.beaconMapper.insertBeaconDatasets(beaconId, datasets);
+		} else {
+			LOGGER.debug("Copying {} datasets for beacon {}", datasets.size(), beaconId);
+
+			this.beaconMapper.createBeaconDataStaging();
+			this.copyRows(COPY_DATA_STAGING_SQL, datasets.size(), (row, i) -> this.appendDataCsvRow(row, beaconId, datasets.get(i)));
+			this.beaconMapper.mergeBeaconDataStaging();
+		}
+
+		Date from = datasets.get(0).getObservationDate();
+		Date to = from;
+		for (BeaconDataset dataset : datasets) {
+			if (dataset.getObservationDate().before(from)) {
+				from = dataset.getObservationDate();
+			} else if (dataset.getObservationDate().after(to)) {
+				to = dataset.getObservationDate();
+			}
+		}
+		this.updateRollups(beaconId, from, to);
+		this.beaconAnomalyService.check(beaconId, datasets);
+
+	}
+
+	/**
+	 * Re-aggregate the hourly and daily rollups of the given beacon for the
+	 * buckets overlapping the given range. Since the affected buckets are
+	 * always recalculated from their source, calling this repeatedly or for
+	 * already existing datasets does not skew the rollups.
+	 * Must be called inside a transaction.
+	 * @param beaconId beacon whose data changed
+	 * @param from oldest observation date inserted
+	 * @param to newest observation date inserted
+	 */
+	private void updateRollups(long beaconId, Date from, Date to) {
+
+		// raw data of archived months is incomplete, so their buckets are left as they are;
+		// late datasets are added to them when they are archived
+		final Date archiveHorizon = this.beaconMapper.findBeaconDataArchiveHorizon(beaconId);
+		if (archiveHorizon != null && (from == null || from.before(archiveHorizon))) {
+			if (to != null && to.before(archiveHorizon)) {
+				return;
+			}
+			from = archiveHorizon;
+		}
+
+		this.beaconMapper.updateBeaconDataRollupHour(beaconId, from, to);
+		this.beaconMapper.updateBeaconDataRollupDay(beaconId, from, to);
+
+	}
+
+	/**
+	 * Rebuild the rollups of all beacons from the raw data.
+	 * Used to backfill the rollups for data inserted before they existed
+	 * or to repair them after manual data changes.
+	 * Buckets of archived months are kept, since their raw data is gone.
+	 * Every beacon is rebuilt in its own transaction, so readouts of other
+	 * beacons are not blocked for the whole duration.
+	 * @return amount of beacons rebuilt
+	 */
+	public int rebuildRollups() {
+
+		final List<Integer> beaconIds = this.beaconMapper.findAllBeaconIds();
+		for (Integer beaconId : beaconIds) {
+			LOGGER.debug("Rebuilding rollups of beacon {}", beaconId);
+			this.transactionTemplate.executeWithoutResult(status -> {
+				this.beaconMapper.deleteBeaconDataRollups(beaconId, this.beaconMapper.findBeaconDataArchiveHorizon(beaconId));
+				this.updateRollups(beaconId, null, null);
+			});
+		}
+		return beaconIds.size();
+
+	}
+
+	/**
+	 * Validate the given chunk of a streamed readout and copy it into the readout staging table.
+	 * @param firstOrdinal position of the first dataset of the chunk in the readout
+	 * @param chunk datasets to stage
+	 * @param deadline time (epoch millis) the upload must be finished by
+	 * @throws BadRequestException if a dataset is invalid
+	 * @throws ResponseStatusException if the deadline has passed
+	 */
+	private void stageReadoutDatasets(int firstOrdinal, List<BeaconDataset> chunk, long deadline) {
+
+		if (System.currentTimeMillis() > deadline) {
+			throw new ResponseStatusException(
+					HttpStatus.REQUEST_TIMEOUT,
+					"Readout upload took longer than " + this.streamMaxDurationSec + " seconds."
+			);
+		}
+		if (chunk.isEmpty()) {
+			return;
+		}
+		for (int i = 0; i < chunk.size(); i++) {
+			this.validateReadoutDataset(firstOrdinal + i, chunk.get(i));
+		}
+		LOGGER.trace("Staging {} streamed datasets starting at {}", chunk.size(), firstOrdinal);
+		this.copyRows(COPY_READOUT_STAGING_SQL, chunk.size(), (row, i) -> this.appendReadoutCsvRow(row, firstOrdinal + i, chunk.get(i)));
+
+	}
+
+	/**
+	 * Validate settings of a streamed readout like the request body of a regular readout.
+	 * @throws BadRequestException if the settings are null or invalid
+	 */
+	private void validateReadoutSettings(int beaconId, BeaconSettings settings) {
+
+		if (settings == null) {
+			throw new BadRequestException("Beacon settings are null, can't continue with readout for beaconId: " + beaconId);
+		}
+		final Set<ConstraintViolation<BeaconSettings>> violations = this.validator.validate(settings, ValidationGroups.Update.class);
+		if (!violations.isEmpty()) {
+			throw new BadRequestException("Readout settings are invalid: " + violationsMessage(violations));
+		}
+
+	}
+
+	/**
+	 * Validate the measured values of a dataset of a streamed readout.
+	 * Observation dates are only assigned after the readout was read,
+	 * so they are not validated here.
+	 * @throws BadRequestException if a value is invalid
+	 */
+	private void validateReadoutDataset(int ordinal, BeaconDataset dataset) {
+
+		for (String property : READOUT_DATASET_PROPERTIES) {
+			final Set<ConstraintViolation<BeaconDataset>> violations = this.validator.validateProperty(dataset, property, ValidationGroups.Update.class);
+			if (!violations.isEmpty()) {
+				throw new BadRequestException("Readout dataset " + ordinal + " is invalid: " + violationsMessage(violations));
+			}
+		}
+
+	}
+
+	private static String violationsMessage(Set<? extends ConstraintViolation<?>> violations) {
+		return violations.stream()
+				.map(v -> v.getPropertyPath() + " " + v.getMessage())
+				.sorted()
+				.collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * Insert settings, update status and reward the users after the
+	 * datasets of a readout have been inserted.
+	 */
+	private void finishReadout(int beaconId, BeaconSettings settings, int datasetAmount, int[] rewardUserIds) {
+
+		this.beaconMapper.insertBeaconSettings(beaconId, settings, null);
+		this.beaconSettingsService.settingsChanged(beaconId);
+
+		this.beaconMapper.updateBeaconStatus(beaconId, BeaconStatus.OK);
+		this.beaconRegistryService.statusUpdated(beaconId, BeaconStatus.OK);
+		this.userService.increaseXp(UserLevelAction.BEACON_READOUT, new UserLevelActionContext(beaconId, beaconId), rewardUserIds);
+		this.beaconEventService.readoutStored(beaconId, datasetAmount);
+
+	}
+
+	/**
+	 * Find datasets of the given beacon. Reads from the archive if the
+	 * raw data does not cover the requested timespan or amount.
+	 * @param beaconId beacon to get data for
+	 * @param maxDatapoints maximum amount of datasets (newest are returned); -1 for all
+	 * @param timespan timespan to get data for; start and end are optional
+	 * @return datasets ordered by observation date ascending
+	 */
+	public List<BeaconDataset> findBeaconData(int beaconId, int maxDatapoints, Timespan timespan) {
+
+		final List<BeaconDataset> raw = this.beaconMapper.findBeaconDataByBeaconId(
+				beaconId,
+				maxDatapoints,
+				timespan.getStart(),
+				timespan.getEnd()
+				);
+		if (maxDatapoints != -1 && raw.size() >= maxDatapoints) {
+			return raw;
+		}
+		if (timespan.getStart() != null && !timespan.getStart().before(this.beaconDataArchiveService.findArchiveBoundary())) {
+			return raw;
+		}
+
+		final Date archiveHorizon = this.beaconMapper.findBeaconDataArchiveHorizon(beaconId);
+		if (archiveHorizon == null || (timespan.getStart() != null && !timespan.getStart().before(archiveHorizon))) {
+			return raw;
+		}
+
+		// raw data arriving late may be older than archived data, so the newest datasets
+		// of both are fetched and merged instead of filling up the raw ones with archived ones
+		final List<BeaconDataset> archived = this.beaconDataArchiveService.findArchivedData(
+				beaconId,
+				maxDatapoints,
+				timespan.getStart(),
+				timespan.getEnd()
+				);
+		final List<BeaconDataset> datasets = this.beaconDataArchiveService.merge(archived, raw);
+		if (maxDatapoints != -1 && datasets.size() > maxDatapoints) {
+			return new ArrayList<>(datasets.subList(datasets.size() - maxDatapoints, datasets.size()));
+		}
+		return datasets;
+
+	}
+
+	/**
+	 * Find aggregated data of the given beacon, bucketed by observation date.
+	 * @param beaconId beacon to get data for
+	 * @param bucket bucket width (e.g. 10m, 1h, 1d) or {@link #BUCKET_AUTO}
+	 * @param maxBuckets (optional) only used in auto mode: amount of buckets
+	 * 					 to fit the requested timespan into
+	 * @param timespan timespan to get data for; start and end are optional,
+	 * 				   the end is exclusive
+	 * @return aggregates per bucket, oldest first
+	 * @throws BadRequestException if the bucket parameter is invalid
+	 */
+	public List<BeaconDatasetAggregate> findBeaconDataAggregates(long beaconId, String bucket, Integer maxBuckets, Timespan timespan) {
+
+		final long bucketSec;
+		if (BUCKET_AUTO.equals(bucket)) {
+			bucketSec = this.autoBucketSec(beaconId, maxBuckets, timespan);
+		} else {
+			bucketSec = this.parseBucketSec(bucket);
+		}
+
+		return this.findBeaconDataAggregates(
+				beaconId,
+				bucketSec,
+				timespan.getStart(),
+				timespan.getEnd(),
+				BeaconDataRollup.values().length - 1
+				);
+
+	}
+
+	/**
+	 * Aggregate the given range using the coarsest rollup possible.
+	 * A rollup can be used if the bucket width is a multiple of the rollups'
+	 * bucket width. The part of the range made up of whole rollup buckets is
+	 * read from the rollup; the partial rollup buckets at the edges are
+	 * aggregated the same way using the next finer rollup, down to the raw data.
+	 * Since raw data of archived months is gone, edges shorter than the
+	 * finest rollup bucket only contain raw datasets there.
+	 * @param beaconId beacon to get data for
+	 * @param bucketSec requested bucket width
+	 * @param from (optional) start of the range (inclusive)
+	 * @param to (optional) end of the range (exclusive)
+	 * @param maxRollup index of the coarsest {@link BeaconDataRollup} to use
+	 * @return aggregates per bucket, oldest first
+	 */
+	private List<BeaconDatasetAggregate> findBeaconDataAggregates(long beaconId, long bucketSec, Date from, Date to, int maxRollup) {
+
+		final BeaconDataRollup[] rollups = BeaconDataRollup.values();
+		for (int i = maxRollup; i >= 0; i--) {
+			if (bucketSec % rollups[i].getBucketSec() != 0) {
+				continue;
+			}
+			final long rollupMs = rollups[i].getBucketSec() * 1000;
+			final Date alignedFrom = from == null ? null : new Date(-Math.floorDiv(-from.getTime(), rollupMs) * rollupMs);
+			final Date alignedTo = to == null ? null : new Date(Math.floorDiv(to.getTime(), rollupMs) * rollupMs);
+			if (alignedFrom != null && alignedTo != null && !alignedFrom.before(alignedTo)) {
+				continue;
+			}
+
+			final List<List<BeaconDatasetAggregate>> parts = new ArrayList<>(3);
+			if (from != null && from.before(alignedFrom)) {
+				parts.add(this.findBeaconDataAggregates(beaconId, bucketSec, from, alignedFrom, i - 1));
+			}
+			parts.add(this.beaconMapper.findBeaconDataAggregatesFromRollup(
+					beaconId,
+					rollups[i],
+					bucketSec,
+					alignedFrom,
+					alignedTo
+					));
+			if (to != null && alignedTo.before(to)) {
+				parts.add(this.findBeaconDataAggregates(beaconId, bucketSec, alignedTo, to, i - 1));
+			}
+			return BeaconDataAggregation.combine(parts);
+		}
+
+		return this.beaconMapper.findBeaconDataAggregatesByBeaconId(beaconId, bucketSec, from, to);
+
+	}
+
+	/**
+	 * Parse an explicit bucket width.
+	 * @param bucket amount followed by unit: m (minutes), h (hours) or d (days)
+	 * @return bucket width in seconds
+	 * @throws BadRequestException if the width is malformed or too small
+	 */
+	private long parseBucketSec(String bucket) {
+
+		final Matcher matcher = BUCKET_PATTERN.matcher(bucket == null ? "" : bucket);
+		if (!matcher.matches()) {
+			throw new BadRequestException("Invalid bucket: " + bucket);
+		}
+
+		final ChronoUnit unit;
+		switch (matcher.group(2)) {
+		case "m":
+			unit = ChronoUnit.MINUTES;
+			break;
+		case "h":
+			unit = ChronoUnit.HOURS;
+			break;
+		default:
+			unit = ChronoUnit.DAYS;
+			break;
+		}
+
+		final long bucketSec;
+		try {
+			bucketSec = unit.getDuration().multipliedBy(Long.parseLong(matcher.group(1))).getSeconds();
+		} catch (ArithmeticException | NumberFormatException e) {
+			throw new BadRequestException("Invalid bucket: " + bucket);
+		}
+		if (bucketSec < MIN_BUCKET_SEC) {
+			throw new BadRequestException("Bucket must be at least " + MIN_BUCKET_SEC + " seconds wide.");
+		}
+		return bucketSec;
+
+	}
+
+	/**
+	 * Choose a bucket width so that the given timespan results in at most
+	 * maxBuckets buckets. If the timespan has no start, the oldest observation
+	 * of the beacon is used; if it has no end, now is used.
+	 * @param beaconId beacon to get data for
+	 * @param maxBuckets amount of buckets to aim for; default if null or < 1
+	 * @param timespan requested timespan
+	 * @return bucket width in seconds (at least {@link #MIN_BUCKET_SEC})
+	 */
+	private long autoBucketSec(long beaconId, Integer maxBuckets, Timespan timespan) {
+
+		final int buckets = maxBuckets == null || maxBuckets < 1 ? DEFAULT_AUTO_BUCKETS : maxBuckets;
+
+		Date start = timespan.getStart();
+		if (start == null) {
+			start = this.beaconMapper.findFirstBeaconDataDate(beaconId);
+		}
+		if (start == null) {
+			return MIN_BUCKET_SEC;
+		}
+		final Date end = timespan.getEnd() == null ? new Date() : timespan.getEnd();
+
+		final long spanSec = Math.max(0, (end.getTime() - start.getTime()) / 1000);
+		return Math.max(MIN_BUCKET_SEC, (spanSec + buckets - 1) / buckets);
+
+	}
+
+	/**
+	 * Users to be rewarded for a readout uploaded by the given user.
+	 * @param auth current user
+	 * @return array holding the current users' id; empty if anonymous
+	 */
+	public int[] rewardUserIds(Authentication auth) {
+		if (ControllerUtil.isUserAnonymous(auth)) {
+			return new int[0];
+		}
+		return new int[] {ControllerUtil.getAuthToken(auth).getId()};
+	}
+
+	/**
+	 * Stream the given amount of CSV rows to the DB using COPY.
+	 * Uses the connection bound to the current transaction, so the
+	 * rows are visible to subsequent mapper calls.
+	 * @param copySql COPY ... FROM STDIN statement
+	 * @param rows amount of rows to write
+	 * @param rowWriter appends the row with the given index
+	 */
+	private void copyRows(String copySql, int rows, CsvRowWriter rowWriter) {
+
+		final Connection connection = DataSourceUtils.getConnection(this.dataSource);
+		try {
+			CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+			try {
+				StringBuilder row = new StringBuilder(96);
+				for (int i = 0; i < rows; i++) {
+					row.setLength(0);
+					rowWriter.append(row, i);
+					byte[] rowBytes = row.toString().getBytes(UrbantreesApplication.DEFAULT_CHARSET);
+					copyIn.writeToCopy(rowBytes, 0, rowBytes.length);
+				}
+				copyIn.endCopy();
+			} finally {
+				if (copyIn.isActive()) {
+					copyIn.cancelCopy();
+				}
+			}
+		} catch (SQLException e) {
+			throw new InternalException("Failed to copy beacon datasets", e);
+		} finally {
+			DataSourceUtils.releaseConnection(connection, this.dataSource);
+		}
+
+	}
+
+	/**
+	 * Append a single CSV line for the data staging table.
+	 * @see #COPY_DATA_STAGING_SQL
+	 */
+	private void appendDataCsvRow(StringBuilder row, long beaconId, BeaconDataset dataset) {
+		row.append(beaconId).append(',')
+		   .append(dataset.getHumidity()).append(',')
+		   .append(dataset.getTemperature()).append(',')
+		   .append(dataset.getDewPoint()).append(',');
+		if (dataset.getObservationDate() != null) {
+			row.append(dataset.getObservationDate().toInstant());
+		}
+		row.append('\n');
+	}
+
+	/**
+	 * Append a single CSV line for the readout staging table.
+	 * @see #COPY_READOUT_STAGING_SQL
+	 */
+	private void appendReadoutCsvRow(StringBuilder row, int ordinal, BeaconDataset dataset) {
+		row.append(ordinal).append(',')
+		   .append(dataset.getHumidity()).append(',')
+		   .append(dataset.getTemperature()).append(',')
+		   .append(dataset.getDewPoint()).append('\n');
+	}
+
+	/**
+	 * Writes a single CSV row for {@link BeaconService#copyRows(String, int, CsvRowWriter)}.
+	 */
+	@FunctionalInterface
+	private interface CsvRowWriter {
+		void append(StringBuilder row, int index);
+	}
+
+}
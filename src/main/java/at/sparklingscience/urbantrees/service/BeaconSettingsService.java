@@ -0,0 +1,131 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import at.sparklingscience.urbantrees.domain.BeaconSettings;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+
+/**
+ * Keeps the current settings of every beacon in memory, so they don't
+ * have to be picked from all historical settings on every request.
+ * Entries are evicted whenever settings of a beacon are inserted or
+ * changed and loaded again on the next request.
+ * Returned settings are shared between callers and must not be modified.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BeaconSettingsService {
+	
+	@Autowired
+	private BeaconMapper beaconMapper;
+	
+	/**
+	 * Latest settings by beacon id.
+	 */
+	private final Map<Integer, BeaconSettings> latestSettings = new ConcurrentHashMap<>();
+	
+	/**
+	 * Increased on every eviction. Loaded settings are only cached if no
+	 * eviction happened while loading them, so settings read before a
+	 * concurrent change are never cached after it.
+	 */
+	private final AtomicLong generation = new AtomicLong();
+	
+	/**
+	 * True if {@link #latestSettings} holds the settings of all beacons.
+	 */
+	private volatile boolean complete = false;
+	
+	/**
+	 * @param beaconId beacon to get settings for
+	 * @return latest settings of the beacon or null if it has none
+	 */
+	public BeaconSettings findLatest(int beaconId) {
+		
+		BeaconSettings settings = this.latestSettings.get(beaconId);
+		if (settings != null) {
+			return settings;
+		}
+		
+		final long loadGeneration = this.generation.get();
+		settings = this.beaconMapper.findLatestBeaconSettingsByBeaconId(beaconId);
+		if (settings != null) {
+			synchronized (this) {
+				if (loadGeneration == this.generation.get()) {
+					this.latestSettings.put(beaconId, settings);
+				}
+			}
+		}
+		return settings;
+		
+	}
+	
+	/**
+	 * @return latest settings of all beacons that have settings
+	 */
+	public List<BeaconSettings> findAllLatest() {
+		
+		if (!this.complete) {
+			final long loadGeneration = this.generation.get();
+			final List<BeaconSettings> loaded = this.beaconMapper.findAllLatestBeaconSettings();
+			synchronized (this) {
+				if (loadGeneration == this.generation.get()) {
+					loaded.forEach(s -> this.latestSettings.put(s.getBeaconId(), s));
+					this.complete = true;
+				}
+			}
+			return loaded;
+		}
+		return new ArrayList<>(this.latestSettings.values());
+		
+	}
+	
+	/**
+	 * Evict the cached settings of the given beacon after its settings
+	 * have been inserted or changed. If called inside a transaction,
+	 * the eviction happens after commit.
+	 * @param beaconId beacon whose settings changed
+	 */
+	public void settingsChanged(int beaconId) {
+		this.settingsChanged(List.of(beaconId));
+	}
+	
+	/**
+	 * @see #settingsChanged(int)
+	 */
+	public void settingsChanged(Collection<Integer> beaconIds) {
+		
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict(beaconIds);
+				}
+			});
+		} else {
+			this.evict(beaconIds);
+		}
+		
+	}
+	
+	private synchronized void evict(Collection<Integer> beaconIds) {
+		
+		this.generation.incrementAndGet();
+		this.complete = false;
+		beaconIds.forEach(this.latestSettings::remove);
+		
+	}
+	
+}
@@ -0,0 +1,143 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import at.sparklingscience.urbantrees.exception.InternalException;
+import at.sparklingscience.urbantrees.exception.NotFoundException;
+
+/**
+ * Content-addressed file store for binary data like images.
+ * Every blob is stored once under the hex SHA-256 hash of its contents,
+ * so uploading the same data again does not use any additional space,
+ * and stored blobs never change (they may be cached forever).
+ * The DB only keeps the hash as reference.
+ * Blobs are stored in {@link #BLOB_ROOT}/{first two hash chars}/{hash}.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class BlobStoreService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BlobStoreService.class);
+
+	/**
+	 * The root directory relative to the service working directory.
+	 */
+	public static final Path BLOB_ROOT = Path.of("data", "blob");
+
+	/**
+	 * Directory for blobs being written, before they are moved to their final path.
+	 */
+	private static final Path TEMP_ROOT = BLOB_ROOT.resolve("tmp");
+
+	private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+	/**
+	 * Store the given data.
+	 * @param data stream of the data to store; not closed by this method
+	 * @return hash of the stored blob
+	 * @throws InternalException if the blob can't be written
+	 */
+	public String store(InputStream data) {
+
+		Path tempPath = null;
+		try {
+			Files.createDirectories(TEMP_ROOT);
+			tempPath = TEMP_ROOT.resolve(UUID.randomUUID().toString());
+
+			final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			try (OutputStream os = new DigestOutputStream(Files.newOutputStream(tempPath), digest)) {
+				data.transferTo(os);
+			}
+			final String hash = HexFormat.of().formatHex(digest.digest());
+
+			final Path path = this.path(hash);
+			if (Files.exists(path)) {
+				LOGGER.debug("Blob {} already stored.", hash);
+				return hash;
+			}
+			Files.createDirectories(path.getParent());
+			try {
+				Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE);
+				tempPath = null;
+			} catch (FileAlreadyExistsException e) {
+				// stored concurrently
+			}
+			LOGGER.debug("Stored blob {}.", hash);
+			return hash;
+		} catch (IOException | NoSuchAlgorithmException e) {
+			LOGGER.error("Failed to store blob: {}", e.getMessage(), e);
+			throw new InternalException("Failed to store file.");
+		} finally {
+			if (tempPath != null) {
+				try {
+					Files.deleteIfExists(tempPath);
+				} catch (IOException e) {
+					LOGGER.warn("Failed to delete temporary blob {}: {}", tempPath, e.getMessage());
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Get the path of the given blob.
+	 * @param hash hash of the blob
+	 * @return path of the blob file
+	 * @throws NotFoundException if the hash is invalid or no such blob is stored
+	 */
+	public Path find(String hash) {
+
+		if (hash == null || !HASH_PATTERN.matcher(hash).matches()) {
+			throw new NotFoundException("No file found.");
+		}
+		final Path path = this.path(hash);
+		if (!Files.isRegularFile(path)) {
+			throw new NotFoundException("No file found.");
+		}
+		return path;
+
+	}
+
+	/**
+	 * Guess the content type of the given blob from its first bytes.
+	 * @param path path of the blob as returned by {@link #find(String)}
+	 * @return content type; {@link MediaType#APPLICATION_OCTET_STREAM} if unknown
+	 */
+	public MediaType contentType(Path path) {
+
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(path))) {
+			final String type = URLConnection.guessContentTypeFromStream(is);
+			return type == null ? MediaType.APPLICATION_OCTET_STREAM : MediaType.valueOf(type);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read content type of blob {}: {}", path, e.getMessage());
+			return MediaType.APPLICATION_OCTET_STREAM;
+		}
+
+	}
+
+	private Path path(String hash) {
+		return BLOB_ROOT.resolve(hash.substring(0, 2)).resolve(hash);
+	}
+
+}
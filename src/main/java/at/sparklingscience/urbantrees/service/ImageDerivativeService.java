@@ -0,0 +1,314 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import at.sparklingscience.urbantrees.domain.ResponseFile;
+
+/**
+ * Generates downscaled versions (derivatives) of stored images in a few
+ * fixed widths, so clients showing thumbnails or small screens don't have
+ * to load full-resolution photos.
+ * Derivatives are generated on first request on a bounded background pool
+ * and kept on disk in {@link #DERIVATIVE_ROOT}/{key}/{width}.jpg.
+ * Callers get the original image whenever no derivative is available in time,
+ * the original is not larger than requested or it can't be decoded.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class ImageDerivativeService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+	/**
+	 * The root directory relative to the service working directory.
+	 */
+	public static final Path DERIVATIVE_ROOT = Path.of("data", "derivative");
+
+	/**
+	 * Widths derivatives are generated in, ascending.
+	 */
+	public static final int[] WIDTHS = {160, 320, 640, 1280};
+
+	/**
+	 * Directory for derivatives being written, before they are moved to their final path.
+	 */
+	private static final Path TEMP_ROOT = DERIVATIVE_ROOT.resolve("tmp");
+
+	/**
+	 * Content types of images that may be decoded.
+	 */
+	private static final Set<String> SOURCE_TYPES = Set.of(
+			MediaType.IMAGE_JPEG_VALUE,
+			MediaType.IMAGE_PNG_VALUE,
+			MediaType.IMAGE_GIF_VALUE,
+			"image/bmp"
+	);
+
+	/**
+	 * Larger images are not decoded, since they would need too much memory.
+	 */
+	private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+
+	private static final float JPEG_QUALITY = 0.85f;
+
+	@Value("${at.sparklingscience.urbantrees.image.derivativeThreads}")
+	private int threadAmount;
+
+	@Value("${at.sparklingscience.urbantrees.image.derivativeQueueSize}")
+	private int queueSize;
+
+	@Value("${at.sparklingscience.urbantrees.image.derivativeWaitMs}")
+	private long waitMs;
+
+	private ThreadPoolExecutor generators;
+
+	/**
+	 * Running or queued generations by derivative path.
+	 */
+	private final Map<Path, Future<Boolean>> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * Derivative paths that are not generated since the original is small enough
+	 * or can't be decoded. Only kept until restart.
+	 */
+	private final Set<Path> skipped = ConcurrentHashMap.newKeySet();
+
+	@PostConstruct
+	public void start() {
+
+		final AtomicInteger threadNumber = new AtomicInteger();
+		this.generators = new ThreadPoolExecutor(
+				this.threadAmount,
+				this.threadAmount,
+				0L,
+				TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(this.queueSize),
+				r -> {
+					final Thread t = new Thread(r, "image-derivative-" + threadNumber.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}
+		);
+
+	}
+
+	@PreDestroy
+	public void stop() {
+		this.generators.shutdownNow();
+	}
+
+	/**
+	 * Get the derivative of the given image closest to the requested width.
+	 * The smallest derivative at least as wide as requested is used
+	 * (or the widest if none is wide enough). If it does not exist yet, it is
+	 * generated; if that takes longer than the configured wait time,
+	 * the original is returned meanwhile.
+	 * @param key unique, filesystem-safe key of the original; derivatives are
+	 * 			  never regenerated, so the original must not change under this key
+	 * @param original the original image file and its content type
+	 * @param width requested width in pixels
+	 * @return the derivative or the original image
+	 */
+	public ResponseFile find(String key, ResponseFile original, int width) {
+
+		if (!SOURCE_TYPES.contains(original.getType())) {
+			return original;
+		}
+
+		final int derivativeWidth = derivativeWidth(width);
+		final Path path = DERIVATIVE_ROOT.resolve(key).resolve(derivativeWidth + ".jpg");
+		if (Files.isRegularFile(path)) {
+			return new ResponseFile(path, MediaType.IMAGE_JPEG_VALUE);
+		}
+		if (this.skipped.contains(path)) {
+			return original;
+		}
+
+		final Future<Boolean> generation;
+		try {
+			generation = this.pending.computeIfAbsent(
+					path,
+					p -> this.generators.submit(() -> {
+						try {
+							return this.generate(original.getPath(), p, derivativeWidth);
+						} finally {
+							this.pending.remove(p);
+						}
+					})
+			);
+		} catch (RejectedExecutionException e) {
+			LOGGER.debug("Derivative generation queue is full, serving original of {}.", key);
+			return original;
+		}
+
+		try {
+			if (generation.get(this.waitMs, TimeUnit.MILLISECONDS)) {
+				return new ResponseFile(path, MediaType.IMAGE_JPEG_VALUE);
+			}
+		} catch (TimeoutException e) {
+			LOGGER.debug("Derivative {} not ready in time, serving original.", path);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			LOGGER.warn("Failed to generate derivative {}: {}", path, e.getCause().getMessage(), e.getCause());
+		}
+		return original;
+
+	}
+
+	/**
+	 * @return smallest derivative width at least as wide as the given width; the largest if none is
+	 */
+	private static int derivativeWidth(int width) {
+		for (int w : WIDTHS) {
+			if (w >= width) {
+				return w;
+			}
+		}
+		return WIDTHS[WIDTHS.length - 1];
+	}
+
+	/**
+	 * Generate a derivative of the given width.
+	 * @return true if it was written; false if it is not needed
+	 */
+	private boolean generate(Path source, Path target, int width) throws IOException {
+
+		final BufferedImage image = this.read(source, target, width);
+		if (image == null) {
+			this.skipped.add(target);
+			return false;
+		}
+
+		final int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+		final BufferedImage scaled = scale(image, width, height);
+
+		Files.createDirectories(TEMP_ROOT);
+		final Path tempPath = TEMP_ROOT.resolve(UUID.randomUUID().toString());
+		try {
+			writeJpeg(scaled, tempPath);
+			Files.createDirectories(target.getParent());
+			Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+		LOGGER.debug("Generated derivative {} ({}x{}).", target, width, height);
+		return true;
+
+	}
+
+	/**
+	 * Decode the given image if it is wider than the given width.
+	 * @return the image; null if it is not wider, too large or can't be decoded
+	 */
+	private BufferedImage read(Path source, Path target, int width) throws IOException {
+
+		try (ImageInputStream is = ImageIO.createImageInputStream(source.toFile())) {
+			final Iterator<ImageReader> readers = ImageIO.getImageReaders(is);
+			if (!readers.hasNext()) {
+				LOGGER.warn("No image reader found for {}, not generating derivative {}.", source, target);
+				return null;
+			}
+			final ImageReader reader = readers.next();
+			try {
+				reader.setInput(is, true, true);
+				final int sourceWidth = reader.getWidth(0);
+				final int sourceHeight = reader.getHeight(0);
+				if (sourceWidth <= width) {
+					return null;
+				}
+				if ((long) sourceWidth * sourceHeight > MAX_SOURCE_PIXELS) {
+					LOGGER.warn("Image {} is too large ({}x{}), not generating derivative {}.", source, sourceWidth, sourceHeight, target);
+					return null;
+				}
+				return reader.read(0);
+			} finally {
+				reader.dispose();
+			}
+		}
+
+	}
+
+	/**
+	 * Downscale the given image by halving its size until close to the target
+	 * size, which gives better quality than a single bilinear step.
+	 * Transparent areas are filled white, since JPEG has no alpha channel.
+	 */
+	private static BufferedImage scale(BufferedImage image, int width, int height) {
+
+		BufferedImage current = image;
+		int currentWidth = image.getWidth();
+		int currentHeight = image.getHeight();
+		do {
+			currentWidth = Math.max(width, currentWidth / 2);
+			currentHeight = Math.max(height, currentHeight / 2);
+
+			final BufferedImage next = new BufferedImage(currentWidth, currentHeight, BufferedImage.TYPE_INT_RGB);
+			final Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				g.drawImage(current, 0, 0, currentWidth, currentHeight, Color.WHITE, null);
+			} finally {
+				g.dispose();
+			}
+			current = next;
+		} while (currentWidth != width || currentHeight != height);
+		return current;
+
+	}
+
+	private static void writeJpeg(BufferedImage image, Path path) throws IOException {
+
+		final ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		try (ImageOutputStream os = ImageIO.createImageOutputStream(path.toFile())) {
+			final ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(JPEG_QUALITY);
+			writer.setOutput(os);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+
+	}
+
+}
@@ -0,0 +1,90 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import at.sparklingscience.urbantrees.domain.ui.Image;
+import at.sparklingscience.urbantrees.mapper.UiMapper;
+import at.sparklingscience.urbantrees.mapper.UserMapper;
+
+/**
+ * Service for phenology images (uploaded by users and shown
+ * for observation results), which are kept in the {@link BlobStoreService}.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class ImageService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ImageService.class);
+
+	/**
+	 * Amount of images moved at once by {@link #moveDatabaseImagesToBlobStore()}.
+	 */
+	private static final int MOVE_BATCH_SIZE = 50;
+
+	@Autowired
+	private BlobStoreService blobStoreService;
+
+	@Autowired
+	private UserMapper userMapper;
+
+	@Autowired
+	private UiMapper uiMapper;
+
+	/**
+	 * Move all images still stored as bytea in the DB to the blob store
+	 * and replace their data by the hash.
+	 * Blobs are written before the DB is updated, so an interrupted run
+	 * leaves at most unreferenced blobs and may just be started again.
+	 * @return amount of distinct images moved
+	 */
+	public int moveDatabaseImagesToBlobStore() {
+
+		final int phenologyImages = this.moveImages(
+				this.userMapper::findUnstoredPhenologyImages,
+				this.userMapper::updatePhenologyImagesStored
+		);
+		final int resultImages = this.moveImages(
+				this.uiMapper::findUnstoredResultImages,
+				this.uiMapper::updateResultImagesStored
+		);
+		LOGGER.info("Moved {} phenology images and {} observation result images to the blob store.", phenologyImages, resultImages);
+		return phenologyImages + resultImages;
+
+	}
+
+	private int moveImages(IntFunction<List<Image>> findUnstored, Consumer<List<String>> updateStored) {
+
+		int amount = 0;
+		List<Image> images;
+		while (!(images = findUnstored.apply(MOVE_BATCH_SIZE)).isEmpty()) {
+			final List<String> hashes = new ArrayList<>(images.size());
+			for (Image image : images) {
+				final String hash = this.blobStoreService.store(new ByteArrayInputStream(image.getRawImageData()));
+				if (hash.equals(image.getImageHash())) {
+					hashes.add(hash);
+				} else {
+					LOGGER.error("Hash of stored image {} does not match DB hash {}.", hash, image.getImageHash());
+				}
+			}
+			if (hashes.isEmpty()) {
+				break;
+			}
+			updateStored.accept(hashes);
+			amount += hashes.size();
+		}
+		return amount;
+
+	}
+
+}
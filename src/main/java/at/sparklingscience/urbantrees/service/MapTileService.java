@@ -0,0 +1,366 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import at.sparklingscience.urbantrees.domain.Beacon;
+import at.sparklingscience.urbantrees.domain.Coordinates;
+import at.sparklingscience.urbantrees.domain.Location;
+import at.sparklingscience.urbantrees.domain.MapCluster;
+import at.sparklingscience.urbantrees.domain.MapTile;
+import at.sparklingscience.urbantrees.domain.Tree;
+import at.sparklingscience.urbantrees.service.TreeCatalogueService.Catalogue;
+import at.sparklingscience.urbantrees.util.SpatialGridIndex;
+
+/**
+ * Serves trees and beacons clustered per web map tile (z/x/y, web mercator),
+ * so map views only load a few clusters per tile instead of all markers.
+ * Each tile is split into a fixed grid; all trees and beacons in a grid cell
+ * form one cluster. Computed tiles are kept in an LRU cache.
+ * Trees are taken from the {@link TreeCatalogueService}, beacons from the
+ * {@link BeaconRegistryService}. When either changes, only the tiles
+ * containing the old or new position of a changed tree or beacon are evicted.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class MapTileService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MapTileService.class);
+
+	/**
+	 * Projection of map tiles. Trees and beacons in other projections are not shown.
+	 */
+	public static final String PROJECTION = "EPSG:900913";
+
+	/**
+	 * Max. zoom level supported.
+	 */
+	public static final int MAX_ZOOM = 22;
+
+	/**
+	 * Half the width of the web mercator world in meters.
+	 */
+	private static final double EXTENT = 20037508.342789244;
+
+	/**
+	 * Amount of clusters per tile row and column.
+	 */
+	private static final int CLUSTER_GRID = 8;
+
+	/**
+	 * Max. amount of tree and beacon ids sent per cluster.
+	 */
+	private static final int CLUSTER_IDS = 4;
+
+	/**
+	 * Above this amount of changed trees and beacons, the whole cache is cleared
+	 * instead of evicting single tiles.
+	 */
+	private static final int MAX_EVICTED_POINTS = 1000;
+
+	@Autowired
+	private TreeCatalogueService treeCatalogueService;
+
+	@Autowired
+	private BeaconRegistryService beaconRegistryService;
+
+	@Value("${at.sparklingscience.urbantrees.map.tileCacheSize}")
+	private int tileCacheSize;
+
+	/**
+	 * Current trees and beacons (guarded by this).
+	 */
+	private MapPoints points;
+
+	/**
+	 * Cached tiles by {@link #tileKey(int, int, int)} in access order (guarded by this).
+	 */
+	private final LinkedHashMap<Long, MapTile> tiles = new LinkedHashMap<Long, MapTile>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, MapTile> eldest) {
+			return this.size() > tileCacheSize;
+		}
+	};
+
+	/**
+	 * Get the clustered trees and beacons of the given tile.
+	 * Callers must make sure the tile exists.
+	 * @param z zoom level (0 to {@link #MAX_ZOOM})
+	 * @param x tile column
+	 * @param y tile row
+	 * @return the tile; shared between callers and must not be modified
+	 */
+	public MapTile findTile(int z, int x, int y) {
+
+		final long key = tileKey(z, x, y);
+		final MapPoints points;
+		synchronized (this) {
+			points = this.points();
+			final MapTile cached = this.tiles.get(key);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		final MapTile tile = this.clusterTile(points, z, x, y);
+		synchronized (this) {
+			if (this.points == points) {
+				this.tiles.put(key, tile);
+			}
+		}
+		return tile;
+
+	}
+
+	/**
+	 * Get the current trees and beacons; reloaded if either have
+	 * changed since the last call. Must be called while holding this.
+	 */
+	private MapPoints points() {
+
+		final Catalogue catalogue = this.treeCatalogueService.find();
+		final List<Beacon> beacons = this.beaconRegistryService.findAllActive();
+		final MapPoints previous = this.points;
+		if (previous != null && previous.treeVersion == catalogue.getVersion() && previous.beacons == beacons) {
+			return previous;
+		}
+
+		final MapPoints loaded = new MapPoints(catalogue, beacons);
+		if (previous != null) {
+			this.evict(previous, loaded);
+		}
+		this.points = loaded;
+		return loaded;
+
+	}
+
+	/**
+	 * Evict all cached tiles containing a tree or beacon that was
+	 * added, moved or removed between the given points.
+	 */
+	private void evict(MapPoints previous, MapPoints loaded) {
+
+		final Set<Long> changed = new HashSet<>();
+		loaded.positions.forEach((key, position) -> {
+			if (!Arrays.equals(position, previous.positions.get(key))) {
+				changed.add(key);
+			}
+		});
+		for (Long key : previous.positions.keySet()) {
+			if (!loaded.positions.containsKey(key)) {
+				changed.add(key);
+			}
+		}
+		if (changed.isEmpty()) {
+			return;
+		}
+		if (changed.size() > MAX_EVICTED_POINTS) {
+			LOGGER.info("{} trees and beacons changed, clearing all map tiles.", changed.size());
+			this.tiles.clear();
+			return;
+		}
+
+		final int cachedBefore = this.tiles.size();
+		for (Long key : changed) {
+			this.evict(previous.positions.get(key));
+			this.evict(loaded.positions.get(key));
+		}
+		LOGGER.debug("{} trees and beacons changed, evicted {} map tiles.", changed.size(), cachedBefore - this.tiles.size());
+
+	}
+
+	/**
+	 * Evict the tiles of all zoom levels containing the given position.
+	 */
+	private void evict(double[] position) {
+
+		if (position == null || this.tiles.isEmpty()) {
+			return;
+		}
+		for (int z = 0; z <= MAX_ZOOM; z++) {
+			final double tileSize = tileSize(z);
+			final int maxTile = (1 << z) - 1;
+			final int x = Math.max(0, Math.min(maxTile, (int) Math.floor((position[0] + EXTENT) / tileSize)));
+			final int y = Math.max(0, Math.min(maxTile, (int) Math.floor((EXTENT - position[1]) / tileSize)));
+			this.tiles.remove(tileKey(z, x, y));
+		}
+
+	}
+
+	private MapTile clusterTile(MapPoints points, int z, int x, int y) {
+
+		final double tileSize = tileSize(z);
+		final double minX = -EXTENT + x * tileSize;
+		final double maxY = EXTENT - y * tileSize;
+		final double cellSize = tileSize / CLUSTER_GRID;
+
+		final Map<Integer, ClusterBuilder> cells = new HashMap<>();
+		for (MapPoint point : points.index.findInBounds(minX, maxY - tileSize, minX + tileSize, maxY)) {
+			// points on the east and south edge belong to the neighbour tile
+			if (point.x == minX + tileSize || point.y == maxY - tileSize) {
+				continue;
+			}
+			final int column = Math.min(CLUSTER_GRID - 1, (int) ((point.x - minX) / cellSize));
+			final int row = Math.min(CLUSTER_GRID - 1, (int) ((maxY - point.y) / cellSize));
+			cells.computeIfAbsent(row * CLUSTER_GRID + column, c -> new ClusterBuilder()).add(point);
+		}
+
+		final List<MapCluster> clusters = new ArrayList<>(cells.size());
+		cells.keySet().stream().sorted().forEach(cell -> clusters.add(cells.get(cell).build()));
+		return new MapTile(z, x, y, PROJECTION, clusters);
+
+	}
+
+	private static double tileSize(int z) {
+		return 2 * EXTENT / (1 << z);
+	}
+
+	private static long tileKey(int z, int x, int y) {
+		return ((long) z << 48) | ((long) x << 24) | y;
+	}
+
+	/**
+	 * @return coordinates of the given location if it is in the map tiles' projection; null otherwise
+	 */
+	private static Coordinates mapCoordinates(Location location) {
+		if (location == null || location.getCoordinates() == null
+				|| !PROJECTION.equals(location.getCoordinates().getProjection())) {
+			return null;
+		}
+		return location.getCoordinates();
+	}
+
+	/**
+	 * A tree or beacon on the map.
+	 */
+	private static final class MapPoint {
+
+		private final boolean beacon;
+
+		private final long id;
+
+		private final double x;
+
+		private final double y;
+
+		private MapPoint(boolean beacon, long id, Coordinates coordinates) {
+			this.beacon = beacon;
+			this.id = id;
+			this.x = coordinates.getX();
+			this.y = coordinates.getY();
+		}
+
+		private long key() {
+			return this.id * 2 + (this.beacon ? 1 : 0);
+		}
+
+	}
+
+	/**
+	 * All trees and beacons on the map at one catalogue version
+	 * and beacon registry state.
+	 */
+	private static final class MapPoints {
+
+		private final long treeVersion;
+
+		private final List<Beacon> beacons;
+
+		private final SpatialGridIndex<MapPoint> index;
+
+		/**
+		 * Position of every point by {@link MapPoint#key()}.
+		 */
+		private final Map<Long, double[]> positions = new HashMap<>();
+
+		private MapPoints(Catalogue catalogue, List<Beacon> beacons) {
+
+			this.treeVersion = catalogue.getVersion();
+			this.beacons = beacons;
+
+			final List<MapPoint> points = new ArrayList<>(catalogue.getTrees().size() + beacons.size());
+			for (Tree tree : catalogue.getTrees()) {
+				final Coordinates coordinates = mapCoordinates(tree.getLocation());
+				if (coordinates != null) {
+					points.add(new MapPoint(false, tree.getId(), coordinates));
+				}
+			}
+			for (Beacon beacon : beacons) {
+				final Coordinates coordinates = mapCoordinates(beacon.getLocation());
+				if (coordinates != null) {
+					points.add(new MapPoint(true, beacon.getId(), coordinates));
+				}
+			}
+			for (MapPoint point : points) {
+				this.positions.put(point.key(), new double[] {point.x, point.y});
+			}
+			this.index = new SpatialGridIndex<>(points, p -> p.x, p -> p.y);
+
+		}
+
+	}
+
+	/**
+	 * Collects the points of a single cluster.
+	 */
+	private static final class ClusterBuilder {
+
+		private double sumX;
+
+		private double sumY;
+
+		private int treeAmount;
+
+		private int beaconAmount;
+
+		private final long[] treeIds = new long[CLUSTER_IDS];
+
+		private final long[] beaconIds = new long[CLUSTER_IDS];
+
+		private void add(MapPoint point) {
+			this.sumX += point.x;
+			this.sumY += point.y;
+			if (point.beacon) {
+				if (this.beaconAmount < CLUSTER_IDS) {
+					this.beaconIds[this.beaconAmount] = point.id;
+				}
+				this.beaconAmount++;
+			} else {
+				if (this.treeAmount < CLUSTER_IDS) {
+					this.treeIds[this.treeAmount] = point.id;
+				}
+				this.treeAmount++;
+			}
+		}
+
+		private MapCluster build() {
+			final int amount = this.treeAmount + this.beaconAmount;
+			return new MapCluster(
+					this.sumX / amount,
+					this.sumY / amount,
+					this.treeAmount,
+					this.beaconAmount,
+					Arrays.copyOf(this.treeIds, Math.min(this.treeAmount, CLUSTER_IDS)),
+					Arrays.copyOf(this.beaconIds, Math.min(this.beaconAmount, CLUSTER_IDS))
+			);
+		}
+
+	}
+
+}
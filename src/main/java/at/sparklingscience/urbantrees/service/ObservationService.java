@@ -0,0 +1,280 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import at.sparklingscience.urbantrees.controller.util.ControllerUtil;
+import at.sparklingscience.urbantrees.domain.ObservationBatch;
+import at.sparklingscience.urbantrees.domain.ObservationBatchEntryResult;
+import at.sparklingscience.urbantrees.domain.ObservationBatchResult;
+import at.sparklingscience.urbantrees.domain.PhenologyDataset;
+import at.sparklingscience.urbantrees.domain.PhysiognomyDataset;
+import at.sparklingscience.urbantrees.domain.UserLevelAction;
+import at.sparklingscience.urbantrees.domain.UserLevelActionContext;
+import at.sparklingscience.urbantrees.domain.UserPermission;
+import at.sparklingscience.urbantrees.exception.BadRequestException;
+import at.sparklingscience.urbantrees.exception.ClientError;
+import at.sparklingscience.urbantrees.mapper.ApplicationMapper;
+import at.sparklingscience.urbantrees.mapper.PhenologyMapper;
+import at.sparklingscience.urbantrees.mapper.PhysiognomyMapper;
+
+/**
+ * Stores batches of phenology and physiognomy datasets, e.g. collected
+ * offline during a field session, using a fixed amount of statements
+ * regardless of the batch size.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class ObservationService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ObservationService.class);
+
+	/**
+	 * Max. amount of datasets (phenology and physiognomy) per batch.
+	 */
+	public static final int MAX_BATCH_SIZE = 500;
+
+	@Autowired
+	private AuthenticationService authService;
+
+	@Autowired
+	private UserService userService;
+
+	@Autowired
+	private TreeCatalogueService treeCatalogueService;
+
+	@Autowired
+	private PhenologyStatisticsService phenologyStatisticsService;
+
+	@Autowired
+	private ApplicationMapper appMapper;
+
+	@Autowired
+	private PhenologyMapper phenologyMapper;
+
+	@Autowired
+	private PhysiognomyMapper physiognomyMapper;
+
+	/**
+	 * Store all given datasets.
+	 * All datasets are checked before anything is inserted; datasets that can't
+	 * be stored (unknown tree, observers not permitted, duplicate observation date
+	 * in the batch or DB) are rejected individually, all others are stored
+	 * together: phenology datasets, their observers, their observations and
+	 * physiognomy datasets using one statement each.
+	 * XP are awarded once per set of observers, just like when
+	 * submitting the phenology datasets one by one.
+	 * @param batch datasets to store
+	 * @param auth current user
+	 * @return one result per dataset, in order
+	 * @throws BadRequestException if the batch contains more than {@link #MAX_BATCH_SIZE} datasets
+	 */
+	@Transactional
+	public ObservationBatchResult insertObservations(ObservationBatch batch, Authentication auth) {
+
+		final int batchSize = batch.getPhenology().size() + batch.getPhysiognomy().size();
+		if (batchSize > MAX_BATCH_SIZE) {
+			throw new BadRequestException("A batch may contain at most " + MAX_BATCH_SIZE + " datasets.");
+		}
+
+		final Map<Integer, Boolean> knownTrees = new HashMap<>();
+		final ObservationBatchEntryResult[] phenologyResults = this.insertPhenology(batch.getPhenology(), knownTrees, auth);
+		final ObservationBatchEntryResult[] physiognomyResults = this.insertPhysiognomy(batch.getPhysiognomy(), knownTrees);
+
+		return new ObservationBatchResult(Arrays.asList(phenologyResults), Arrays.asList(physiognomyResults));
+
+	}
+
+	private ObservationBatchEntryResult[] insertPhenology(List<PhenologyDataset> datasets,
+														 Map<Integer, Boolean> knownTrees,
+														 Authentication auth) {
+
+		final ObservationBatchEntryResult[] results = new ObservationBatchEntryResult[datasets.size()];
+		final boolean anonymous = ControllerUtil.isUserAnonymous(auth);
+		final Map<List<Integer>, Boolean> permittedObservers = new HashMap<>();
+		final Map<String, Integer> accepted = new LinkedHashMap<>();
+
+		for (int i = 0; i < datasets.size(); i++) {
+			final PhenologyDataset dataset = datasets.get(i);
+			final int[] observersUserIds = dataset.getObserversUserIds() == null ? new int[0] : dataset.getObserversUserIds();
+
+			final String rejection;
+			if (!this.treeExists(dataset.getTreeId(), knownTrees)) {
+				rejection = "Tree " + dataset.getTreeId() + " does not exist.";
+			} else if (anonymous && observersUserIds.length > 0) {
+				rejection = "Anonymous users can't share phenology observations with users.";
+			} else if (!anonymous && !permittedObservers.computeIfAbsent(
+					toList(observersUserIds),
+					ids -> this.authService.hasUserPermission(observersUserIds, ControllerUtil.getAuthToken(auth).getId(), UserPermission.PHENOLOGY_OBSERVATION))) {
+				rejection = "You are not allowed to share phenology observations with given users.";
+			} else {
+				rejection = null;
+			}
+
+			if (rejection != null) {
+				results[i] = ObservationBatchEntryResult.rejected(dataset.getTreeId(), ClientError.GENERIC_ERROR, rejection);
+			} else if (accepted.putIfAbsent(datasetKey(dataset.getTreeId(), dataset.getObservationDate()), i) != null) {
+				results[i] = duplicate(dataset.getTreeId());
+			}
+		}
+
+		if (accepted.isEmpty()) {
+			return results;
+		}
+
+		// observers are only associated with the ref ids after the datasets were inserted,
+		// so skipped duplicates don't leave orphaned refs
+		final int[][] observers = new int[datasets.size()][];
+		final List<Integer> refIds = anonymous ? null : this.appMapper.nextUserRefIds(accepted.size());
+		final List<PhenologyDataset> inserts = new ArrayList<>(accepted.size());
+		for (int i : accepted.values()) {
+			final PhenologyDataset dataset = datasets.get(i);
+			if (!anonymous) {
+				observers[i] = ControllerUtil.addUserIdToIntArray(
+						dataset.getObserversUserIds() == null ? new int[0] : dataset.getObserversUserIds(),
+						auth
+				);
+				dataset.setObservers(null);
+				dataset.setObserversRef(refIds.get(inserts.size()));
+			}
+			inserts.add(dataset);
+		}
+
+		LOGGER.debug("Inserting batch of {} phenology datasets", inserts.size());
+
+		final List<Integer> insertedIndices = new ArrayList<>(inserts.size());
+		for (PhenologyDataset stored : this.phenologyMapper.insertPhenologies(inserts)) {
+			final int i = accepted.remove(datasetKey(stored.getTreeId(), stored.getObservationDate()));
+			datasets.get(i).setId(stored.getId());
+			insertedIndices.add(i);
+		}
+		for (int i : accepted.values()) {
+			results[i] = duplicate(datasets.get(i).getTreeId());
+		}
+		if (insertedIndices.isEmpty()) {
+			return results;
+		}
+		insertedIndices.sort(null);
+
+		final List<PhenologyDataset> inserted = insertedIndices.stream().map(datasets::get).collect(Collectors.toList());
+		if (!anonymous) {
+			this.insertObservers(inserted, insertedIndices.stream().map(i -> observers[i]).collect(Collectors.toList()));
+		}
+		this.phenologyMapper.insertPhenologyObservations(inserted);
+		this.phenologyStatisticsService.increment(inserted.stream().map(PhenologyDataset::getId).collect(Collectors.toList()));
+
+		final Map<List<Integer>, Map<Integer, UserLevelActionContext>> xpContexts = new LinkedHashMap<>();
+		for (int i : insertedIndices) {
+			final PhenologyDataset dataset = datasets.get(i);
+			results[i] = ObservationBatchEntryResult.accepted(dataset.getTreeId(), dataset.getId());
+			if (!anonymous) {
+				// XP are only given once per tree and week, so later datasets of the same tree would get none
+				xpContexts
+					.computeIfAbsent(toList(observers[i]), ids -> new LinkedHashMap<>())
+					.putIfAbsent(dataset.getTreeId(), new UserLevelActionContext(dataset.getId(), dataset.getTreeId()));
+			}
+		}
+		xpContexts.forEach((userIds, contexts) -> this.userService.increaseXp(
+				UserLevelAction.PHENOLOGY_OBSERVATION,
+				new ArrayList<>(contexts.values()),
+				userIds.stream().mapToInt(Integer::intValue).toArray()
+		));
+
+		return results;
+
+	}
+
+	/**
+	 * Associate the observers with the ref ids of the given datasets using one statement.
+	 * @param datasets inserted datasets
+	 * @param observers user ids of the observers of each dataset
+	 */
+	private void insertObservers(List<PhenologyDataset> datasets, List<int[]> observers) {
+
+		final int refAmount = observers.stream().mapToInt(o -> o.length).sum();
+		if (refAmount == 0) {
+			return;
+		}
+		final int[] refIds = new int[refAmount];
+		final int[] userIds = new int[refAmount];
+		int i = 0;
+		for (int d = 0; d < datasets.size(); d++) {
+			for (int userId : observers.get(d)) {
+				refIds[i] = datasets.get(d).getObserversRef();
+				userIds[i] = userId;
+				i++;
+			}
+		}
+		this.appMapper.insertUserRefs(refIds, userIds);
+
+	}
+
+	private ObservationBatchEntryResult[] insertPhysiognomy(List<PhysiognomyDataset> datasets, Map<Integer, Boolean> knownTrees) {
+
+		final ObservationBatchEntryResult[] results = new ObservationBatchEntryResult[datasets.size()];
+		final Map<String, Integer> accepted = new LinkedHashMap<>();
+
+		for (int i = 0; i < datasets.size(); i++) {
+			final PhysiognomyDataset dataset = datasets.get(i);
+			if (!this.treeExists(dataset.getTreeId(), knownTrees)) {
+				results[i] = ObservationBatchEntryResult.rejected(dataset.getTreeId(), ClientError.GENERIC_ERROR, "Tree " + dataset.getTreeId() + " does not exist.");
+			} else if (accepted.putIfAbsent(datasetKey(dataset.getTreeId(), dataset.getObservationDate()), i) != null) {
+				results[i] = duplicate(dataset.getTreeId());
+			}
+		}
+
+		if (accepted.isEmpty()) {
+			return results;
+		}
+
+		LOGGER.debug("Inserting batch of {} physiognomy datasets", accepted.size());
+
+		final List<PhysiognomyDataset> inserts = accepted.values().stream().map(datasets::get).collect(Collectors.toList());
+		for (PhysiognomyDataset stored : this.physiognomyMapper.insertPhysiognomyDatasets(inserts)) {
+			final int i = accepted.remove(datasetKey(stored.getTreeId(), stored.getObservationDate()));
+			datasets.get(i).setId(stored.getId());
+			results[i] = ObservationBatchEntryResult.accepted(stored.getTreeId(), stored.getId());
+		}
+		for (int i : accepted.values()) {
+			results[i] = duplicate(datasets.get(i).getTreeId());
+		}
+
+		return results;
+
+	}
+
+	private boolean treeExists(int treeId, Map<Integer, Boolean> knownTrees) {
+		return knownTrees.computeIfAbsent(treeId, id -> this.treeCatalogueService.findTree(id) != null);
+	}
+
+	private static ObservationBatchEntryResult duplicate(int treeId) {
+		return ObservationBatchEntryResult.rejected(treeId, ClientError.PHENOLOGY_DUPLICATE, "There is already an observation with given observationDate.");
+	}
+
+	/**
+	 * @return key identifying a dataset in the batch and DB
+	 */
+	private static String datasetKey(int treeId, Date observationDate) {
+		return treeId + "/" + observationDate.getTime();
+	}
+
+	private static List<Integer> toList(int[] values) {
+		return Arrays.stream(values).boxed().collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,77 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import at.sparklingscience.urbantrees.domain.PhenologyObservationStatistics;
+import at.sparklingscience.urbantrees.mapper.PhenologyMapper;
+
+/**
+ * Weekly phenology observation counts per species, observed object and result
+ * (e.g. how many observations of a species reported flowering in week 17).
+ * Counts are kept in their own table and increased with every inserted
+ * dataset, so queries only read one row per bucket instead of all observations.
+ * Counts are attributed to the species a tree had when the dataset was
+ * inserted; after changing trees' species or data by hand, {@link #rebuild()}
+ * recalculates them.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class PhenologyStatisticsService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PhenologyStatisticsService.class);
+
+	@Autowired
+	private PhenologyMapper phenologyMapper;
+
+	/**
+	 * Add the observations of the given newly inserted datasets to the counts.
+	 * Must be called in the transaction inserting the datasets, exactly once per dataset.
+	 * @param phenologyIds ids of the inserted datasets
+	 */
+	public void increment(List<Long> phenologyIds) {
+
+		if (phenologyIds.isEmpty()) {
+			return;
+		}
+		this.phenologyMapper.incrementPhenologyObservationStatistics(phenologyIds);
+
+	}
+
+	/**
+	 * Get the weekly counts of the given species.
+	 * @param speciesId id of the species
+	 * @param typeId (optional) only return counts of this observation type
+	 * @param yearMin (optional) first ISO year to return (inclusive)
+	 * @param yearMax (optional) last ISO year to return (inclusive)
+	 * @return counts ordered by type, year, week, object and result;
+	 * 		   buckets without observations are omitted
+	 */
+	public List<PhenologyObservationStatistics> find(long speciesId, Long typeId, Integer yearMin, Integer yearMax) {
+		return this.phenologyMapper.findPhenologyObservationStatistics(speciesId, typeId, yearMin, yearMax);
+	}
+
+	/**
+	 * Recalculate all counts from the stored datasets.
+	 * Inserts of new datasets wait until the rebuild is done.
+	 * @return amount of buckets
+	 */
+	@Transactional
+	public int rebuild() {
+
+		this.phenologyMapper.lockPhenologyObservationStatistics();
+		this.phenologyMapper.deletePhenologyObservationStatistics();
+		final int bucketAmount = this.phenologyMapper.incrementPhenologyObservationStatistics(null);
+		LOGGER.info("Rebuilt phenology statistics: {} buckets.", bucketAmount);
+		return bucketAmount;
+
+	}
+
+}
@@ -0,0 +1,182 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import at.sparklingscience.urbantrees.domain.City;
+import at.sparklingscience.urbantrees.domain.PhenologyObservationType;
+import at.sparklingscience.urbantrees.domain.TreeSpecies;
+import at.sparklingscience.urbantrees.mapper.PhenologyMapper;
+import at.sparklingscience.urbantrees.mapper.TreeMapper;
+
+/**
+ * In-memory cache of reference data: cities, tree species (with their
+ * genus) and the phenology observation specification per species.
+ * This data changes maybe once a season, so it is loaded at startup
+ * and reloaded after changes instead of querying the DB on every request.
+ * Returned objects are shared between callers and must not be modified.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class ReferenceDataService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceDataService.class);
+
+	@Autowired
+	private TreeMapper treeMapper;
+
+	@Autowired
+	private PhenologyMapper phenologyMapper;
+
+	/**
+	 * Current cache contents. Replaced as a whole on reload;
+	 * null if the last reload failed.
+	 */
+	private volatile Snapshot snapshot;
+
+	@PostConstruct
+	private void start() {
+		try {
+			this.reload();
+		} catch (RuntimeException e) {
+			// retried on first lookup
+		}
+	}
+
+	/**
+	 * @return all cities
+	 */
+	public List<City> findCities() {
+		return this.snapshot().cities;
+	}
+
+	/**
+	 * @return all tree species
+	 */
+	public List<TreeSpecies> findSpecies() {
+		return this.snapshot().species;
+	}
+
+	/**
+	 * @param speciesId id of the species
+	 * @return the species or null if it does not exist
+	 */
+	public TreeSpecies findSpeciesById(long speciesId) {
+		return this.snapshot().speciesById.get(speciesId);
+	}
+
+	/**
+	 * Get the phenology observation specification of the given species.
+	 * Species unknown to the cache are loaded from the DB (but not cached).
+	 * @param speciesId id of the species
+	 * @return observation types to show for the species
+	 */
+	public List<PhenologyObservationType> findObservationTypes(long speciesId) {
+
+		final List<PhenologyObservationType> types = this.snapshot().observationTypesBySpeciesId.get(speciesId);
+		if (types != null) {
+			return types;
+		}
+		return this.phenologyMapper.getObservationTypesForTreeSpeciesId((int) speciesId);
+
+	}
+
+	/**
+	 * Reload the cache after reference data has changed.
+	 * If called inside a transaction, the reload happens after commit,
+	 * so uncommitted or rolled back changes never become visible.
+	 */
+	public void invalidate() {
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					reload();
+				}
+			});
+		} else {
+			this.reload();
+		}
+
+	}
+
+	private Snapshot snapshot() {
+
+		Snapshot current = this.snapshot;
+		if (current == null) {
+			current = this.reload();
+		}
+		return current;
+
+	}
+
+	/**
+	 * Load all reference data from the DB and replace the snapshot.
+	 */
+	private synchronized Snapshot reload() {
+
+		try {
+			final List<TreeSpecies> species = this.treeMapper.getSpecies();
+			final Map<Long, List<PhenologyObservationType>> observationTypes = new HashMap<>();
+			for (TreeSpecies s : species) {
+				observationTypes.put(
+					s.getId(),
+					List.copyOf(this.phenologyMapper.getObservationTypesForTreeSpeciesId((int) s.getId()))
+				);
+			}
+
+			final Snapshot loaded = new Snapshot(this.treeMapper.getCities(), species, observationTypes);
+			this.snapshot = loaded;
+			LOGGER.debug("Loaded {} cities and {} species into reference data cache", loaded.cities.size(), loaded.species.size());
+			return loaded;
+		} catch (RuntimeException e) {
+			this.snapshot = null;
+			LOGGER.error("Failed to load reference data: {}", e.getMessage(), e);
+			throw e;
+		}
+
+	}
+
+	/**
+	 * Immutable reference data.
+	 */
+	private static final class Snapshot {
+
+		private final List<City> cities;
+
+		private final List<TreeSpecies> species;
+
+		private final Map<Long, TreeSpecies> speciesById;
+
+		private final Map<Long, List<PhenologyObservationType>> observationTypesBySpeciesId;
+
+		private Snapshot(List<City> cities, List<TreeSpecies> species, Map<Long, List<PhenologyObservationType>> observationTypes) {
+
+			final Map<Long, TreeSpecies> speciesById = new HashMap<>();
+			for (TreeSpecies s : species) {
+				speciesById.put(s.getId(), s);
+			}
+
+			this.cities = List.copyOf(cities);
+			this.species = List.copyOf(species);
+			this.speciesById = Map.copyOf(speciesById);
+			this.observationTypesBySpeciesId = Map.copyOf(observationTypes);
+
+		}
+
+	}
+
+}
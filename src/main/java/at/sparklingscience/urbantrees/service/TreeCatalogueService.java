@@ -0,0 +1,385 @@
+package at.sparklingscience.urbantrees.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.sparklingscience.urbantrees.domain.Coordinates;
+import at.sparklingscience.urbantrees.domain.Tree;
+import at.sparklingscience.urbantrees.domain.TreeCatalogueChanges;
+import at.sparklingscience.urbantrees.domain.TreeSpecies;
+import at.sparklingscience.urbantrees.exception.InternalException;
+import at.sparklingscience.urbantrees.mapper.TreeMapper;
+import at.sparklingscience.urbantrees.util.SpatialGridIndex;
+
+/**
+ * Keeps the list of all trees (the tree catalogue) in memory, already
+ * serialized and gzip-compressed, so it can be served as-is.
+ * The catalogue is rebuilt on the next request after {@link #invalidate()}.
+ * Every rebuild compares each trees' JSON with the previous catalogue; only
+ * if anything changed, a new version is assigned and the changed trees are
+ * recorded for {@link #findChanges(long)}.
+ * Versions are epoch millis of the change (or higher), so they keep
+ * increasing across restarts.
+ * Every catalogue version also carries a spatial index over the trees'
+ * coordinates (one per projection) for viewport and nearest-tree queries.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Service
+public class TreeCatalogueService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TreeCatalogueService.class);
+
+	@Autowired
+	private TreeMapper treeMapper;
+
+	@Autowired
+	private ObjectMapper jsonObjectMapper;
+
+	@Autowired
+	private ReferenceDataService referenceDataService;
+
+	/**
+	 * Current catalogue; null before the first build.
+	 */
+	private volatile Catalogue catalogue;
+
+	/**
+	 * True if the catalogue must be rebuilt before being served.
+	 */
+	private volatile boolean dirty = true;
+
+	/**
+	 * Version of the first catalogue built since startup.
+	 * Changes before this version are unknown.
+	 */
+	private long baseVersion;
+
+	/**
+	 * Version of the last change by tree id (guarded by this).
+	 */
+	private final Map<Long, Long> changedVersions = new HashMap<>();
+
+	/**
+	 * Version of the removal by tree id (guarded by this).
+	 */
+	private final Map<Long, Long> deletedVersions = new HashMap<>();
+
+	/**
+	 * @return the current catalogue, rebuilt if needed
+	 */
+	public Catalogue find() {
+
+		final Catalogue current = this.catalogue;
+		if (current == null || this.dirty) {
+			return this.rebuild();
+		}
+		return current;
+
+	}
+
+	/**
+	 * @param treeId id of the tree
+	 * @return the tree of the current catalogue or, if it is not part of it,
+	 * 		   from the DB; null if it does not exist
+	 */
+	public Tree findTree(long treeId) {
+
+		final Tree tree = this.find().trees.get(treeId);
+		if (tree != null) {
+			return tree;
+		}
+		return this.treeMapper.findTreeById((int) treeId);
+
+	}
+
+	/**
+	 * Get all trees changed since the given catalogue version.
+	 * @param since version known by the client
+	 * @return changes; if they are not known, {@link TreeCatalogueChanges#isFull()} is set
+	 */
+	public TreeCatalogueChanges findChanges(long since) {
+
+		// rebuilds update the catalogue and the change maps under the same lock,
+		// so taking both inside it keeps every changed tree present in the catalogue
+		synchronized (this) {
+			final Catalogue current = this.find();
+			if (since < this.baseVersion || since > current.version) {
+				return new TreeCatalogueChanges(current.version, true, Collections.emptyList(), Collections.emptyList());
+			}
+
+			final List<Tree> trees = new ArrayList<>();
+			this.changedVersions.forEach((treeId, version) -> {
+				if (version > since) {
+					trees.add(current.trees.get(treeId));
+				}
+			});
+			final List<Long> deletedTreeIds = new ArrayList<>();
+			this.deletedVersions.forEach((treeId, version) -> {
+				if (version > since) {
+					deletedTreeIds.add(treeId);
+				}
+			});
+			return new TreeCatalogueChanges(current.version, false, trees, deletedTreeIds);
+		}
+
+	}
+
+	/**
+	 * Find all trees inside the given bounding box.
+	 * @param projection projection of the given coordinates; if null, trees of all projections are searched
+	 * @return trees in no particular order
+	 */
+	public List<Tree> findInBounds(double minX, double minY, double maxX, double maxY, String projection) {
+
+		final List<Tree> trees = new ArrayList<>();
+		for (SpatialGridIndex<Tree> index : this.find().indexes(projection)) {
+			trees.addAll(index.findInBounds(minX, minY, maxX, maxY));
+		}
+		return trees;
+
+	}
+
+	/**
+	 * Find the k trees closest to the given point.
+	 * @param projection projection of the given coordinates; if null, trees of all projections are searched
+	 * @return up to k trees, closest first
+	 */
+	public List<Tree> findNearest(double x, double y, int k, String projection) {
+
+		final List<SpatialGridIndex<Tree>> indexes = this.find().indexes(projection);
+		if (indexes.size() == 1) {
+			return indexes.get(0).findNearest(x, y, k);
+		}
+
+		final List<Tree> trees = new ArrayList<>();
+		for (SpatialGridIndex<Tree> index : indexes) {
+			trees.addAll(index.findNearest(x, y, k));
+		}
+		trees.sort(Comparator.comparingDouble(t -> {
+			final Coordinates c = t.getLocation().getCoordinates();
+			return (c.getX() - x) * (c.getX() - x) + (c.getY() - y) * (c.getY() - y);
+		}));
+		return trees.size() > k ? new ArrayList<>(trees.subList(0, k)) : trees;
+
+	}
+
+	/**
+	 * Mark the catalogue for rebuild. If called inside a transaction,
+	 * this happens after commit. Uses afterCompletion, since this is
+	 * also called from other services' afterCommit callbacks, where newly
+	 * registered afterCommit callbacks would not be invoked anymore.
+	 */
+	public void invalidate() {
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status == STATUS_COMMITTED) {
+						dirty = true;
+					}
+				}
+			});
+		} else {
+			this.dirty = true;
+		}
+
+	}
+
+	private synchronized Catalogue rebuild() {
+
+		final Catalogue previous = this.catalogue;
+		if (previous != null && !this.dirty) {
+			return previous;
+		}
+		this.dirty = false;
+
+		try {
+			final Map<Long, Tree> trees = new LinkedHashMap<>();
+			final Map<Long, byte[]> treesJson = new HashMap<>();
+			for (Tree tree : this.treeMapper.getAllTrees()) {
+				// share species instances with the reference data cache
+				final TreeSpecies species = tree.getSpecies() == null ? null : this.referenceDataService.findSpeciesById(tree.getSpecies().getId());
+				if (species != null) {
+					tree.setSpecies(species);
+				}
+				trees.put(tree.getId(), tree);
+				treesJson.put(tree.getId(), this.jsonObjectMapper.writeValueAsBytes(tree));
+			}
+
+			final long version;
+			if (previous == null) {
+				version = System.currentTimeMillis();
+				this.baseVersion = version;
+			} else {
+				final List<Long> changed = new ArrayList<>();
+				treesJson.forEach((treeId, json) -> {
+					if (!Arrays.equals(json, previous.treesJson.get(treeId))) {
+						changed.add(treeId);
+					}
+				});
+				final List<Long> deleted = new ArrayList<>();
+				for (Long treeId : previous.trees.keySet()) {
+					if (!trees.containsKey(treeId)) {
+						deleted.add(treeId);
+					}
+				}
+				if (changed.isEmpty() && deleted.isEmpty()) {
+					LOGGER.debug("Tree catalogue unchanged at version {}.", previous.version);
+					return previous;
+				}
+
+				version = Math.max(previous.version + 1, System.currentTimeMillis());
+				for (Long treeId : changed) {
+					this.changedVersions.put(treeId, version);
+					this.deletedVersions.remove(treeId);
+				}
+				for (Long treeId : deleted) {
+					this.deletedVersions.put(treeId, version);
+					this.changedVersions.remove(treeId);
+				}
+				LOGGER.info("Tree catalogue version {}: {} trees changed, {} removed.", version, changed.size(), deleted.size());
+			}
+
+			final Catalogue built = new Catalogue(version, trees, treesJson);
+			this.catalogue = built;
+			return built;
+		} catch (IOException | RuntimeException e) {
+			this.dirty = true;
+			LOGGER.error("Failed to build tree catalogue: {}", e.getMessage(), e);
+			throw new InternalException("Failed to load trees.");
+		}
+
+	}
+
+	/**
+	 * Immutable, serialized state of all trees at one version.
+	 */
+	public static final class Catalogue {
+
+		private final long version;
+
+		private final Map<Long, Tree> trees;
+
+		private final Map<Long, byte[]> treesJson;
+
+		private final byte[] json;
+
+		private final byte[] gzipJson;
+
+		/**
+		 * Spatial index of all trees with coordinates by projection.
+		 */
+		private final Map<String, SpatialGridIndex<Tree>> indexes = new HashMap<>();
+
+		private Catalogue(long version, Map<Long, Tree> trees, Map<Long, byte[]> treesJson) throws IOException {
+
+			this.version = version;
+			this.trees = trees;
+			this.treesJson = treesJson;
+
+			final Map<String, List<Tree>> treesByProjection = new HashMap<>();
+			for (Tree tree : trees.values()) {
+				if (tree.getLocation() != null && tree.getLocation().getCoordinates() != null) {
+					treesByProjection
+						.computeIfAbsent(String.valueOf(tree.getLocation().getCoordinates().getProjection()), p -> new ArrayList<>())
+						.add(tree);
+				}
+			}
+			treesByProjection.forEach((projection, projectionTrees) -> this.indexes.put(
+					projection,
+					new SpatialGridIndex<>(
+							projectionTrees,
+							t -> t.getLocation().getCoordinates().getX(),
+							t -> t.getLocation().getCoordinates().getY()
+					)
+			));
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			out.write('[');
+			boolean first = true;
+			for (Long treeId : trees.keySet()) {
+				if (!first) {
+					out.write(',');
+				}
+				out.write(treesJson.get(treeId));
+				first = false;
+			}
+			out.write(']');
+			this.json = out.toByteArray();
+
+			final ByteArrayOutputStream gzipOut = new ByteArrayOutputStream(this.json.length / 4);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(gzipOut)) {
+				gzip.write(this.json);
+			}
+			this.gzipJson = gzipOut.toByteArray();
+
+		}
+
+		/**
+		 * @param projection projection to get the index of; null for all
+		 */
+		private List<SpatialGridIndex<Tree>> indexes(String projection) {
+			if (projection == null) {
+				return new ArrayList<>(this.indexes.values());
+			}
+			final SpatialGridIndex<Tree> index = this.indexes.get(projection);
+			return index == null ? Collections.emptyList() : Collections.singletonList(index);
+		}
+
+		/**
+		 * @return all trees of this version, ordered by id
+		 */
+		public Collection<Tree> getTrees() {
+			return Collections.unmodifiableCollection(trees.values());
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * @return weak ETag of this version, the same for all content encodings
+		 */
+		public String getETag() {
+			return "W/\"" + version + "\"";
+		}
+
+		/**
+		 * @return JSON array of all trees
+		 */
+		public byte[] getJson() {
+			return json;
+		}
+
+		/**
+		 * @return gzip-compressed {@link #getJson()}
+		 */
+		public byte[] getGzipJson() {
+			return gzipJson;
+		}
+
+	}
+
+}
@@ -1,5 +1,6 @@
 package at.sparklingscience.urbantrees.service;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -134,6 +135,53 @@ public class UserService {
 		
 	}
 	
+	/**
+	 * Execute the XP increase for multiple actions of the same type at once,
+	 * e.g. for a batch of beacon readouts.
+	 * The reward of each context is calculated just like in
+	 * {@link #increaseXp(UserLevelAction, UserLevelActionContext, int[])}, but
+	 * the users' XP history is only loaded once and all entries of a user
+	 * are inserted using a single statement.
+	 * @param action action to get the xp amount from
+	 * @param contexts contexts to reward; should not share a common id
+	 * @param userIds users to reward
+	 */
+	public void increaseXp(UserLevelAction action, List<UserLevelActionContext> contexts, int[] userIds) {
+		
+		if (contexts.isEmpty()) {
+			return;
+		}
+		
+		try {
+			
+			for (int userId : userIds) {
+				List<UserXp> xpHistory = this.userMapper.findXpHistoryByUserId(userId);
+				if (xpHistory.isEmpty()) {
+					this.prepareXp(userId, true);
+				}
+				
+				List<UserXp> increases = new ArrayList<>(contexts.size());
+				int xpSum = 0;
+				for (UserLevelActionContext context : contexts) {
+					xpSum += (int) Math.floor(action.getRewardXp(action, context, xpHistory) / userIds.length);
+					UserXp increase = new UserXp();
+					increase.setXp(xpSum);
+					increase.setContext(context);
+					increases.add(increase);
+				}
+				
+				LOGGER.debug("Increasing XP for user - user: {}, action: {}, xp: {}, contexts: {}", userId, action, xpSum, contexts.size());
+				this.userMapper.insertIncreaseLevels(userId, action, increases);
+				LOGGER.debug("Successfully increased XP for user - user: {}, action: {}, xp: {}, contexts: {}", userId, action, xpSum, contexts.size());
+			}
+			
+		} catch (Throwable t) {
+			LOGGER.error("Failed to increase XP for users {}: {}", userIds, t.getMessage(), t);
+			this.appService.logExceptionEvent("Failed to increase XP for users: " + t.getMessage(), t);
+		}
+		
+	}
+	
 	/**
 	 * TODO
 	 * @param userId
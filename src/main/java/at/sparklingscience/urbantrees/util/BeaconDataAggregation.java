@@ -0,0 +1,107 @@
+package at.sparklingscience.urbantrees.util;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconDatasetAggregate;
+
+/**
+ * Builds and combines {@link BeaconDatasetAggregate}s in memory, for
+ * aggregates that are read from more than one source (rollups and raw
+ * data) or calculated from archived datasets.
+ * Buckets are aligned to the unix epoch, like the DB queries do.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public final class BeaconDataAggregation {
+
+	private BeaconDataAggregation() {
+	}
+
+	/**
+	 * Aggregate the given datasets into buckets of the given width.
+	 * @param datasets datasets to aggregate (any order)
+	 * @param bucketSec bucket width in seconds
+	 * @return aggregates per non-empty bucket, oldest first
+	 */
+	public static List<BeaconDatasetAggregate> aggregate(Iterable<BeaconDataset> datasets, long bucketSec) {
+
+		final long bucketMs = bucketSec * 1000;
+		final Map<Long, BeaconDatasetAggregate> buckets = new TreeMap<>();
+		for (BeaconDataset dataset : datasets) {
+			final long bucketStart = Math.floorDiv(dataset.getObservationDate().getTime(), bucketMs) * bucketMs;
+			final BeaconDatasetAggregate single = new BeaconDatasetAggregate();
+			single.setBucketStartDate(new Date(bucketStart));
+			single.setBucketSec(bucketSec);
+			single.setDatasetAmount(1);
+			single.setTemperatureMin(dataset.getTemperature());
+			single.setTemperatureAvg(dataset.getTemperature());
+			single.setTemperatureMax(dataset.getTemperature());
+			single.setHumidityMin(dataset.getHumidity());
+			single.setHumidityAvg(dataset.getHumidity());
+			single.setHumidityMax(dataset.getHumidity());
+			single.setDewPointMin(dataset.getDewPoint());
+			single.setDewPointAvg(dataset.getDewPoint());
+			single.setDewPointMax(dataset.getDewPoint());
+			buckets.merge(bucketStart, single, BeaconDataAggregation::merge);
+		}
+		return new ArrayList<>(buckets.values());
+
+	}
+
+	/**
+	 * Combine aggregates of disjoint parts of the same data into one list.
+	 * Aggregates of the same bucket are merged: amounts are added, averages
+	 * are weighted by amount and min/max taken over all parts.
+	 * All aggregates must have the same bucket width.
+	 * @param parts aggregates, each ordered by bucket
+	 * @return combined aggregates, oldest first
+	 */
+	public static List<BeaconDatasetAggregate> combine(List<List<BeaconDatasetAggregate>> parts) {
+
+		if (parts.size() == 1) {
+			return parts.get(0);
+		}
+
+		final Map<Long, BeaconDatasetAggregate> buckets = new TreeMap<>();
+		for (List<BeaconDatasetAggregate> part : parts) {
+			for (BeaconDatasetAggregate aggregate : part) {
+				buckets.merge(aggregate.getBucketStartDate().getTime(), aggregate, BeaconDataAggregation::merge);
+			}
+		}
+		return new ArrayList<>(buckets.values());
+
+	}
+
+	/**
+	 * @return new aggregate of both given aggregates of the same bucket
+	 */
+	private static BeaconDatasetAggregate merge(BeaconDatasetAggregate a, BeaconDatasetAggregate b) {
+
+		final long amount = a.getDatasetAmount() + b.getDatasetAmount();
+		final double weightA = (double) a.getDatasetAmount() / amount;
+		final double weightB = (double) b.getDatasetAmount() / amount;
+
+		final BeaconDatasetAggregate merged = new BeaconDatasetAggregate();
+		merged.setBucketStartDate(a.getBucketStartDate());
+		merged.setBucketSec(a.getBucketSec());
+		merged.setDatasetAmount(amount);
+		merged.setTemperatureMin(Math.min(a.getTemperatureMin(), b.getTemperatureMin()));
+		merged.setTemperatureAvg(a.getTemperatureAvg() * weightA + b.getTemperatureAvg() * weightB);
+		merged.setTemperatureMax(Math.max(a.getTemperatureMax(), b.getTemperatureMax()));
+		merged.setHumidityMin(Math.min(a.getHumidityMin(), b.getHumidityMin()));
+		merged.setHumidityAvg(a.getHumidityAvg() * weightA + b.getHumidityAvg() * weightB);
+		merged.setHumidityMax(Math.max(a.getHumidityMax(), b.getHumidityMax()));
+		merged.setDewPointMin(Math.min(a.getDewPointMin(), b.getDewPointMin()));
+		merged.setDewPointAvg(a.getDewPointAvg() * weightA + b.getDewPointAvg() * weightB);
+		merged.setDewPointMax(Math.max(a.getDewPointMax(), b.getDewPointMax()));
+		return merged;
+
+	}
+
+}
@@ -0,0 +1,298 @@
+package at.sparklingscience.urbantrees.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+
+/**
+ * Compact columnar encoding of {@link BeaconDataset}s used for archiving.
+ * Follows the approach of Facebooks' Gorilla TSDB:
+ * <ul>
+ * 	<li>observation dates and ids are stored as delta-of-deltas,
+ * 		which is mostly a single bit for regularly logged data</li>
+ * 	<li>measurements are XOR'ed with their predecessor and only
+ * 		the meaningful bits of the result are stored</li>
+ * </ul>
+ * Every column is stored in one piece, so decoding a column is a
+ * single sequential pass over the bit stream.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public final class BeaconDataCodec {
+	
+	/**
+	 * Written as first byte; increase on incompatible format changes.
+	 */
+	private static final int FORMAT_VERSION = 1;
+	
+	private BeaconDataCodec() {
+	}
+	
+	/**
+	 * Encode the given datasets.
+	 * @param datasets datasets ordered by observation date
+	 * @return encoded datasets
+	 */
+	public static byte[] encode(List<BeaconDataset> datasets) {
+		
+		final BitWriter out = new BitWriter(datasets.size() * 12 + 16);
+		out.write(FORMAT_VERSION, 8);
+		out.write(datasets.size(), 32);
+		
+		if (!datasets.isEmpty()) {
+			encodeLongs(out, datasets, d -> d.getObservationDate().getTime());
+			encodeLongs(out, datasets, BeaconDataset::getId);
+			encodeDoubles(out, datasets, BeaconDataset::getTemperature);
+			encodeDoubles(out, datasets, BeaconDataset::getHumidity);
+			encodeDoubles(out, datasets, BeaconDataset::getDewPoint);
+		}
+		
+		return out.toByteArray();
+		
+	}
+	
+	/**
+	 * Decode datasets previously encoded using {@link #encode(List)}.
+	 * @param data encoded datasets
+	 * @param beaconId beacon id to set on the decoded datasets
+	 * @return decoded datasets in original order
+	 * @throws IllegalArgumentException if the data is not in a known format
+	 */
+	public static List<BeaconDataset> decode(byte[] data, int beaconId) {
+		
+		final BitReader in = new BitReader(data);
+		final int version = (int) in.read(8);
+		if (version != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unknown archive format version: " + version);
+		}
+		final int amount = (int) in.read(32);
+		
+		final List<BeaconDataset> datasets = new ArrayList<>(amount);
+		if (amount == 0) {
+			return datasets;
+		}
+		
+		final long[] times = decodeLongs(in, amount);
+		final long[] ids = decodeLongs(in, amount);
+		final double[] temperatures = decodeDoubles(in, amount);
+		final double[] humidities = decodeDoubles(in, amount);
+		final double[] dewPoints = decodeDoubles(in, amount);
+		
+		for (int i = 0; i < amount; i++) {
+			BeaconDataset dataset = new BeaconDataset();
+			dataset.setId(ids[i]);
+			dataset.setBeaconId(beaconId);
+			dataset.setObservationDate(new Date(times[i]));
+			dataset.setTemperature(temperatures[i]);
+			dataset.setHumidity(humidities[i]);
+			dataset.setDewPoint(dewPoints[i]);
+			datasets.add(dataset);
+		}
+		
+		return datasets;
+		
+	}
+	
+	private static void encodeLongs(BitWriter out, List<BeaconDataset> datasets, ToLongFunction<BeaconDataset> column) {
+		
+		long previous = column.applyAsLong(datasets.get(0));
+		long previousDelta = 0;
+		out.write(previous, 64);
+		
+		for (int i = 1; i < datasets.size(); i++) {
+			final long value = column.applyAsLong(datasets.get(i));
+			final long delta = value - previous;
+			final long deltaOfDelta = delta - previousDelta;
+			
+			if (deltaOfDelta == 0) {
+				out.write(0b0, 1);
+			} else if (deltaOfDelta >= -63 && deltaOfDelta <= 64) {
+				out.write(0b10, 2);
+				out.write(deltaOfDelta + 63, 7);
+			} else if (deltaOfDelta >= -255 && deltaOfDelta <= 256) {
+				out.write(0b110, 3);
+				out.write(deltaOfDelta + 255, 9);
+			} else if (deltaOfDelta >= -2047 && deltaOfDelta <= 2048) {
+				out.write(0b1110, 4);
+				out.write(deltaOfDelta + 2047, 12);
+			} else {
+				out.write(0b1111, 4);
+				out.write(deltaOfDelta, 64);
+			}
+			
+			previous = value;
+			previousDelta = delta;
+		}
+		
+	}
+	
+	private static long[] decodeLongs(BitReader in, int amount) {
+		
+		final long[] values = new long[amount];
+		values[0] = in.read(64);
+		long previousDelta = 0;
+		
+		for (int i = 1; i < amount; i++) {
+			final long deltaOfDelta;
+			if (in.read(1) == 0) {
+				deltaOfDelta = 0;
+			} else if (in.read(1) == 0) {
+				deltaOfDelta = in.read(7) - 63;
+			} else if (in.read(1) == 0) {
+				deltaOfDelta = in.read(9) - 255;
+			} else if (in.read(1) == 0) {
+				deltaOfDelta = in.read(12) - 2047;
+			} else {
+				deltaOfDelta = in.read(64);
+			}
+			previousDelta += deltaOfDelta;
+			values[i] = values[i - 1] + previousDelta;
+		}
+		
+		return values;
+		
+	}
+	
+	private static void encodeDoubles(BitWriter out, List<BeaconDataset> datasets, ToDoubleFunction<BeaconDataset> column) {
+		
+		long previous = Double.doubleToRawLongBits(column.applyAsDouble(datasets.get(0)));
+		int previousLeading = -1;
+		int previousTrailing = 0;
+		out.write(previous, 64);
+		
+		for (int i = 1; i < datasets.size(); i++) {
+			final long value = Double.doubleToRawLongBits(column.applyAsDouble(datasets.get(i)));
+			final long xor = value ^ previous;
+			
+			if (xor == 0) {
+				out.write(0b0, 1);
+			} else {
+				final int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+				final int trailing = Long.numberOfTrailingZeros(xor);
+				
+				if (previousLeading != -1 && leading >= previousLeading && trailing >= previousTrailing) {
+					// meaningful bits fit into the previous window
+					out.write(0b10, 2);
+					out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+				} else {
+					final int significant = 64 - leading - trailing;
+					out.write(0b11, 2);
+					out.write(leading, 5);
+					out.write(significant - 1, 6);
+					out.write(xor >>> trailing, significant);
+					previousLeading = leading;
+					previousTrailing = trailing;
+				}
+			}
+			
+			previous = value;
+		}
+		
+	}
+	
+	private static double[] decodeDoubles(BitReader in, int amount) {
+		
+		final double[] values = new double[amount];
+		long previous = in.read(64);
+		int previousLeading = 0;
+		int previousTrailing = 0;
+		values[0] = Double.longBitsToDouble(previous);
+		
+		for (int i = 1; i < amount; i++) {
+			if (in.read(1) == 1) {
+				if (in.read(1) == 1) {
+					previousLeading = (int) in.read(5);
+					final int significant = (int) in.read(6) + 1;
+					previousTrailing = 64 - previousLeading - significant;
+				}
+				previous ^= in.read(64 - previousLeading - previousTrailing) << previousTrailing;
+			}
+			values[i] = Double.longBitsToDouble(previous);
+		}
+		
+		return values;
+		
+	}
+	
+	/**
+	 * Appends bits MSB-first to a growing byte array.
+	 */
+	private static final class BitWriter {
+		
+		private byte[] data;
+		
+		private int position;
+		
+		private BitWriter(int initialBytes) {
+			this.data = new byte[Math.max(initialBytes, 16)];
+		}
+		
+		/**
+		 * Write the lowest given amount of bits of value.
+		 */
+		private void write(long value, int bits) {
+			
+			while (bits > 0) {
+				if ((this.position >>> 3) >= this.data.length) {
+					this.data = Arrays.copyOf(this.data, this.data.length * 2);
+				}
+				final int available = 8 - (this.position & 7);
+				final int take = Math.min(available, bits);
+				final int chunk = (int) ((value >>> (bits - take)) & ((1 << take) - 1));
+				this.data[this.position >>> 3] |= chunk << (available - take);
+				this.position += take;
+				bits -= take;
+			}
+			
+		}
+		
+		private byte[] toByteArray() {
+			return Arrays.copyOf(this.data, (this.position + 7) >>> 3);
+		}
+		
+	}
+	
+	/**
+	 * Reads bits MSB-first from a byte array.
+	 */
+	private static final class BitReader {
+		
+		private final byte[] data;
+		
+		private int position;
+		
+		private BitReader(byte[] data) {
+			this.data = data;
+		}
+		
+		/**
+		 * Read the given amount of bits (at most 64).
+		 * @throws IllegalArgumentException if the data ends prematurely
+		 */
+		private long read(int bits) {
+			
+			long result = 0;
+			while (bits > 0) {
+				if ((this.position >>> 3) >= this.data.length) {
+					throw new IllegalArgumentException("Archived data is truncated.");
+				}
+				final int available = 8 - (this.position & 7);
+				final int take = Math.min(available, bits);
+				final int chunk = ((this.data[this.position >>> 3] & 0xFF) >>> (available - take)) & ((1 << take) - 1);
+				result = (result << take) | chunk;
+				this.position += take;
+				bits -= take;
+			}
+			return result;
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,179 @@
+package at.sparklingscience.urbantrees.util;
+
+import java.util.Locale;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+
+/**
+ * Rolling statistics of the sensor of a single beacon used to detect
+ * sensor faults: exponentially weighted mean and variance of temperature
+ * and humidity plus the newest dataset. Every dataset is checked in
+ * constant time and memory.
+ * Not thread-safe; callers synchronize on the instance.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public final class BeaconSensorState {
+
+	/**
+	 * Weight of a new dataset in the moving statistics.
+	 */
+	private static final double EWMA_ALPHA = 0.05;
+
+	/**
+	 * Amount of datasets needed before deviations are reported.
+	 */
+	public static final int WARMUP_DATASETS = 50;
+
+	/**
+	 * Deviation from the moving mean (in standard deviations) that is reported.
+	 */
+	private static final double MAX_DEVIATION = 6;
+
+	/**
+	 * Lower bounds for the standard deviations, so sensors in very stable
+	 * surroundings don't report tiny changes.
+	 * Humidity is relative (0 to 1), so its bound is one percentage point.
+	 */
+	private static final double MIN_TEMPERATURE_STDDEV = 0.5;
+	private static final double MIN_HUMIDITY_STDDEV = 0.01;
+
+	/**
+	 * Max. temperature change per hour considered physically possible (degrees Celsius).
+	 */
+	private static final double MAX_TEMPERATURE_CHANGE_PER_HOUR = 30;
+
+	/**
+	 * Measurement range of the temperature sensor (degrees Celsius).
+	 */
+	public static final double MIN_TEMPERATURE = -40;
+	public static final double MAX_TEMPERATURE = 85;
+
+	/**
+	 * Tolerance for dew point above temperature (degrees Celsius).
+	 */
+	private static final double DEW_POINT_TOLERANCE = 0.5;
+
+	/**
+	 * Amount of consecutive identical datasets reported as stuck sensor.
+	 */
+	public static final int STUCK_DATASETS = 24;
+
+	/**
+	 * Kinds of detected anomalies.
+	 */
+	public enum Anomaly {
+		OUT_OF_RANGE("Temperature outside of sensor range"),
+		JUMP("Impossible temperature change"),
+		DEW_POINT("Dew point above temperature"),
+		DEVIATION("Unusual deviation from recent values"),
+		STUCK("Sensor values did not change for " + STUCK_DATASETS + " datasets");
+
+		private final String description;
+
+		private Anomaly(String description) {
+			this.description = description;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+	}
+
+	/**
+	 * Receives the anomalies found in a dataset.
+	 */
+	@FunctionalInterface
+	public interface FindingConsumer {
+		void found(Anomaly anomaly, String detail);
+	}
+
+	private long datasetAmount;
+
+	private double temperatureMean;
+	private double temperatureVar;
+
+	private double humidityMean;
+	private double humidityVar;
+
+	private double lastTemperature;
+	private double lastHumidity;
+	private long lastObservationTime;
+
+	private int unchangedAmount;
+
+	/**
+	 * Check the given dataset against the statistics and add it to them.
+	 * Datasets not newer than the newest one checked so far (e.g. sent late)
+	 * are not compared to it, since their neighbouring datasets are unknown.
+	 * @param dataset dataset with observation date set
+	 * @param consumer called for every anomaly found in the dataset
+	 */
+	public void check(BeaconDataset dataset, FindingConsumer consumer) {
+
+		final double temperature = dataset.getTemperature();
+		final double humidity = dataset.getHumidity();
+		final long observationTime = dataset.getObservationDate().getTime();
+		final boolean newest = this.datasetAmount == 0 || observationTime > this.lastObservationTime;
+
+		if (temperature < MIN_TEMPERATURE || temperature > MAX_TEMPERATURE) {
+			consumer.found(Anomaly.OUT_OF_RANGE, temperature + " C");
+		}
+		// a dew point of exactly 0 means it was not sent by the device
+		if (dataset.getDewPoint() != 0 && dataset.getDewPoint() > temperature + DEW_POINT_TOLERANCE) {
+			consumer.found(Anomaly.DEW_POINT, dataset.getDewPoint() + " C > " + temperature + " C");
+		}
+
+		if (this.datasetAmount > 0 && newest) {
+			final double hours = Math.max(observationTime - this.lastObservationTime, 60_000) / 3_600_000d;
+			final double change = Math.abs(temperature - this.lastTemperature);
+			if (change / hours > MAX_TEMPERATURE_CHANGE_PER_HOUR) {
+				consumer.found(Anomaly.JUMP, this.lastTemperature + " C to " + temperature + " C");
+			}
+
+			if (temperature == this.lastTemperature && humidity == this.lastHumidity) {
+				if (++this.unchangedAmount == STUCK_DATASETS - 1) {
+					consumer.found(Anomaly.STUCK, temperature + " C, " + humidity + " humidity");
+				}
+			} else {
+				this.unchangedAmount = 0;
+			}
+		}
+
+		if (this.datasetAmount >= WARMUP_DATASETS) {
+			final double temperatureDev = Math.abs(temperature - this.temperatureMean)
+					/ Math.max(Math.sqrt(this.temperatureVar), MIN_TEMPERATURE_STDDEV);
+			final double humidityDev = Math.abs(humidity - this.humidityMean)
+					/ Math.max(Math.sqrt(this.humidityVar), MIN_HUMIDITY_STDDEV);
+			if (temperatureDev > MAX_DEVIATION || humidityDev > MAX_DEVIATION) {
+				consumer.found(Anomaly.DEVIATION, String.format(
+						Locale.ROOT, "temperature %.1f sd, humidity %.1f sd", temperatureDev, humidityDev
+				));
+			}
+		}
+
+		if (this.datasetAmount == 0) {
+			this.temperatureMean = temperature;
+			this.humidityMean = humidity;
+		} else {
+			double diff = temperature - this.temperatureMean;
+			double increment = EWMA_ALPHA * diff;
+			this.temperatureMean += increment;
+			this.temperatureVar = (1 - EWMA_ALPHA) * (this.temperatureVar + diff * increment);
+
+			diff = humidity - this.humidityMean;
+			increment = EWMA_ALPHA * diff;
+			this.humidityMean += increment;
+			this.humidityVar = (1 - EWMA_ALPHA) * (this.humidityVar + diff * increment);
+		}
+		if (newest) {
+			this.lastTemperature = temperature;
+			this.lastHumidity = humidity;
+			this.lastObservationTime = observationTime;
+		}
+		this.datasetAmount++;
+
+	}
+
+}
@@ -0,0 +1,143 @@
+package at.sparklingscience.urbantrees.util;
+
+import java.util.Date;
+import java.util.List;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconSettings;
+
+/**
+ * Observation dates of the datasets of a single readout.
+ * Beacons log one dataset every logging interval, starting at their
+ * reference time. Datasets don't carry a date themselves; the newest one
+ * is the last logging step before the readout and all others are one
+ * logging interval apart.
+ * All dates are calculated in constant time, regardless of how far the
+ * reference time lies back.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public final class BeaconTimeline {
+
+	/**
+	 * Logging interval in millis.
+	 */
+	private final long intervalMs;
+
+	/**
+	 * Amount of datasets in the readout.
+	 */
+	private final int datasetAmount;
+
+	/**
+	 * Observation time of the newest dataset in epoch millis.
+	 */
+	private final long lastObservationTime;
+
+	/**
+	 * @param settings settings read from the device
+	 * @param readoutTimeApprox approximate epoch millis of the readout
+	 * @param datasetAmount amount of datasets read
+	 */
+	public BeaconTimeline(BeaconSettings settings, long readoutTimeApprox, int datasetAmount) {
+		this.intervalMs = settings.getLoggingIntervalSec() * 1000l;
+		this.datasetAmount = datasetAmount;
+		this.lastObservationTime = lastObservationTime(settings.getRefTime().getTime(), this.intervalMs, readoutTimeApprox);
+	}
+
+	/**
+	 * Calculate the observation time of the newest dataset of a readout.
+	 * This is the last logging interval step after the reference time
+	 * that lies before the time of readout, but never before the
+	 * reference time itself.
+	 * @param refTime reference time of the device in epoch millis
+	 * @param intervalMs logging interval in millis (must be positive)
+	 * @param readoutTimeApprox approximate epoch millis of the readout
+	 * @return observation time of the newest dataset in epoch millis
+	 */
+	public static long lastObservationTime(long refTime, long intervalMs, long readoutTimeApprox) {
+
+		final long elapsed = readoutTimeApprox - intervalMs - refTime;
+		if (elapsed < 0) {
+			return refTime;
+		}
+		return refTime + (elapsed / intervalMs + 1) * intervalMs;
+
+	}
+
+	/**
+	 * @param index index of the dataset in the readout (0 is the oldest)
+	 * @return observation time of the dataset in epoch millis
+	 */
+	public long observationTime(int index) {
+		return this.lastObservationTime - (this.datasetAmount - 1 - index) * this.intervalMs;
+	}
+
+	/**
+	 * Set the observation dates of all given datasets.
+	 * @param datasets datasets of the readout, oldest first
+	 */
+	public void assignTo(List<BeaconDataset> datasets) {
+
+		for (int i = 0; i < datasets.size(); i++) {
+			datasets.get(i).setObservationDate(new Date(this.observationTime(i)));
+		}
+
+	}
+
+	/**
+	 * Amount of the oldest datasets that lie at or before the given date,
+	 * i.e. were already stored by a previous readout.
+	 * @param newestStored observation date of the newest stored dataset (may be null)
+	 * @return amount of datasets to skip; between 0 and the amount of datasets
+	 */
+	public int overlap(Date newestStored) {
+
+		if (newestStored == null || this.datasetAmount == 0) {
+			return 0;
+		}
+		final long diff = newestStored.getTime() - this.getFirstObservationTime();
+		if (diff < 0) {
+			return 0;
+		}
+		return (int) Math.min(this.datasetAmount, diff / this.intervalMs + 1);
+
+	}
+
+	/**
+	 * Amount of logging steps missing between the given date and the
+	 * oldest dataset of this readout.
+	 * @param newestStored observation date of the newest stored dataset (may be null)
+	 * @return amount of missing datasets; 0 if there is no gap
+	 */
+	public long gap(Date newestStored) {
+
+		if (newestStored == null || this.datasetAmount == 0) {
+			return 0;
+		}
+		final long diff = this.getFirstObservationTime() - newestStored.getTime() - this.intervalMs;
+		if (diff < this.intervalMs) {
+			return 0;
+		}
+		return diff / this.intervalMs;
+
+	}
+
+	public long getIntervalMs() {
+		return intervalMs;
+	}
+
+	public int getDatasetAmount() {
+		return datasetAmount;
+	}
+
+	public long getLastObservationTime() {
+		return lastObservationTime;
+	}
+
+	public long getFirstObservationTime() {
+		return this.observationTime(0);
+	}
+
+}
@@ -0,0 +1,253 @@
+package at.sparklingscience.urbantrees.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable uniform grid over 2D points for bounding box and
+ * nearest-neighbour queries.
+ * The cell size is derived from the extent of the points, so that
+ * each cell holds about {@link #TARGET_PER_CELL} points on average,
+ * independent of the units of the coordinates.
+ * Entries are stored sorted by cell (compressed row layout), so a
+ * query only touches the cells it overlaps.
+ *
+ * @param <T> type of indexed values
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public final class SpatialGridIndex<T> {
+
+	/**
+	 * Average amount of entries per cell to aim for.
+	 */
+	private static final int TARGET_PER_CELL = 8;
+
+	private final double minX;
+
+	private final double minY;
+
+	private final double cellSize;
+
+	private final int columns;
+
+	private final int rows;
+
+	/**
+	 * Index of the first entry of each cell; the entries of cell c are
+	 * at cellStart[c] (incl.) to cellStart[c + 1] (excl.).
+	 */
+	private final int[] cellStart;
+
+	private final double[] xs;
+
+	private final double[] ys;
+
+	private final Object[] values;
+
+	/**
+	 * Build an index over the given values.
+	 * @param values values to index
+	 * @param x function returning the x-coordinate of a value
+	 * @param y function returning the y-coordinate of a value
+	 */
+	public SpatialGridIndex(Collection<T> values, ToDoubleFunction<T> x, ToDoubleFunction<T> y) {
+
+		final int size = values.size();
+		final double[] valueXs = new double[size];
+		final double[] valueYs = new double[size];
+		final Object[] valueArray = values.toArray();
+
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < size; i++) {
+			@SuppressWarnings("unchecked")
+			final T value = (T) valueArray[i];
+			valueXs[i] = x.applyAsDouble(value);
+			valueYs[i] = y.applyAsDouble(value);
+			minX = Math.min(minX, valueXs[i]);
+			minY = Math.min(minY, valueYs[i]);
+			maxX = Math.max(maxX, valueXs[i]);
+			maxY = Math.max(maxY, valueYs[i]);
+		}
+		if (size == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+
+		final int targetCells = Math.max(1, size / TARGET_PER_CELL);
+		final double width = maxX - minX, height = maxY - minY;
+		double cellSize;
+		if (width > 0 && height > 0) {
+			cellSize = Math.sqrt(width * height / targetCells);
+		} else {
+			cellSize = Math.max(width, height) / targetCells;
+		}
+		if (!(cellSize > 0)) {
+			cellSize = 1;
+		}
+
+		this.minX = minX;
+		this.minY = minY;
+		this.cellSize = cellSize;
+		this.columns = (int) (width / cellSize) + 1;
+		this.rows = (int) (height / cellSize) + 1;
+
+		// counting sort of all entries by cell
+		final int[] cells = new int[size];
+		this.cellStart = new int[this.columns * this.rows + 1];
+		for (int i = 0; i < size; i++) {
+			cells[i] = this.cell(this.column(valueXs[i]), this.row(valueYs[i]));
+			this.cellStart[cells[i] + 1]++;
+		}
+		for (int c = 0; c < this.columns * this.rows; c++) {
+			this.cellStart[c + 1] += this.cellStart[c];
+		}
+		final int[] next = this.cellStart.clone();
+		this.xs = new double[size];
+		this.ys = new double[size];
+		this.values = new Object[size];
+		for (int i = 0; i < size; i++) {
+			final int pos = next[cells[i]]++;
+			this.xs[pos] = valueXs[i];
+			this.ys[pos] = valueYs[i];
+			this.values[pos] = valueArray[i];
+		}
+
+	}
+
+	/**
+	 * @return amount of indexed values
+	 */
+	public int size() {
+		return this.values.length;
+	}
+
+	/**
+	 * Find all values inside the given bounding box (bounds inclusive).
+	 * @return values in no particular order
+	 */
+	public List<T> findInBounds(double minX, double minY, double maxX, double maxY) {
+
+		final List<T> result = new ArrayList<>();
+		if (this.values.length == 0 || minX > maxX || minY > maxY) {
+			return result;
+		}
+
+		final int firstColumn = this.column(minX), lastColumn = this.column(maxX);
+		final int firstRow = this.row(minY), lastRow = this.row(maxY);
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int column = firstColumn; column <= lastColumn; column++) {
+				final int cell = this.cell(column, row);
+				for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+					if (this.xs[i] >= minX && this.xs[i] <= maxX && this.ys[i] >= minY && this.ys[i] <= maxY) {
+						result.add(this.value(i));
+					}
+				}
+			}
+		}
+		return result;
+
+	}
+
+	/**
+	 * Find the k values closest to the given point (euclidean distance).
+	 * Cells are searched in rings around the cell of the point until
+	 * no closer values are possible.
+	 * @return up to k values, closest first
+	 */
+	public List<T> findNearest(double x, double y, int k) {
+
+		if (this.values.length == 0 || k < 1) {
+			return new ArrayList<>();
+		}
+
+		// max-heap of the best candidates found so far (farthest on top)
+		final PriorityQueue<Candidate> best = new PriorityQueue<>(
+				k + 1,
+				Comparator.comparingDouble((Candidate c) -> c.distanceSq).reversed()
+		);
+		final int centerColumn = this.column(x), centerRow = this.row(y);
+		final int maxRing = Math.max(this.columns, this.rows);
+
+		for (int ring = 0; ring <= maxRing; ring++) {
+			if (best.size() == k) {
+				// points in this ring are at least (ring - 1) cells away
+				final double bound = Math.max(0, ring - 1) * this.cellSize;
+				if (bound * bound > best.peek().distanceSq) {
+					break;
+				}
+			}
+			for (int row = centerRow - ring; row <= centerRow + ring; row++) {
+				if (row < 0 || row >= this.rows) {
+					continue;
+				}
+				final boolean edgeRow = row == centerRow - ring || row == centerRow + ring;
+				final int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+				for (int column = centerColumn - ring; column <= centerColumn + ring; column += step) {
+					if (column < 0 || column >= this.columns) {
+						continue;
+					}
+					final int cell = this.cell(column, row);
+					for (int i = this.cellStart[cell]; i < this.cellStart[cell + 1]; i++) {
+						final double dx = this.xs[i] - x, dy = this.ys[i] - y;
+						final double distanceSq = dx * dx + dy * dy;
+						if (best.size() < k) {
+							best.add(new Candidate(i, distanceSq));
+						} else if (distanceSq < best.peek().distanceSq) {
+							best.poll();
+							best.add(new Candidate(i, distanceSq));
+						}
+					}
+				}
+			}
+		}
+
+		final List<T> result = new ArrayList<>(best.size());
+		while (!best.isEmpty()) {
+			result.add(this.value(best.poll().index));
+		}
+		Collections.reverse(result);
+		return result;
+
+	}
+
+	private int column(double x) {
+		return clamp((int) Math.floor((x - this.minX) / this.cellSize), this.columns);
+	}
+
+	private int row(double y) {
+		return clamp((int) Math.floor((y - this.minY) / this.cellSize), this.rows);
+	}
+
+	private int cell(int column, int row) {
+		return row * this.columns + column;
+	}
+
+	@SuppressWarnings("unchecked")
+	private T value(int index) {
+		return (T) this.values[index];
+	}
+
+	private static int clamp(int value, int size) {
+		return Math.max(0, Math.min(size - 1, value));
+	}
+
+	private static final class Candidate {
+
+		private final int index;
+
+		private final double distanceSq;
+
+		private Candidate(int index, double distanceSq) {
+			this.index = index;
+			this.distanceSq = distanceSq;
+		}
+
+	}
+
+}
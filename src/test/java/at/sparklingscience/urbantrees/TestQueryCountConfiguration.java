@@ -0,0 +1,50 @@
+package at.sparklingscience.urbantrees;
+
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers a MyBatis plugin counting all prepared statements,
+ * so tests can assert the amount of queries an endpoint issues.
+ * 
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@Configuration
+public class TestQueryCountConfiguration {
+	
+	@Bean
+	public QueryCounter queryCounter() {
+		return new QueryCounter();
+	}
+	
+	@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+	public static class QueryCounter implements Interceptor {
+		
+		private final AtomicInteger count = new AtomicInteger();
+		
+		@Override
+		public Object intercept(Invocation invocation) throws Throwable {
+			this.count.incrementAndGet();
+			return invocation.proceed();
+		}
+		
+		public void reset() {
+			this.count.set(0);
+		}
+		
+		public int getCount() {
+			return this.count.get();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,83 @@
+package at.sparklingscience.urbantrees.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconDatasetAggregate;
+import at.sparklingscience.urbantrees.util.BeaconDataAggregation;
+
+/**
+ * Tests for the in-memory aggregation of beacon datasets.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconDataAggregationTests {
+
+	private static final long START_TIME = 1600000000000l;
+
+	private static final long HOUR_SEC = 3600;
+
+	private static final long DAY_SEC = 86400;
+
+	private static List<BeaconDataset> datasets(int amount) {
+		final Random random = new Random(42);
+		final List<BeaconDataset> datasets = new ArrayList<>(amount);
+		for (int i = 0; i < amount; i++) {
+			final BeaconDataset dataset = new BeaconDataset();
+			dataset.setObservationDate(new Date(START_TIME + i * 10 * 60 * 1000l));
+			dataset.setTemperature(15 + random.nextGaussian() * 5);
+			dataset.setHumidity(0.6 + random.nextGaussian() * 0.1);
+			dataset.setDewPoint(8 + random.nextGaussian() * 3);
+			datasets.add(dataset);
+		}
+		return datasets;
+	}
+
+	@Test
+	public void aggregate() {
+
+		final List<BeaconDatasetAggregate> hours = BeaconDataAggregation.aggregate(datasets(12), HOUR_SEC);
+
+		// START_TIME is 26 min 40 s past the hour
+		assertThat(hours).extracting(BeaconDatasetAggregate::getDatasetAmount).containsExactly(4l, 6l, 2l);
+		assertThat(hours.get(0).getBucketStartDate().getTime() % (HOUR_SEC * 1000)).isEqualTo(0);
+		assertThat(hours.get(0).getBucketSec()).isEqualTo(HOUR_SEC);
+
+	}
+
+	@Test
+	public void combineEqualsAggregateOfAll() {
+
+		final List<BeaconDataset> datasets = datasets(1000);
+		final List<BeaconDatasetAggregate> expected = BeaconDataAggregation.aggregate(datasets, DAY_SEC);
+
+		// split at arbitrary points, like rollup and raw edges
+		final List<List<BeaconDatasetAggregate>> parts = new ArrayList<>();
+		parts.add(BeaconDataAggregation.aggregate(datasets.subList(0, 17), DAY_SEC));
+		parts.add(BeaconDataAggregation.aggregate(datasets.subList(17, 900), DAY_SEC));
+		parts.add(BeaconDataAggregation.aggregate(datasets.subList(900, 1000), DAY_SEC));
+		final List<BeaconDatasetAggregate> combined = BeaconDataAggregation.combine(parts);
+
+		assertThat(combined).hasSameSizeAs(expected);
+		for (int i = 0; i < expected.size(); i++) {
+			assertThat(combined.get(i).getBucketStartDate()).isEqualTo(expected.get(i).getBucketStartDate());
+			assertThat(combined.get(i).getDatasetAmount()).isEqualTo(expected.get(i).getDatasetAmount());
+			assertThat(combined.get(i).getTemperatureMin()).isEqualTo(expected.get(i).getTemperatureMin());
+			assertThat(combined.get(i).getTemperatureMax()).isEqualTo(expected.get(i).getTemperatureMax());
+			assertThat(combined.get(i).getTemperatureAvg()).isCloseTo(expected.get(i).getTemperatureAvg(), within(1e-9));
+			assertThat(combined.get(i).getHumidityAvg()).isCloseTo(expected.get(i).getHumidityAvg(), within(1e-9));
+			assertThat(combined.get(i).getDewPointAvg()).isCloseTo(expected.get(i).getDewPointAvg(), within(1e-9));
+		}
+
+	}
+
+}
@@ -0,0 +1,172 @@
+package at.sparklingscience.urbantrees.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.util.BeaconDataCodec;
+
+/**
+ * Round-trip tests for the beacon data archive encoding.
+ * Measurements are compared bit by bit, so e.g. -0.0 and NaN must survive too.
+ * Missing measurements (SQL null) are mapped to 0 by the primitive dataset fields.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconDataCodecTests {
+
+	private static final int BEACON_ID = 7;
+
+	private static BeaconDataset dataset(long id, long time, double temperature, double humidity, double dewPoint) {
+		final BeaconDataset dataset = new BeaconDataset();
+		dataset.setId(id);
+		dataset.setObservationDate(new Date(time));
+		dataset.setTemperature(temperature);
+		dataset.setHumidity(humidity);
+		dataset.setDewPoint(dewPoint);
+		return dataset;
+	}
+
+	private static void assertRoundTrip(List<BeaconDataset> datasets) {
+
+		final List<BeaconDataset> decoded = BeaconDataCodec.decode(BeaconDataCodec.encode(datasets), BEACON_ID);
+
+		assertThat(decoded).hasSameSizeAs(datasets);
+		for (int i = 0; i < datasets.size(); i++) {
+			final BeaconDataset expected = datasets.get(i);
+			final BeaconDataset actual = decoded.get(i);
+			assertThat(actual.getId()).as("id %d", i).isEqualTo(expected.getId());
+			assertThat(actual.getBeaconId()).isEqualTo(BEACON_ID);
+			assertThat(actual.getObservationDate()).as("observation date %d", i).isEqualTo(expected.getObservationDate());
+			assertThat(Double.doubleToRawLongBits(actual.getTemperature())).as("temperature %d", i)
+				.isEqualTo(Double.doubleToRawLongBits(expected.getTemperature()));
+			assertThat(Double.doubleToRawLongBits(actual.getHumidity())).as("humidity %d", i)
+				.isEqualTo(Double.doubleToRawLongBits(expected.getHumidity()));
+			assertThat(Double.doubleToRawLongBits(actual.getDewPoint())).as("dew point %d", i)
+				.isEqualTo(Double.doubleToRawLongBits(expected.getDewPoint()));
+		}
+
+	}
+
+	@Test
+	public void emptyRoundTrip() {
+		assertRoundTrip(new ArrayList<>());
+	}
+
+	@Test
+	public void singleRoundTrip() {
+		assertRoundTrip(Arrays.asList(dataset(1, 1_600_000_000_000L, -3.25, 0.5, -8.1)));
+	}
+
+	@Test
+	public void regularDataRoundTrip() {
+
+		final Random random = new Random(42);
+		final List<BeaconDataset> datasets = new ArrayList<>();
+		double temperature = 12;
+		for (int i = 0; i < 5000; i++) {
+			temperature += random.nextGaussian() * 0.1;
+			datasets.add(dataset(
+					1000 + i,
+					1_600_000_000_000L + i * 600_000L,
+					Math.round(temperature * 100) / 100d,
+					Math.round(random.nextDouble() * 100) / 100d,
+					Math.round((temperature - 5) * 100) / 100d
+			));
+		}
+		assertRoundTrip(datasets);
+
+	}
+
+	@Test
+	public void negativeTemperaturesRoundTrip() {
+
+		final List<BeaconDataset> datasets = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			final double temperature = -20 + i * 0.2;
+			datasets.add(dataset(i + 1, 1_600_000_000_000L + i * 60_000L, temperature, 0.9, temperature - 1.5));
+		}
+		datasets.add(dataset(201, 1_600_100_000_000L, -100, 0, -100));
+		datasets.add(dataset(202, 1_600_100_060_000L, -0.0, 0, 0.0));
+		datasets.add(dataset(203, 1_600_100_120_000L, 100, 1, 100));
+		assertRoundTrip(datasets);
+
+	}
+
+	@Test
+	public void missingMeasurementsRoundTrip() {
+
+		final List<BeaconDataset> datasets = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			final boolean missing = i % 3 == 0;
+			datasets.add(dataset(
+					i + 1,
+					1_600_000_000_000L + i * 60_000L,
+					15.5 + i * 0.01,
+					missing ? 0 : 0.45 + i * 0.001,
+					i % 5 == 0 ? Double.NaN : 4.2 - i * 0.01
+			));
+		}
+		assertRoundTrip(datasets);
+
+	}
+
+	@Test
+	public void irregularTimeGapsRoundTrip() {
+
+		final Random random = new Random(7);
+		final long[] gaps = {
+			0, 1, -1, 63, -63, 64, 65, 255, 256, 257, 2047, 2048, 2049,
+			60_000, 86_400_000L * 40, -86_400_000L * 3, Integer.MAX_VALUE, 3_600_000
+		};
+		final List<BeaconDataset> datasets = new ArrayList<>();
+		long time = 1_500_000_000_000L;
+		long id = 1;
+		for (int i = 0; i < 2000; i++) {
+			time += i < gaps.length ? gaps[i] : gaps[random.nextInt(gaps.length)];
+			id += random.nextInt(10) == 0 ? random.nextInt(1_000_000) : 1;
+			datasets.add(dataset(id, time, random.nextDouble() * 60 - 30, random.nextDouble(), random.nextDouble() * 60 - 40));
+		}
+		assertRoundTrip(datasets);
+
+	}
+
+	@Test
+	public void largeValuesRoundTrip() {
+
+		assertRoundTrip(Arrays.asList(
+				dataset(Long.MAX_VALUE - 5, 0, Double.MAX_VALUE, Double.MIN_VALUE, -Double.MAX_VALUE),
+				dataset(1, Long.MAX_VALUE / 2, 1, 0, Double.NEGATIVE_INFINITY),
+				dataset(Long.MAX_VALUE, 1, -1, 1, Double.POSITIVE_INFINITY),
+				dataset(2, Long.MAX_VALUE / 2 + 1, 0.1, 0.2, 0.3)
+		));
+
+	}
+
+	@Test
+	public void unknownVersionIsRejected() {
+
+		final byte[] data = BeaconDataCodec.encode(Arrays.asList(dataset(1, 0, 1, 1, 1)));
+		data[0] = 99;
+		assertThatThrownBy(() -> BeaconDataCodec.decode(data, BEACON_ID)).isInstanceOf(IllegalArgumentException.class);
+
+	}
+
+	@Test
+	public void truncatedDataIsRejected() {
+
+		final byte[] data = BeaconDataCodec.encode(Arrays.asList(dataset(1, 0, 1, 1, 1), dataset(2, 60_000, 2, 2, 2)));
+		assertThatThrownBy(() -> BeaconDataCodec.decode(Arrays.copyOf(data, 10), BEACON_ID)).isInstanceOf(IllegalArgumentException.class);
+
+	}
+
+}
@@ -0,0 +1,184 @@
+package at.sparklingscience.urbantrees.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutResult;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutState;
+import at.sparklingscience.urbantrees.domain.BeaconReadoutStatus;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+import at.sparklingscience.urbantrees.service.BeaconReadoutQueueService;
+import at.sparklingscience.urbantrees.service.BeaconService;
+
+/**
+ * Tests that journaled readouts are inserted at most once,
+ * even if they are replayed after a restart.
+ * The readout ids stored by {@link BeaconMapper} outlive the
+ * restarted service, just like the DB would.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconReadoutQueueTests {
+
+	private static final int BEACON_ID = 9990;
+
+	private static final long TIMEOUT_MS = 10_000;
+
+	/**
+	 * Readout ids stored in the "DB" and the beacon they belong to.
+	 */
+	private final Map<UUID, Integer> storedReadoutIds = new ConcurrentHashMap<>();
+
+	private BeaconService beaconService;
+
+	private BeaconMapper beaconMapper;
+
+	private UUID readoutId;
+
+	@BeforeEach
+	public void setUp() {
+
+		this.readoutId = UUID.randomUUID();
+		this.beaconService = mock(BeaconService.class);
+		this.beaconMapper = mock(BeaconMapper.class);
+		doAnswer(inv -> this.storedReadoutIds.putIfAbsent(inv.getArgument(0), inv.getArgument(1)) == null ? 1 : 0)
+			.when(this.beaconMapper).insertBeaconReadoutId(any(UUID.class), anyInt());
+		doAnswer(inv -> this.storedReadoutIds.get(inv.getArgument(0)))
+			.when(this.beaconMapper).findBeaconReadoutBeaconId(any(UUID.class));
+
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		for (String suffix : new String[] {".json", ".failed", ".tmp", ".crashed"}) {
+			Files.deleteIfExists(BeaconReadoutQueueService.JOURNAL_ROOT.resolve(this.readoutId + suffix));
+		}
+	}
+
+	private BeaconReadoutQueueService startService() throws Exception {
+
+		final BeaconReadoutQueueService service = new BeaconReadoutQueueService();
+		ReflectionTestUtils.setField(service, "beaconService", this.beaconService);
+		ReflectionTestUtils.setField(service, "beaconMapper", this.beaconMapper);
+		ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate() {
+			private static final long serialVersionUID = 1L;
+			@Override
+			public <T> T execute(TransactionCallback<T> action) {
+				final TransactionStatus status = new SimpleTransactionStatus();
+				return action.doInTransaction(status);
+			}
+		});
+		ReflectionTestUtils.setField(service, "jsonObjectMapper",
+				new ObjectMapper().setVisibility(PropertyAccessor.ALL, Visibility.ANY));
+		ReflectionTestUtils.setField(service, "workerAmount", 1);
+		ReflectionTestUtils.setField(service, "batchSize", 1);
+		ReflectionTestUtils.setField(service, "maxPending", 10);
+		service.start();
+		return service;
+
+	}
+
+	private static BeaconReadoutResult readout() {
+
+		final BeaconDataset dataset = new BeaconDataset();
+		dataset.setTemperature(12.5);
+		dataset.setHumidity(0.6);
+		dataset.setObservationDate(new Date());
+		final ArrayList<BeaconDataset> datasets = new ArrayList<>();
+		datasets.add(dataset);
+		return new BeaconReadoutResult(datasets, null, 0);
+
+	}
+
+	private void awaitDone(BeaconReadoutQueueService service) throws InterruptedException {
+
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+		final Path journalFile = BeaconReadoutQueueService.JOURNAL_ROOT.resolve(this.readoutId + ".json");
+		while (Files.exists(journalFile) || service.findStatus(this.readoutId).getState() != BeaconReadoutState.DONE) {
+			assertThat(System.currentTimeMillis()).as("readout processed in time").isLessThan(deadline);
+			Thread.sleep(20);
+		}
+
+	}
+
+	@Test
+	public void replayAfterRestartIsNotInsertedAgain() throws Exception {
+
+		final Path journalFile = BeaconReadoutQueueService.JOURNAL_ROOT.resolve(this.readoutId + ".json");
+		final Path crashedFile = BeaconReadoutQueueService.JOURNAL_ROOT.resolve(this.readoutId + ".crashed");
+
+		// keep a copy of the journal entry as it was when the insert committed
+		doAnswer(inv -> {
+			Files.copy(journalFile, crashedFile, StandardCopyOption.REPLACE_EXISTING);
+			return null;
+		})
+			.when(this.beaconService).insertReadoutResult(eq(BEACON_ID), any(BeaconReadoutResult.class), anyLong(), any());
+
+		final BeaconReadoutQueueService service = this.startService();
+		service.enqueue(BEACON_ID, readout(), this.readoutId, null);
+		this.awaitDone(service);
+		service.stop();
+
+		// crash after commit, but before the journal entry was removed
+		Files.move(crashedFile, journalFile);
+
+		final BeaconReadoutQueueService restarted = this.startService();
+		this.awaitDone(restarted);
+		restarted.stop();
+
+		verify(this.beaconService, times(1))
+			.insertReadoutResult(eq(BEACON_ID), any(BeaconReadoutResult.class), anyLong(), any());
+
+	}
+
+	@Test
+	public void retryAfterRestartReturnsStoredStatus() throws Exception {
+
+		final BeaconReadoutQueueService service = this.startService();
+		service.enqueue(BEACON_ID, readout(), this.readoutId, null);
+		this.awaitDone(service);
+		service.stop();
+
+		final BeaconReadoutQueueService restarted = this.startService();
+		final BeaconReadoutStatus status = restarted.enqueue(BEACON_ID, readout(), this.readoutId, null);
+		restarted.stop();
+
+		assertThat(status.getState()).isEqualTo(BeaconReadoutState.DONE);
+		assertThat(Files.exists(BeaconReadoutQueueService.JOURNAL_ROOT.resolve(this.readoutId + ".json"))).isFalse();
+		verify(this.beaconService, times(1))
+			.insertReadoutResult(eq(BEACON_ID), any(BeaconReadoutResult.class), anyLong(), any());
+
+	}
+
+}
@@ -0,0 +1,108 @@
+package at.sparklingscience.urbantrees.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.mapper.BeaconMapper;
+
+/**
+ * Tests for the streaming beacon readout endpoint.
+ * Every test runs in a transaction that is rolled back afterwards,
+ * so the streamed datasets don't change the test data.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+@ContextConfiguration
+@Transactional
+public class BeaconReadoutStreamTests {
+
+	private static final int BEACON_ID = 9990;
+
+	private static final String ENDPOINT = "/beacon/" + BEACON_ID + "/readout/stream";
+
+	private static final String API_KEY_HEADER = "x-api-key";
+
+	private static final String API_KEY = "8ec046bf-94cb-402b-b15c-880c317149ee";
+
+	private static final String SETTINGS = "{\"loggingIntervalSec\": 600, \"sensorIntervalSec\": 60, \"memoryCapacity\": 100}";
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private BeaconMapper beaconMapper;
+
+	private static String readout(String settings, String datasets) {
+		return "{\"timeSinceDataReadoutMs\": 1000, \"settings\": " + settings + ", \"datasets\": [" + datasets + "]}";
+	}
+
+	@Test
+	public void streamReadout() throws Exception {
+
+		final Date start = new Date();
+		this.mvc.perform(put(ENDPOINT)
+					.header(API_KEY_HEADER, API_KEY)
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(readout(SETTINGS,
+							"{\"temperature\": 17.5, \"humidity\": 0.45, \"dewPoint\": 5.2},"
+							+ "{\"temperature\": -3.25, \"humidity\": 0.9, \"dewPoint\": -4.5}")))
+			.andExpect(status().isOk());
+
+		// the newest dataset is observed at upload time minus timeSinceDataReadoutMs
+		final List<BeaconDataset> stored = this.beaconMapper.findBeaconDataByBeaconId(
+				BEACON_ID,
+				-1,
+				new Date(start.getTime() - 60 * 60 * 1000),
+				new Date()
+		);
+		assertThat(stored)
+			.extracting(BeaconDataset::getTemperature)
+			.containsExactly(17.5, -3.25);
+
+	}
+
+	@Test
+	public void invalidDatasetIsRejected() throws Exception {
+
+		this.mvc.perform(put(ENDPOINT)
+					.header(API_KEY_HEADER, API_KEY)
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(readout(SETTINGS, "{\"temperature\": 17.5, \"humidity\": 1.5, \"dewPoint\": 5.2}")))
+			.andExpect(status().isBadRequest());
+
+	}
+
+	@Test
+	public void nullSettingsAreRejected() throws Exception {
+
+		this.mvc.perform(put(ENDPOINT)
+					.header(API_KEY_HEADER, API_KEY)
+					.contentType(MediaType.APPLICATION_JSON)
+					.content(readout("null", "{\"temperature\": 17.5, \"humidity\": 0.45, \"dewPoint\": 5.2}")))
+			.andExpect(status().isBadRequest());
+
+	}
+
+}
@@ -0,0 +1,188 @@
+package at.sparklingscience.urbantrees.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.util.BeaconSensorState;
+import at.sparklingscience.urbantrees.util.BeaconSensorState.Anomaly;
+
+/**
+ * Tests for the detection of sensor faults in beacon datasets.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconSensorStateTests {
+
+	private static final long START_TIME = 1600000000000l;
+
+	private static final long INTERVAL_MS = 10 * 60 * 1000;
+
+	private static BeaconDataset dataset(long time, double temperature, double humidity, double dewPoint) {
+		final BeaconDataset dataset = new BeaconDataset();
+		dataset.setObservationDate(new Date(time));
+		dataset.setTemperature(temperature);
+		dataset.setHumidity(humidity);
+		dataset.setDewPoint(dewPoint);
+		return dataset;
+	}
+
+	/**
+	 * @return anomalies found in the given dataset
+	 */
+	private static List<Anomaly> check(BeaconSensorState state, BeaconDataset dataset) {
+		final List<Anomaly> findings = new ArrayList<>();
+		state.check(dataset, (anomaly, detail) -> findings.add(anomaly));
+		return findings;
+	}
+
+	/**
+	 * Feed the given amount of slightly noisy datasets around 15 C,
+	 * one per {@link #INTERVAL_MS}, starting at {@link #START_TIME}.
+	 * @return time of the last dataset
+	 */
+	private static long warmUp(BeaconSensorState state, int amount) {
+		final Random random = new Random(42);
+		long time = START_TIME;
+		for (int i = 0; i < amount; i++) {
+			time = START_TIME + i * INTERVAL_MS;
+			assertThat(check(state, dataset(time, 15 + random.nextGaussian() * 0.1, 0.6 + random.nextGaussian() * 0.01, 8)))
+				.as("dataset %d", i)
+				.isEmpty();
+		}
+		return time;
+	}
+
+	@Test
+	public void normalDataHasNoFindings() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		final Random random = new Random(7);
+		for (int i = 0; i < 2000; i++) {
+			// daily cycle
+			final double phase = 2 * Math.PI * i / 144;
+			final double temperature = 15 + 5 * Math.sin(phase) + random.nextGaussian() * 0.05;
+			final double humidity = 0.6 - 0.15 * Math.sin(phase) + random.nextGaussian() * 0.005;
+			assertThat(check(state, dataset(START_TIME + i * INTERVAL_MS, temperature, humidity, temperature - 6)))
+				.as("dataset %d", i)
+				.isEmpty();
+		}
+
+	}
+
+	@Test
+	public void outOfRange() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		assertThat(check(state, dataset(START_TIME, 90, 0.5, 0))).containsExactly(Anomaly.OUT_OF_RANGE);
+
+		final BeaconSensorState coldState = new BeaconSensorState();
+		assertThat(check(coldState, dataset(START_TIME, -45, 0.5, 0))).containsExactly(Anomaly.OUT_OF_RANGE);
+
+		final BeaconSensorState limitState = new BeaconSensorState();
+		assertThat(check(limitState, dataset(START_TIME, BeaconSensorState.MIN_TEMPERATURE, 0.5, 0))).isEmpty();
+
+	}
+
+	@Test
+	public void jump() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		assertThat(check(state, dataset(START_TIME, 10, 0.5, 0))).isEmpty();
+		// 60 C per hour
+		assertThat(check(state, dataset(START_TIME + INTERVAL_MS, 20, 0.5, 0))).containsExactly(Anomaly.JUMP);
+		// 10 C in 2 hours
+		assertThat(check(state, dataset(START_TIME + 13 * INTERVAL_MS, 10, 0.5, 0))).isEmpty();
+
+	}
+
+	@Test
+	public void noJumpForOutOfOrderDatasets() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		assertThat(check(state, dataset(START_TIME, 10, 0.5, 0))).isEmpty();
+		assertThat(check(state, dataset(START_TIME, 20, 0.5, 0))).isEmpty();
+		assertThat(check(state, dataset(START_TIME - 2 * 3_600_000, 25, 0.5, 0))).isEmpty();
+		// still compared to the newest dataset
+		assertThat(check(state, dataset(START_TIME + INTERVAL_MS, 20, 0.5, 0))).containsExactly(Anomaly.JUMP);
+
+	}
+
+	@Test
+	public void dewPoint() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		assertThat(check(state, dataset(START_TIME, 0, 0.9, 2))).containsExactly(Anomaly.DEW_POINT);
+		// within tolerance
+		assertThat(check(state, dataset(START_TIME + INTERVAL_MS, 0, 0.9, 0.4))).isEmpty();
+		// not sent by the device
+		assertThat(check(state, dataset(START_TIME + 2 * INTERVAL_MS, -3, 0.9, 0))).isEmpty();
+
+	}
+
+	@Test
+	public void deviationAfterWarmUp() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		final long time = warmUp(state, BeaconSensorState.WARMUP_DATASETS);
+		// 10 C in 1 hour is possible, but far from recent values
+		assertThat(check(state, dataset(time + 6 * INTERVAL_MS, 25, 0.6, 8))).containsExactly(Anomaly.DEVIATION);
+
+	}
+
+	@Test
+	public void humidityDeviationAfterWarmUp() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		final long time = warmUp(state, BeaconSensorState.WARMUP_DATASETS);
+		// temperature as usual, but humidity 30 percentage points off
+		assertThat(check(state, dataset(time + INTERVAL_MS, 15, 0.9, 8))).containsExactly(Anomaly.DEVIATION);
+
+	}
+
+	@Test
+	public void noDeviationDuringWarmUp() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		final long time = warmUp(state, BeaconSensorState.WARMUP_DATASETS - 1);
+		assertThat(check(state, dataset(time + 6 * INTERVAL_MS, 25, 0.6, 8))).isEmpty();
+
+	}
+
+	@Test
+	public void stuck() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		final List<Integer> stuckAt = new ArrayList<>();
+		for (int i = 0; i < 3 * BeaconSensorState.STUCK_DATASETS; i++) {
+			if (check(state, dataset(START_TIME + i * INTERVAL_MS, 12.5, 0.7, 5)).contains(Anomaly.STUCK)) {
+				stuckAt.add(i);
+			}
+		}
+		// reported once, at the 24th identical dataset
+		assertThat(stuckAt).containsExactly(BeaconSensorState.STUCK_DATASETS - 1);
+
+	}
+
+	@Test
+	public void notStuckIfValuesChange() {
+
+		final BeaconSensorState state = new BeaconSensorState();
+		for (int i = 0; i < 3 * BeaconSensorState.STUCK_DATASETS; i++) {
+			// changes every 23rd dataset
+			final double temperature = 12.5 + (i / (BeaconSensorState.STUCK_DATASETS - 1)) * 0.1;
+			assertThat(check(state, dataset(START_TIME + i * INTERVAL_MS, temperature, 0.7, 5)))
+				.as("dataset %d", i)
+				.doesNotContain(Anomaly.STUCK);
+		}
+
+	}
+
+}
@@ -0,0 +1,93 @@
+package at.sparklingscience.urbantrees.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import at.sparklingscience.urbantrees.domain.BeaconDataset;
+import at.sparklingscience.urbantrees.domain.BeaconSettings;
+import at.sparklingscience.urbantrees.util.BeaconTimeline;
+
+/**
+ * Tests for the reconstruction of observation dates of beacon readouts.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class BeaconTimelineTests {
+
+	/**
+	 * Previous implementation, stepping from the reference time
+	 * one logging interval at a time.
+	 */
+	private static long lastObservationTimeIterative(long refTime, long intervalMs, long readoutTimeApprox) {
+		long logTime = refTime;
+		while (logTime <= readoutTimeApprox - intervalMs) {
+			logTime += intervalMs;
+		}
+		return logTime;
+	}
+
+	@Test
+	public void lastObservationTimeMatchesIterative() {
+
+		final Random random = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			final long intervalMs = (1 + random.nextInt(3600)) * 1000l;
+			final long refTime = 1500000000000l + random.nextInt(1000000000);
+			final long readoutTime = refTime - intervalMs + random.nextInt(100000000);
+
+			assertThat(BeaconTimeline.lastObservationTime(refTime, intervalMs, readoutTime))
+				.isEqualTo(lastObservationTimeIterative(refTime, intervalMs, readoutTime));
+		}
+
+	}
+
+	@Test
+	public void lastObservationTimeOldRefTime() {
+
+		final long refTime = 1000000000000l;
+		final long readoutTime = refTime + TimeUnit.DAYS.toMillis(3650) + 500;
+
+		assertThat(BeaconTimeline.lastObservationTime(refTime, 1000, readoutTime))
+			.isEqualTo(lastObservationTimeIterative(refTime, 1000, readoutTime));
+
+	}
+
+	@Test
+	public void overlapAndGap() {
+
+		final BeaconSettings settings = new BeaconSettings();
+		settings.setRefTime(new Date(0));
+		settings.setLoggingIntervalSec(60);
+
+		final List<BeaconDataset> datasets = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			datasets.add(new BeaconDataset());
+		}
+		final BeaconTimeline timeline = new BeaconTimeline(settings, 60000 * 100 + 1, datasets.size());
+		timeline.assignTo(datasets);
+
+		assertThat(datasets.get(9).getObservationDate().getTime()).isEqualTo(60000 * 100);
+		assertThat(datasets.get(0).getObservationDate().getTime()).isEqualTo(60000 * 91);
+
+		assertThat(timeline.overlap(null)).isEqualTo(0);
+		assertThat(timeline.overlap(new Date(60000 * 90))).isEqualTo(0);
+		assertThat(timeline.overlap(new Date(60000 * 91))).isEqualTo(1);
+		assertThat(timeline.overlap(new Date(60000 * 95 + 30000))).isEqualTo(5);
+		assertThat(timeline.overlap(new Date(60000 * 200))).isEqualTo(10);
+
+		assertThat(timeline.gap(null)).isEqualTo(0);
+		assertThat(timeline.gap(new Date(60000 * 90))).isEqualTo(0);
+		assertThat(timeline.gap(new Date(60000 * 95))).isEqualTo(0);
+		assertThat(timeline.gap(new Date(60000 * 80))).isEqualTo(10);
+
+	}
+
+}
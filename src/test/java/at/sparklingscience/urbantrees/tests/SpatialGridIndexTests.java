@@ -0,0 +1,96 @@
+package at.sparklingscience.urbantrees.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import at.sparklingscience.urbantrees.util.SpatialGridIndex;
+
+/**
+ * Tests for the spatial index of the tree catalogue,
+ * compared against brute-force search.
+ *
+ * @author Laurenz Fiala
+ * @since 2026/10/17
+ */
+public class SpatialGridIndexTests {
+
+	private static double distanceSq(double[] p, double x, double y) {
+		return (p[0] - x) * (p[0] - x) + (p[1] - y) * (p[1] - y);
+	}
+
+	private static List<double[]> randomPoints(Random random, int amount) {
+		final List<double[]> points = new ArrayList<>(amount);
+		for (int i = 0; i < amount; i++) {
+			points.add(new double[] {random.nextDouble() * 1000, random.nextDouble() * 300});
+		}
+		return points;
+	}
+
+	@Test
+	public void findInBoundsMatchesBruteForce() {
+
+		final Random random = new Random(42);
+		final List<double[]> points = randomPoints(random, 2000);
+		final SpatialGridIndex<double[]> index = new SpatialGridIndex<>(points, p -> p[0], p -> p[1]);
+
+		for (int i = 0; i < 500; i++) {
+			final double minX = random.nextDouble() * 1200 - 100, minY = random.nextDouble() * 400 - 50;
+			final double maxX = minX + random.nextDouble() * 300, maxY = minY + random.nextDouble() * 100;
+
+			assertThat(index.findInBounds(minX, minY, maxX, maxY)).containsExactlyInAnyOrderElementsOf(
+				points.stream()
+					.filter(p -> p[0] >= minX && p[0] <= maxX && p[1] >= minY && p[1] <= maxY)
+					.collect(Collectors.toList())
+			);
+		}
+
+	}
+
+	@Test
+	public void findNearestMatchesBruteForce() {
+
+		final Random random = new Random(42);
+		final List<double[]> points = randomPoints(random, 2000);
+		final SpatialGridIndex<double[]> index = new SpatialGridIndex<>(points, p -> p[0], p -> p[1]);
+
+		for (int i = 0; i < 500; i++) {
+			final double x = random.nextDouble() * 1400 - 200, y = random.nextDouble() * 600 - 150;
+			final int k = 1 + random.nextInt(20);
+
+			final List<double[]> expected = new ArrayList<>(points);
+			expected.sort(Comparator.comparingDouble(p -> distanceSq(p, x, y)));
+			final List<double[]> nearest = index.findNearest(x, y, k);
+
+			assertThat(nearest).hasSize(k);
+			for (int j = 0; j < k; j++) {
+				assertThat(distanceSq(nearest.get(j), x, y)).isEqualTo(distanceSq(expected.get(j), x, y));
+			}
+		}
+
+	}
+
+	@Test
+	public void emptyAndDegenerate() {
+
+		final SpatialGridIndex<double[]> empty = new SpatialGridIndex<>(new ArrayList<>(), p -> p[0], p -> p[1]);
+		assertThat(empty.findInBounds(0, 0, 10, 10)).isEmpty();
+		assertThat(empty.findNearest(0, 0, 5)).isEmpty();
+
+		final List<double[]> samePoint = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			samePoint.add(new double[] {5, 5});
+		}
+		final SpatialGridIndex<double[]> index = new SpatialGridIndex<>(samePoint, p -> p[0], p -> p[1]);
+		assertThat(index.findInBounds(5, 5, 5, 5)).hasSize(20);
+		assertThat(index.findNearest(100, 100, 3)).hasSize(3);
+
+	}
+
+}
@@ -21,6 +21,7 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import at.sparklingscience.urbantrees.TestQueryCountConfiguration.QueryCounter;
 import at.sparklingscience.urbantrees.domain.City;
 import at.sparklingscience.urbantrees.domain.Coordinates;
 import at.sparklingscience.urbantrees.domain.Location;
@@ -32,6 +33,7 @@ import at.sparklingscience.urbantrees.domain.PhysiognomyDataset;
 import at.sparklingscience.urbantrees.domain.Tree;
 import at.sparklingscience.urbantrees.domain.TreeGenus;
 import at.sparklingscience.urbantrees.domain.TreeSpecies;
+import at.sparklingscience.urbantrees.service.TreeCatalogueService;
 
 /**
  * Tests for the beacon REST endpoint.
@@ -49,6 +51,15 @@ public class TreeTests {
 	@Autowired
 	private TestRestTemplate restTemplate;
 
+	@Autowired
+	private QueryCounter queryCounter;
+
+	@Autowired
+	private TreeCatalogueService treeCatalogueService;
+
+	@Value("${endpoints.trees}")
+	private String treesEndpoint;
+
 	@Value("${endpoints.tree}")
 	private String treeEndpoint;
 
@@ -82,6 +93,23 @@ public class TreeTests {
 
 	}
 
+	@Test
+	public void getAllTreesQueryCount() throws ClientProtocolException, IOException {
+
+		this.treeCatalogueService.invalidate();
+		this.queryCounter.reset();
+		Tree[] trees = this.restTemplate.getForObject(this.treesEndpoint, Tree[].class);
+
+		assertThat(trees).isNotEmpty();
+		assertThat(trees).allSatisfy(t -> {
+			assertThat(t.getLocation()).isNotNull();
+			assertThat(t.getBeacons()).isNotNull();
+			assertThat(t.getBeacons()).allSatisfy(b -> assertThat(b.getTree().getId()).isEqualTo(t.getId()));
+		});
+		assertThat(this.queryCounter.getCount()).isEqualTo(1);
+
+	}
+
 	@Test
 	public void getTreePhysiognomy() throws ClientProtocolException, IOException, ParseException {
 